@@ -0,0 +1,38 @@
+package com.multibank.candle.api;
+
+import com.multibank.candle.service.CatchUpMonitor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/catchup}: catch-up progress and estimated completion; a POST enters catch-up mode
+ * and a DELETE leaves it.
+ */
+@Component
+@Endpoint(id = "catchup")
+@RequiredArgsConstructor
+public class CatchUpEndpoint {
+
+    private final CatchUpMonitor catchUpMonitor;
+
+    @ReadOperation
+    public CatchUpMonitor.Status status() {
+        return catchUpMonitor.status();
+    }
+
+    @WriteOperation
+    public CatchUpMonitor.Status start() {
+        catchUpMonitor.start();
+        return catchUpMonitor.status();
+    }
+
+    @DeleteOperation
+    public CatchUpMonitor.Status finish() {
+        catchUpMonitor.finish();
+        return catchUpMonitor.status();
+    }
+}
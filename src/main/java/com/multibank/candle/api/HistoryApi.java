@@ -1,5 +1,6 @@
 package com.multibank.candle.api;
 
+import com.multibank.candle.api.dto.BatchHistoryResponse;
 import com.multibank.candle.api.dto.HistoryResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -9,8 +10,12 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.io.IOException;
+import java.util.List;
+
 @Tag(
         name = "Candles",
         description = "Endpoints for querying OHLC candles for any supported symbol and timeframe."
@@ -22,12 +27,19 @@ public interface HistoryApi {
             description = """
                     Returns OHLC candles for a symbol and timeframe within the [from, to] range.
                     The result is sorted by time ascending.
+                    Clients sending Accept: application/x-candle-columns get the compact binary columnar
+                    layout documented in HistoryBinaryFormat instead of JSON.
                     """
     )
     @ApiResponse(
             responseCode = "200",
             description = "Candles successfully retrieved",
-            content = @Content(array = @ArraySchema(schema = @Schema(implementation = HistoryResponse.class)))
+            content = {
+                    @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = HistoryResponse.class))),
+                    @Content(mediaType = HistoryBinaryFormat.MEDIA_TYPE_VALUE,
+                            schema = @Schema(type = "string", format = "binary"))
+            }
     )
     @ApiResponse(
             responseCode = "400",
@@ -49,7 +61,9 @@ public interface HistoryApi {
             ),
             @Parameter(
                     name = "interval",
-                    description = "Candle timeframe (1s, 1m, 5m, etc.)",
+                    description = "Candle timeframe: a configured one (1s, 1m, 1h, etc.) or any count of s, m, h, d or w "
+                            + "(3m, 2h, 1w) resampled from the largest configured timeframe dividing it. Buckets are "
+                            + "aligned to the epoch, so weeks start on Thursday 00:00 UTC",
                     required = true,
                     example = "1m"
             ),
@@ -73,4 +87,57 @@ public interface HistoryApi {
             @RequestParam long to
     );
 
+    @Operation(
+            summary = "Get candle history of several series",
+            description = """
+                    Returns the OHLC candles of every symbol in every interval within the same [from, to] range,
+                    one columnar series per (symbol, interval) in request order, each with the fields of the single
+                    history response. Series not held in memory are read with one query per interval.
+                    """
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Candles successfully retrieved, series without candles have status no_data",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BatchHistoryResponse.class))
+    )
+    @Parameters({
+            @Parameter(name = "symbols", description = "Trading symbols, comma separated or repeated", required = true, example = "BTC-USD,ETH-USD"),
+            @Parameter(name = "intervals", description = "Candle timeframes, configured or resampled as for the history endpoint", required = true, example = "1m,1h"),
+            @Parameter(name = "from", description = "Start timestamp (epoch seconds). Inclusive.", required = true, example = "1700000000"),
+            @Parameter(name = "to", description = "End timestamp (epoch seconds). Must be > from.", required = true, example = "1700000600")
+    })
+    BatchHistoryResponse getHistories(
+            @RequestParam List<String> symbols,
+            @RequestParam List<String> intervals,
+            @RequestParam long from,
+            @RequestParam long to
+    );
+
+    @Operation(
+            summary = "Stream candle history",
+            description = """
+                    Streams the OHLC candles of a symbol and timeframe within the [from, to] range as
+                    newline-delimited JSON, one {"t","o","h","l","c","v"} object per line sorted by time ascending.
+                    Rows are written as they are read from the database, so any range can be requested.
+                    """
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Candles streamed, no lines when there is no data",
+            content = @Content(mediaType = "application/x-ndjson")
+    )
+    @Parameters({
+            @Parameter(name = "symbol", description = "Trading symbol (e.g. BTC-USD, ETH-USD)", required = true, example = "BTC-USD"),
+            @Parameter(name = "interval", description = "Candle timeframe, configured or resampled as for the history endpoint", required = true, example = "1s"),
+            @Parameter(name = "from", description = "Start timestamp (epoch seconds). Inclusive.", required = true, example = "1700000000"),
+            @Parameter(name = "to", description = "End timestamp (epoch seconds). Must be > from.", required = true, example = "1700604800")
+    })
+    void streamHistory(
+            @RequestParam String symbol,
+            @RequestParam String interval,
+            @RequestParam long from,
+            @RequestParam long to,
+            @Parameter(hidden = true) HttpServletResponse response
+    ) throws IOException;
+
 }
@@ -0,0 +1,73 @@
+package com.multibank.candle.api;
+
+import com.multibank.candle.api.dto.HistoryResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static com.multibank.candle.api.HistoryBinaryFormat.*;
+
+/**
+ * Reference decoder of the {@link HistoryBinaryFormat}, meant to be copied into Java clients.
+ */
+public final class HistoryBinaryDecoder {
+
+    private HistoryBinaryDecoder() {
+    }
+
+    public static HistoryResponse decode(byte[] payload) {
+        return decode(ByteBuffer.wrap(payload));
+    }
+
+    public static HistoryResponse decode(ByteBuffer payload) {
+        var in = payload.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        var version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported candle columns version " + version);
+        }
+        var status = in.get() == STATUS_OK ? HistoryResponse.OK : HistoryResponse.NO_DATA;
+        var encoding = in.get();
+        var scale = in.get();
+        var size = Math.toIntExact(readVarint(in));
+
+        var response = new HistoryResponse(status, new long[size], new double[size], new double[size],
+                new double[size], new double[size], new long[size]);
+        long time = 0;
+        for (int i = 0; i < size; i++) {
+            time = i == 0 ? readVarint(in) : time + unzigzag(readVarint(in));
+            response.t()[i] = time;
+        }
+        var pow10 = Math.pow(10, scale);
+        for (double[] prices : new double[][]{response.o(), response.h(), response.l(), response.c()}) {
+            long scaled = 0;
+            for (int i = 0; i < size; i++) {
+                if (encoding == PRICES_RAW) {
+                    prices[i] = in.getDouble();
+                } else {
+                    scaled += unzigzag(readVarint(in));
+                    prices[i] = scaled / pow10;
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            response.v()[i] = readVarint(in);
+        }
+        return response;
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            var b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,39 @@
+package com.multibank.candle.api;
+
+/**
+ * Binary columnar representation of a history response, served for
+ * {@code Accept: }{@value #MEDIA_TYPE_VALUE}. All fixed-size numbers are little-endian.
+ * <pre>
+ *   size    field
+ *   1       version (1)
+ *   1       status: 0 ok, 1 no_data
+ *   1       price encoding: 0 scaled integers, 1 raw doubles
+ *   1       price scale k, decimal digits kept by scaled prices (0 for raw doubles)
+ *   varint  candle count n
+ *   n       t: first time as varint, then each difference to the previous time as zigzag varint
+ *   4 x n   o, h, l, c, one column after the other:
+ *             scaled: price * 10^k as an integer, first value and then each difference to the
+ *                     previous value of the column, all zigzag varints
+ *             raw:    8 byte IEEE 754 doubles
+ *   n       v: varint
+ * </pre>
+ * Varints are unsigned LEB128 (7 bits per byte, low groups first, high bit set on all but the last byte);
+ * zigzag maps signed to unsigned as {@code (x << 1) ^ (x >> 63)}. Prices are scaled when every price of the
+ * response is exactly {@code integer / 10^k} for some {@code k <= }{@value #MAX_PRICE_SCALE}, which holds for
+ * prices on a tick grid, and sent raw otherwise, so decoding always gives back the exact doubles.
+ * {@link HistoryBinaryDecoder} is the reference decoder.
+ */
+public final class HistoryBinaryFormat {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-candle-columns";
+
+    static final byte VERSION = 1;
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_NO_DATA = 1;
+    static final byte PRICES_SCALED = 0;
+    static final byte PRICES_RAW = 1;
+    static final int MAX_PRICE_SCALE = 8;
+
+    private HistoryBinaryFormat() {
+    }
+}
@@ -0,0 +1,48 @@
+package com.multibank.candle.api;
+
+import com.multibank.candle.api.dto.HistoryResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Writes history responses in the {@link HistoryBinaryFormat} when the client accepts
+ * {@value HistoryBinaryFormat#MEDIA_TYPE_VALUE}.
+ */
+@Component
+public class HistoryBinaryHttpMessageConverter extends AbstractHttpMessageConverter<HistoryResponse> {
+
+    public HistoryBinaryHttpMessageConverter() {
+        super(MediaType.parseMediaType(HistoryBinaryFormat.MEDIA_TYPE_VALUE));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return HistoryResponse.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected HistoryResponse readInternal(Class<? extends HistoryResponse> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("History responses are write-only", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(HistoryResponse response, MediaType contentType) {
+        return null;
+    }
+
+    @Override
+    protected void writeInternal(HistoryResponse response, HttpOutputMessage outputMessage) throws IOException {
+        new HistoryBinaryWriter(outputMessage.getBody()).write(response);
+    }
+}
@@ -0,0 +1,128 @@
+package com.multibank.candle.api;
+
+import com.multibank.candle.api.dto.HistoryResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static com.multibank.candle.api.HistoryBinaryFormat.*;
+
+/**
+ * Writes a {@link HistoryResponse} in the {@link HistoryBinaryFormat} through a byte buffer flushed to
+ * the output stream. Not thread-safe: one writer serves one response.
+ */
+final class HistoryBinaryWriter {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_VARINT_SIZE = 10;
+    // scaled prices stay below 2^53 so that they and their quotient by 10^k are exact doubles
+    private static final double MAX_SCALED = 0x1p53;
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8};
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    HistoryBinaryWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    void write(HistoryResponse response) throws IOException {
+        var scale = priceScale(response);
+        buffer[position++] = VERSION;
+        buffer[position++] = HistoryResponse.OK.equals(response.s()) ? STATUS_OK : STATUS_NO_DATA;
+        buffer[position++] = scale < 0 ? PRICES_RAW : PRICES_SCALED;
+        buffer[position++] = (byte) Math.max(scale, 0);
+        writeVarint(response.size());
+
+        writeDeltas(response.t());
+        for (double[] prices : new double[][]{response.o(), response.h(), response.l(), response.c()}) {
+            if (scale < 0) {
+                writeRaw(prices);
+            } else {
+                writeScaled(prices, POW10[scale]);
+            }
+        }
+        for (long volume : response.v()) {
+            ensure(MAX_VARINT_SIZE);
+            writeVarint(volume);
+        }
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    /**
+     * The smallest scale at which every price is an exact integer, or -1 when there is none.
+     */
+    static int priceScale(HistoryResponse response) {
+        int scale = 0;
+        for (double[] prices : new double[][]{response.o(), response.h(), response.l(), response.c()}) {
+            for (double price : prices) {
+                while (!isExact(price, scale)) {
+                    if (++scale > MAX_PRICE_SCALE) {
+                        return -1;
+                    }
+                }
+            }
+        }
+        return scale;
+    }
+
+    private static boolean isExact(double price, int scale) {
+        var scaled = price * POW10[scale];
+        return Math.abs(scaled) < MAX_SCALED && Math.round(scaled) / POW10[scale] == price;
+    }
+
+    private void writeDeltas(long[] values) throws IOException {
+        long previous = 0;
+        for (int i = 0; i < values.length; i++) {
+            ensure(MAX_VARINT_SIZE);
+            if (i == 0) {
+                writeVarint(values[0]);
+            } else {
+                writeVarint(zigzag(values[i] - previous));
+            }
+            previous = values[i];
+        }
+    }
+
+    private void writeScaled(double[] prices, double pow10) throws IOException {
+        long previous = 0;
+        for (double price : prices) {
+            ensure(MAX_VARINT_SIZE);
+            var scaled = Math.round(price * pow10);
+            writeVarint(zigzag(scaled - previous));
+            previous = scaled;
+        }
+    }
+
+    private void writeRaw(double[] prices) throws IOException {
+        for (double price : prices) {
+            ensure(Long.BYTES);
+            var bits = Double.doubleToRawLongBits(price);
+            for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+                buffer[position++] = (byte) (bits >>> shift);
+            }
+        }
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (BUFFER_SIZE - position < bytes) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
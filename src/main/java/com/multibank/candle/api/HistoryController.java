@@ -1,15 +1,18 @@
 package com.multibank.candle.api;
 
+import com.multibank.candle.api.dto.BatchHistoryResponse;
 import com.multibank.candle.api.dto.HistoryResponse;
-import com.multibank.candle.domain.Candle;
 import com.multibank.candle.service.GetHistoryOperation;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @Slf4j
@@ -20,36 +23,34 @@ public class HistoryController implements HistoryApi {
 
     private final GetHistoryOperation candleService;
 
-    @GetMapping
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, HistoryBinaryFormat.MEDIA_TYPE_VALUE})
     public HistoryResponse getHistory(String symbol, String interval, long from, long to) {
 
         log.info("Requesting history: symbol={}, interval={}, from={}, to={}", symbol, interval, from, to);
-        var candles = candleService.getHistory(symbol, interval, from, to);
+        return HistoryResponse.of(candleService.getHistory(symbol, interval, from, to));
+    }
 
-        if (candles.isEmpty()) {
-            return new HistoryResponse("no_data", List.of(), List.of(), List.of(), List.of(), List.of(), List.of());
-        }
+    @GetMapping(value = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public BatchHistoryResponse getHistories(List<String> symbols, List<String> intervals, long from, long to) {
 
-        return getHistoryResponse(candles);
+        log.info("Requesting batch history: symbols={}, intervals={}, from={}, to={}", symbols, intervals, from, to);
+        return BatchHistoryResponse.of(candleService.getHistories(symbols, intervals, from, to));
     }
 
-    private static HistoryResponse getHistoryResponse(List<Candle> candles) {
-        var t = new ArrayList<Long>();
-        var o = new ArrayList<Double>();
-        var h = new ArrayList<Double>();
-        var l = new ArrayList<Double>();
-        var c = new ArrayList<Double>();
-        var v = new ArrayList<Long>();
-
-        for (Candle candle : candles) {
-            t.add(candle.time());
-            o.add(candle.open());
-            h.add(candle.high());
-            l.add(candle.low());
-            c.add(candle.close());
-            v.add(candle.volume());
-        }
-
-        return new HistoryResponse("ok", t, o, h, l, c, v);
+    @GetMapping("/stream")
+    public void streamHistory(String symbol, String interval, long from, long to, HttpServletResponse response)
+            throws IOException {
+
+        log.info("Streaming history: symbol={}, interval={}, from={}, to={}", symbol, interval, from, to);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        var writer = new HistoryJsonWriter(response.getOutputStream());
+        candleService.streamHistory(symbol, interval, from, to, candle -> {
+            try {
+                writer.writeRow(candle);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
     }
 }
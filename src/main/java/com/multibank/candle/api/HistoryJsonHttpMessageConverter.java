@@ -0,0 +1,55 @@
+package com.multibank.candle.api;
+
+import com.multibank.candle.api.dto.BatchHistoryResponse;
+import com.multibank.candle.api.dto.HistoryResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Writes history responses, single and batch, with {@link HistoryJsonWriter} instead of Jackson. Spring Boot
+ * registers converter beans ahead of the default ones, so this one wins for {@link HistoryResponse} and
+ * {@link BatchHistoryResponse}.
+ */
+@Component
+public class HistoryJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public HistoryJsonHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return HistoryResponse.class == clazz || BatchHistoryResponse.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("History responses are write-only", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(Object response, MediaType contentType) {
+        return null;
+    }
+
+    @Override
+    protected void writeInternal(Object response, HttpOutputMessage outputMessage) throws IOException {
+        var writer = new HistoryJsonWriter(outputMessage.getBody());
+        if (response instanceof BatchHistoryResponse batch) {
+            writer.write(batch);
+        } else {
+            writer.write((HistoryResponse) response);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.multibank.candle.api;
+
+import com.multibank.candle.api.dto.BatchHistoryResponse;
+import com.multibank.candle.api.dto.HistoryResponse;
+import com.multibank.candle.domain.Candle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a {@link HistoryResponse} as {@code {"s":..,"t":[..],"o":[..],"h":[..],"l":[..],"c":[..],"v":[..]}}
+ * straight from its primitive columns into a byte buffer flushed to the output stream, with the
+ * number formatting Jackson uses ({@link Double#toString(double)}). Longs and doubles in plain notation,
+ * which covers prices, are formatted in place, so the cost per candle is formatting only, not objects;
+ * other doubles go through a reused builder. Not thread-safe: one writer serves one response.
+ * <p>
+ * A {@link BatchHistoryResponse} is written as {@code {"series":[{"symbol":..,"interval":..,"s":..,"t":[..],..},..]}}.
+ */
+final class HistoryJsonWriter {
+
+    private static final int BUFFER_SIZE = 8192;
+    // longest number: "-9223372036854775808" and doubles such as "-2.2250738585072014E-308"
+    private static final int MAX_NUMBER_SIZE = 32;
+    private static final int MAX_ROW_SIZE = 6 * (MAX_NUMBER_SIZE + 2) + 32;
+    // up to 15 significant digits a decimal identifies one double, and 10^k and the digits are exact doubles
+    private static final int MAX_PLAIN_DIGITS = 15;
+    private static final double MAX_PLAIN_SCALED = 1e15;
+    private static final double[] POW10 = new double[MAX_PLAIN_DIGITS + 1];
+    private static final long[] LONG_POW10 = new long[MAX_PLAIN_DIGITS + 1];
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    static {
+        long pow = 1;
+        for (int k = 0; k <= MAX_PLAIN_DIGITS; k++) {
+            LONG_POW10[k] = pow;
+            POW10[k] = pow;
+            pow *= 10;
+        }
+    }
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final StringBuilder number = new StringBuilder(MAX_NUMBER_SIZE);
+    private int position;
+
+    HistoryJsonWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    void write(HistoryResponse response) throws IOException {
+        append('{');
+        fields(response);
+        append('}');
+        flush();
+    }
+
+    void write(BatchHistoryResponse response) throws IOException {
+        ascii("{\"series\":[");
+        var series = response.series();
+        for (int i = 0; i < series.size(); i++) {
+            var entry = series.get(i);
+            ascii(i > 0 ? ",{\"symbol\":" : "{\"symbol\":");
+            string(entry.symbol());
+            ascii(",\"interval\":");
+            string(entry.interval());
+            append(',');
+            fields(entry.history());
+            append('}');
+        }
+        ascii("]}");
+        flush();
+    }
+
+    private void fields(HistoryResponse response) throws IOException {
+        ascii("\"s\":\"");
+        ascii(response.s());
+        ascii("\",\"t\":");
+        column(response.t());
+        ascii(",\"o\":");
+        column(response.o());
+        ascii(",\"h\":");
+        column(response.h());
+        ascii(",\"l\":");
+        column(response.l());
+        ascii(",\"c\":");
+        column(response.c());
+        ascii(",\"v\":");
+        column(response.v());
+    }
+
+    /**
+     * Writes one candle as a line of newline-delimited JSON, {@code {"t":..,"o":..,"h":..,"l":..,"c":..,"v":..}},
+     * for streamed responses; {@link #flush()} writes out what is still buffered.
+     */
+    void writeRow(Candle candle) throws IOException {
+        ensure(MAX_ROW_SIZE);
+        asciiUnchecked("{\"t\":");
+        writeLong(candle.time());
+        asciiUnchecked(",\"o\":");
+        writeDouble(candle.open());
+        asciiUnchecked(",\"h\":");
+        writeDouble(candle.high());
+        asciiUnchecked(",\"l\":");
+        writeDouble(candle.low());
+        asciiUnchecked(",\"c\":");
+        writeDouble(candle.close());
+        asciiUnchecked(",\"v\":");
+        writeLong(candle.volume());
+        asciiUnchecked("}\n");
+    }
+
+    void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private void column(long[] values) throws IOException {
+        append('[');
+        for (int i = 0; i < values.length; i++) {
+            ensure(MAX_NUMBER_SIZE + 1);
+            if (i > 0) {
+                buffer[position++] = ',';
+            }
+            writeLong(values[i]);
+        }
+        append(']');
+    }
+
+    private void column(double[] values) throws IOException {
+        append('[');
+        for (int i = 0; i < values.length; i++) {
+            ensure(MAX_NUMBER_SIZE + 3);
+            if (i > 0) {
+                buffer[position++] = ',';
+            }
+            writeDouble(values[i]);
+        }
+        append(']');
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            asciiUnchecked(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = digits(value);
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    private void writeDouble(double value) {
+        if (writePlain(value)) {
+            return;
+        }
+        // Jackson quotes non-finite numbers by default
+        boolean quoted = !Double.isFinite(value);
+        if (quoted) {
+            buffer[position++] = '"';
+        }
+        number.setLength(0);
+        number.append(value);
+        for (int i = 0; i < number.length(); i++) {
+            buffer[position++] = (byte) number.charAt(i);
+        }
+        if (quoted) {
+            buffer[position++] = '"';
+        }
+    }
+
+    /**
+     * Writes values that {@link Double#toString(double)} prints in plain notation ({@code 1e-3 <= |v| < 1e7})
+     * with at most 15 significant digits: the first scale {@code k} at which {@code round(v * 10^k) / 10^k}
+     * is {@code v} again gives the shortest decimal, which is what {@code toString} prints. Divisions of
+     * exact doubles are correctly rounded, so that check is exact.
+     */
+    private boolean writePlain(double value) {
+        var abs = Math.abs(value);
+        if (!(abs >= 1e-3 && abs < 1e7)) {
+            return false;
+        }
+        for (int k = 0; k <= MAX_PLAIN_DIGITS; k++) {
+            var scaled = abs * POW10[k];
+            if (scaled >= MAX_PLAIN_SCALED) {
+                return false;
+            }
+            var digits = Math.round(scaled);
+            if (digits / POW10[k] == abs) {
+                if (value < 0) {
+                    buffer[position++] = '-';
+                }
+                writeLong(digits / LONG_POW10[k]);
+                buffer[position++] = '.';
+                if (k == 0) {
+                    buffer[position++] = '0';
+                } else {
+                    writeFraction(digits % LONG_POW10[k], k);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeFraction(long fraction, int width) {
+        int end = position + width;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        position = end;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Writes a JSON string escaped as Jackson does: quotes, backslashes and control characters, the
+     * rest as UTF-8.
+     */
+    private void string(String text) throws IOException {
+        append('"');
+        for (int i = 0; i < text.length(); i++) {
+            ensure(6);
+            var c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer[position++] = '\\';
+                buffer[position++] = (byte) c;
+            } else if (c < 0x20) {
+                escapeControl(c);
+            } else if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else {
+                var codePoint = text.codePointAt(i);
+                i += Character.charCount(codePoint) - 1;
+                utf8(codePoint);
+            }
+        }
+        append('"');
+    }
+
+    private void escapeControl(char c) {
+        buffer[position++] = '\\';
+        switch (c) {
+            case '\b' -> buffer[position++] = 'b';
+            case '\t' -> buffer[position++] = 't';
+            case '\n' -> buffer[position++] = 'n';
+            case '\f' -> buffer[position++] = 'f';
+            case '\r' -> buffer[position++] = 'r';
+            default -> {
+                buffer[position++] = 'u';
+                buffer[position++] = '0';
+                buffer[position++] = '0';
+                buffer[position++] = (byte) HEX[c >> 4];
+                buffer[position++] = (byte) HEX[c & 0xF];
+            }
+        }
+    }
+
+    private void utf8(int codePoint) {
+        if (codePoint < 0x800) {
+            buffer[position++] = (byte) (0xC0 | codePoint >> 6);
+        } else if (codePoint < 0x10000) {
+            buffer[position++] = (byte) (0xE0 | codePoint >> 12);
+            buffer[position++] = (byte) (0x80 | (codePoint >> 6 & 0x3F));
+        } else {
+            buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+            buffer[position++] = (byte) (0x80 | (codePoint >> 12 & 0x3F));
+            buffer[position++] = (byte) (0x80 | (codePoint >> 6 & 0x3F));
+        }
+        buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+    }
+
+    // only used for field names and the status, which are short and need no escaping
+    private void ascii(String text) throws IOException {
+        ensure(text.length());
+        asciiUnchecked(text);
+    }
+
+    private void asciiUnchecked(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            buffer[position++] = (byte) text.charAt(i);
+        }
+    }
+
+    private void append(char c) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) c;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (BUFFER_SIZE - position < bytes) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
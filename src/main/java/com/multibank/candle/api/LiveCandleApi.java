@@ -0,0 +1,42 @@
+package com.multibank.candle.api;
+
+import com.multibank.candle.api.dto.LiveCandle;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@Tag(
+        name = "Candles",
+        description = "Endpoints for querying OHLC candles for any supported symbol and timeframe."
+)
+public interface LiveCandleApi {
+
+    @Operation(
+            summary = "Subscribe to live candles",
+            description = """
+                    Opens a Server-Sent Events stream of candle updates for the subscribed (symbol, interval)
+                    pairs. The latest known candle of each pair is sent first, then a "candle" event every time
+                    one changes. Updates are conflated: a client reading slower than they are produced only
+                    receives the latest state of each pair.
+                    """
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Event stream opened",
+            content = @Content(mediaType = "text/event-stream", schema = @Schema(implementation = LiveCandle.class))
+    )
+    @Parameter(
+            name = "subscribe",
+            description = "symbol:interval pairs, repeated; intervals are the ones history accepts",
+            required = true,
+            example = "BTC-USD:1m"
+    )
+    SseEmitter subscribe(@RequestParam List<String> subscribe);
+}
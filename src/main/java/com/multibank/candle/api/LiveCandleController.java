@@ -0,0 +1,52 @@
+package com.multibank.candle.api;
+
+import com.multibank.candle.api.dto.LiveCandle;
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.service.LiveCandleHub;
+import com.multibank.candle.service.LiveCandleHub.Subscription;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/candles/live")
+@ConditionalOnProperty(name = "candle.live.enabled", havingValue = "true", matchIfMissing = true)
+public class LiveCandleController implements LiveCandleApi {
+
+    private final LiveCandleHub liveCandleHub;
+    private final CandleConfigProperties properties;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(List<String> subscribe) {
+
+        log.info("Live subscription: {}", subscribe);
+        var subscriptions = subscribe.stream().map(LiveCandleController::parse).distinct().toList();
+        var emitter = new SseEmitter(properties.getLive().getConnectionTimeout().toMillis());
+        var registration = liveCandleHub.subscribe(subscriptions,
+                (subscription, candle) -> emitter.send(SseEmitter.event()
+                        .name("candle")
+                        .data(LiveCandle.of(subscription, candle), MediaType.APPLICATION_JSON)),
+                emitter::complete);
+        emitter.onCompletion(registration::close);
+        emitter.onTimeout(registration::close);
+        emitter.onError(ex -> registration.close());
+        return emitter;
+    }
+
+    private static Subscription parse(String pair) {
+        var separator = pair.lastIndexOf(':');
+        if (separator <= 0 || separator == pair.length() - 1) {
+            throw new RuntimeException("Expected symbol:interval, got " + pair);
+        }
+        return new Subscription(pair.substring(0, separator), pair.substring(separator + 1));
+    }
+}
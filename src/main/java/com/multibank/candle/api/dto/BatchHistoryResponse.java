@@ -0,0 +1,22 @@
+package com.multibank.candle.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.multibank.candle.service.GetHistoryOperation.SeriesHistory;
+
+import java.util.List;
+
+/**
+ * Candle history of several (symbol, interval) series in request order, each one the columnar
+ * {@link HistoryResponse} of a single history read with its symbol and interval alongside.
+ */
+public record BatchHistoryResponse(List<Series> series) {
+
+    public record Series(String symbol, String interval, @JsonUnwrapped HistoryResponse history) {
+    }
+
+    public static BatchHistoryResponse of(List<SeriesHistory> histories) {
+        return new BatchHistoryResponse(histories.stream()
+                .map(h -> new Series(h.symbol(), h.interval(), HistoryResponse.of(h.candles())))
+                .toList());
+    }
+}
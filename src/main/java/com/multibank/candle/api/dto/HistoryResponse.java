@@ -1,7 +1,45 @@
 package com.multibank.candle.api.dto;
 
+import com.multibank.candle.domain.Candle;
+
 import java.util.List;
 
+/**
+ * Columnar candle history: {@code t,o,h,l,c,v} hold time, open, high, low, close and volume of
+ * candle {@code i} at index {@code i}. Columns are primitive arrays so building and writing a
+ * response boxes nothing.
+ */
 public record HistoryResponse(
-        String s, List<Long> t, List<Double> o, List<Double> h, List<Double> l, List<Double> c, List<Long> v) {
-}
\ No newline at end of file
+        String s, long[] t, double[] o, double[] h, double[] l, double[] c, long[] v) {
+
+    public static final String OK = "ok";
+    public static final String NO_DATA = "no_data";
+
+    public static HistoryResponse of(List<Candle> candles) {
+        if (candles.isEmpty()) {
+            return noData();
+        }
+        var size = candles.size();
+        var response = new HistoryResponse(OK, new long[size], new double[size], new double[size],
+                new double[size], new double[size], new long[size]);
+        for (int i = 0; i < size; i++) {
+            var candle = candles.get(i);
+            response.t[i] = candle.time();
+            response.o[i] = candle.open();
+            response.h[i] = candle.high();
+            response.l[i] = candle.low();
+            response.c[i] = candle.close();
+            response.v[i] = candle.volume();
+        }
+        return response;
+    }
+
+    public static HistoryResponse noData() {
+        return new HistoryResponse(NO_DATA, new long[0], new double[0], new double[0],
+                new double[0], new double[0], new long[0]);
+    }
+
+    public int size() {
+        return t.length;
+    }
+}
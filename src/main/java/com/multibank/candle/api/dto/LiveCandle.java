@@ -0,0 +1,16 @@
+package com.multibank.candle.api.dto;
+
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.service.LiveCandleHub.Subscription;
+
+/**
+ * One live candle update: symbol {@code s}, interval {@code i}, and the time, open, high, low, close
+ * and volume of the candle as it currently stands.
+ */
+public record LiveCandle(String s, String i, long t, double o, double h, double l, double c, long v) {
+
+    public static LiveCandle of(Subscription subscription, Candle candle) {
+        return new LiveCandle(subscription.symbol(), subscription.interval(), candle.time(), candle.open(),
+                candle.high(), candle.low(), candle.close(), candle.volume());
+    }
+}
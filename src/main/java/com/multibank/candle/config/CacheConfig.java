@@ -1,6 +1,7 @@
 package com.multibank.candle.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.multibank.candle.service.HistoryChunkCache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCache;
@@ -9,25 +10,21 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 @EnableCaching
 @Configuration
 public class CacheConfig {
 
     @Bean
-    public Caffeine<Object, Object> caffeineSpec() {
-        return Caffeine.newBuilder()
-                .maximumSize(10_000)
-                .expireAfterWrite(30, TimeUnit.SECONDS);
-    }
-
-    @Bean
-    public CacheManager cacheManager(Caffeine<Object, Object> caffeine) {
+    public CacheManager cacheManager(CandleConfigProperties properties) {
 
-        CaffeineCache historyCache = new CaffeineCache("history-cache", caffeine.build());
+        // closed chunks never change unless invalidated, they only leave the cache when it is full
+        CaffeineCache historyChunkCache = new CaffeineCache(HistoryChunkCache.HISTORY_CHUNK_CACHE, Caffeine.newBuilder()
+                .maximumWeight(properties.getHistoryCache().getMaxCandles())
+                .weigher((key, chunk) -> ((List<?>) chunk).size() + 1)
+                .build());
         SimpleCacheManager manager = new SimpleCacheManager();
-        manager.setCaches(List.of(historyCache));
+        manager.setCaches(List.of(historyChunkCache));
 
         return manager;
     }
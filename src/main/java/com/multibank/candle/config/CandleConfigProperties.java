@@ -1,10 +1,13 @@
 package com.multibank.candle.config;
 
+import com.multibank.candle.domain.BulkLoadMode;
 import lombok.Data;
 import lombok.experimental.Accessors;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,4 +19,146 @@ public class CandleConfigProperties {
 
     public Map<String, Double> symbols;
     public List<TimeFrameConfig> timeframes;
-}
\ No newline at end of file
+    public Engine engine = new Engine();
+    public Persistence persistence = new Persistence();
+    public WriteBehind writeBehind = new WriteBehind();
+    public Checkpoint checkpoint = new Checkpoint();
+    public CatchUp catchUp = new CatchUp();
+    public Backfill backfill = new Backfill();
+    public LoadGenerator loadGenerator = new LoadGenerator();
+    public Tape tape = new Tape();
+    public HistoryCache historyCache = new HistoryCache();
+    public RecentCandles recentCandles = new RecentCandles();
+    public Live live = new Live();
+    public HistoryBatch historyBatch = new HistoryBatch();
+
+    @Data
+    @Accessors(chain = true)
+    public static class Engine {
+        private boolean enabled = true;
+        private boolean rollup = false;
+        private boolean partitionAffine = false;
+        private Duration flushInterval = Duration.ofSeconds(1);
+        private Duration allowedLateness = Duration.ofSeconds(5);
+
+        public Duration allowedLateness(TimeFrameConfig tf) {
+            return tf.getAllowedLateness() != null ? tf.getAllowedLateness() : allowedLateness;
+        }
+    }
+
+    @Data
+    @Accessors(chain = true)
+    public static class Persistence {
+        private Strategy strategy = Strategy.JPA;
+        private int batchSize = 500;
+        private int copyChunkRows = 5_000_000;
+        // rows fetched per round trip by streamed history reads
+        private int streamFetchSize = 1_000;
+
+        public enum Strategy {
+            JPA, JDBC
+        }
+    }
+
+    @Data
+    @Accessors(chain = true)
+    public static class WriteBehind {
+        private boolean enabled = false;
+        // high-water mark: consumption is paused above it, the queue still accepts flushes meanwhile
+        private int capacity = 50_000;
+    }
+
+    @Data
+    @Accessors(chain = true)
+    public static class Checkpoint {
+        private boolean enabled = false;
+    }
+
+    @Data
+    @Accessors(chain = true)
+    public static class CatchUp {
+        // enter catch-up automatically when the lag exceeds enterLag, it is left once below exitLag
+        private boolean enabled = false;
+        private long enterLag = 100_000;
+        private long exitLag = 1_000;
+        private Duration flushInterval = Duration.ofSeconds(10);
+        private Map<String, String> consumerProperties = new HashMap<>();
+    }
+
+    @Data
+    @Accessors(chain = true)
+    public static class Backfill {
+        // CSV file loaded on startup, before the listener containers are started
+        private String file;
+        // REPLACE overwrites the stored candles, to rebuild a range from a corrected export
+        private BulkLoadMode mode = BulkLoadMode.MERGE;
+    }
+
+    @Data
+    @Accessors(chain = true)
+    public static class LoadGenerator {
+        private boolean enabled = false;
+        private int ticksPerSecond = 10_000;
+        private int symbols = 1_000;
+        // Zipf exponent of the symbol distribution, 0 for uniform
+        private double skew = 1.1;
+        private int threads = 4;
+        private double initialPrice = 100.0;
+        private double burstFactor = 1.0;
+        private Duration burstEvery = Duration.ofMinutes(1);
+        private Duration burstDuration = Duration.ofSeconds(5);
+    }
+
+    @Data
+    @Accessors(chain = true)
+    public static class Tape {
+        // ticks of the live topic are appended to this tape while the application runs
+        private String recordFile;
+        // a tape of the simulator's ticks is written on startup
+        private String simulateFile;
+        private long simulateSeed = 42;
+        private Duration simulateDuration = Duration.ofHours(1);
+        // epoch second of the first simulated tick, fixed so every run writes the same tape; 2024-01-01T00:00:00Z
+        private long simulateFrom = 1_704_067_200L;
+        // a tape replayed through the listener on startup; the listener containers then stay stopped
+        private String replayFile;
+        // 0 replays as fast as possible, 1 in real time, 10 ten times faster
+        private double replaySpeed = 0;
+        private int replayBatchSize = 500;
+    }
+
+    @Data
+    @Accessors(chain = true)
+    public static class HistoryCache {
+        // candles per cached chunk, chunks are aligned to multiples of chunkCandles * timeframe seconds
+        private int chunkCandles = 1_000;
+        private long maxCandles = 2_000_000;
+    }
+
+    @Data
+    @Accessors(chain = true)
+    public static class RecentCandles {
+        private boolean enabled = true;
+        // candles kept per (symbol, timeframe), 48 bytes each
+        private int capacity = 512;
+        // (symbol, timeframe) series kept, about 24KB each at the default capacity
+        private int maxSeries = 2_000;
+    }
+
+    @Data
+    @Accessors(chain = true)
+    public static class Live {
+        private boolean enabled = true;
+        private Duration publishInterval = Duration.ofMillis(500);
+        // (symbol, interval) pairs per connection, which also bounds its pending updates
+        private int maxSubscriptions = 50;
+        private Duration connectionTimeout = Duration.ofHours(1);
+    }
+
+    @Data
+    @Accessors(chain = true)
+    public static class HistoryBatch {
+        // symbols times intervals of one batch history request
+        private int maxSeries = 200;
+    }
+}
@@ -1,10 +1,15 @@
 package com.multibank.candle.config;
 
+import com.multibank.candle.domain.BidAskEvent;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
 
 import java.time.Duration;
 
@@ -14,6 +19,11 @@ import static org.apache.kafka.common.config.TopicConfig.*;
 @Configuration
 public class KafkaConfig {
 
+    /**
+     * Id of the aggregator's listener containers, the ones catch-up and back-pressure act on.
+     */
+    public static final String AGGREGATOR_LISTENER_ID = "candle-aggregator";
+
     @Bean
     public NewTopic bidAskEventsTopic(
             @Value("${app.kafka.bid-ask-topic}") String topicName
@@ -26,4 +36,19 @@ public class KafkaConfig {
                 .build();
     }
 
+    /**
+     * Containers of the tape recorder: without the aggregator's rebalance listener, which would hand
+     * the recorder's partitions to the engine, and committing after each batch.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "candle.tape.record-file")
+    public ConcurrentKafkaListenerContainerFactory<String, BidAskEvent> tickTapeContainerFactory(
+            ConsumerFactory<String, BidAskEvent> consumerFactory
+    ) {
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, BidAskEvent>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
 }
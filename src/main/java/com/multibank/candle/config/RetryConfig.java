@@ -1,9 +0,0 @@
-package com.multibank.candle.config;
-
-import org.springframework.context.annotation.Configuration;
-import org.springframework.retry.annotation.EnableRetry;
-
-@Configuration
-@EnableRetry
-public class RetryConfig {
-}
\ No newline at end of file
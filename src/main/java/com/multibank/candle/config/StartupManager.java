@@ -1,20 +1,32 @@
 package com.multibank.candle.config;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.Lifecycle;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
 import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
 
+/**
+ * Starts the listener containers, which do not start on their own, once every startup runner is done.
+ * A tape replay keeps them stopped so replayed and live ticks never mix.
+ */
+@Slf4j
 @Configuration
 @RequiredArgsConstructor
 public class StartupManager {
 
     private final KafkaListenerEndpointRegistry registry;
+    private final CandleConfigProperties properties;
 
     @EventListener(ApplicationReadyEvent.class)
     public void onReady() {
+        var replayFile = properties.getTape().getReplayFile();
+        if (replayFile != null && !replayFile.isBlank()) {
+            log.info("Replayed {}, listener containers are not started", replayFile);
+            return;
+        }
         registry.getListenerContainers().forEach(Lifecycle::start);
     }
-}
\ No newline at end of file
+}
@@ -5,15 +5,29 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.regex.Pattern;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class TimeFrameConfig {
+
+    private static final Pattern INTERVAL = Pattern.compile("([1-9][0-9]{0,8})([smhdw])");
+
     private String name;
     private String code;
     private long seconds;
+    /**
+     * How far behind the partition watermark a candle of this timeframe still accepts ticks,
+     * {@code candle.engine.allowed-lateness} when not set.
+     */
+    private Duration allowedLateness;
+
+    public TimeFrameConfig(String name, String code, long seconds) {
+        this(name, code, seconds, null);
+    }
 
     public static TimeFrameConfig fromCode(List<TimeFrameConfig> timeFrameConfigList, String code) {
         return timeFrameConfigList
@@ -22,4 +36,53 @@ public class TimeFrameConfig {
                 .findFirst()
                 .orElseThrow(() -> new RuntimeException("Timeframe does not exists"));
     }
-}
\ No newline at end of file
+
+    /**
+     * The configured timeframe {@code code}, or null when it is not one.
+     */
+    public static TimeFrameConfig findByCode(List<TimeFrameConfig> timeFrameConfigList, String code) {
+        for (TimeFrameConfig tf : timeFrameConfigList) {
+            if (tf.getCode().equals(code)) {
+                return tf;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Length of an interval code made of a count and a unit, s, m, h, d or w: 90s, 3m, 4h, 1w.
+     * Buckets are aligned to the epoch, so weeks start on Thursday.
+     */
+    public static long parseSeconds(String code) {
+        var matcher = INTERVAL.matcher(code);
+        if (!matcher.matches()) {
+            throw new RuntimeException("Timeframe does not exists");
+        }
+        var count = Long.parseLong(matcher.group(1));
+        return switch (matcher.group(2)) {
+            case "s" -> count;
+            case "m" -> count * 60;
+            case "h" -> count * 3_600;
+            case "d" -> count * 86_400;
+            default -> count * 604_800;
+        };
+    }
+
+    /**
+     * The largest configured timeframe whose candles tile candles of {@code seconds}, i.e. whose
+     * length divides it; buckets of both are aligned to the epoch, so each one falls in a single
+     * bucket of {@code seconds}.
+     */
+    public static TimeFrameConfig divisorOf(List<TimeFrameConfig> timeFrameConfigList, long seconds) {
+        TimeFrameConfig divisor = null;
+        for (TimeFrameConfig tf : timeFrameConfigList) {
+            if (seconds % tf.getSeconds() == 0 && (divisor == null || tf.getSeconds() > divisor.getSeconds())) {
+                divisor = tf;
+            }
+        }
+        if (divisor == null) {
+            throw new RuntimeException("Timeframe does not exists");
+        }
+        return divisor;
+    }
+}
@@ -0,0 +1,21 @@
+package com.multibank.candle.domain;
+
+/**
+ * Snapshot of the aggregation state of one Kafka partition of {@code source}. {@code state} holds the open
+ * candles and watermark after every record before {@code nextOffset} was applied and handed to persistence.
+ */
+public record AggregationCheckpoint(Source source, int partition, long nextOffset, byte[] state) {
+
+    /**
+     * The consumer group and topic whose offsets a checkpoint refers to.
+     */
+    public record Source(String groupId, String topic) {
+    }
+
+    public record Key(Source source, int partition) {
+    }
+
+    public Key key() {
+        return new Key(source, partition);
+    }
+}
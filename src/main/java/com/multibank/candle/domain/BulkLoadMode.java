@@ -0,0 +1,15 @@
+package com.multibank.candle.domain;
+
+/**
+ * How bulk loaded candles are combined with the ones already stored.
+ */
+public enum BulkLoadMode {
+    /**
+     * Loaded candles are deltas, merged like the ones flushed by the aggregation engine.
+     */
+    MERGE,
+    /**
+     * Loaded candles are complete and overwrite the stored ones, as needed by rebuilds.
+     */
+    REPLACE
+}
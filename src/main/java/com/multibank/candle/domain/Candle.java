@@ -1,4 +1,17 @@
 package com.multibank.candle.domain;
 
 public record Candle(long time, double open, double high, double low, double close, long volume) {
+
+    /**
+     * Folds a later update of the same bucket into this candle.
+     */
+    public Candle merge(Candle update) {
+        return new Candle(
+                time,
+                open,
+                Math.max(high, update.high),
+                Math.min(low, update.low),
+                update.close,
+                volume + update.volume);
+    }
 }
@@ -0,0 +1,10 @@
+package com.multibank.candle.domain;
+
+import com.multibank.candle.repository.entity.CandleId;
+
+/**
+ * Tick that arrived after the candle identified by {@code id} was sealed. Sealed candles are
+ * never changed, the tick is recorded on the side instead.
+ */
+public record CandleAmendment(CandleId id, double price, long timestamp) {
+}
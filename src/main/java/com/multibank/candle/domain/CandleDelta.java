@@ -0,0 +1,55 @@
+package com.multibank.candle.domain;
+
+import com.multibank.candle.repository.entity.CandleEntity;
+import com.multibank.candle.repository.entity.CandleId;
+
+/**
+ * OHLCV change to be merged into the stored candle identified by {@code id}. {@code openTime} and
+ * {@code closeTime} are the event times of the ticks behind the open and the close: merges keep the
+ * earliest open and replace the close only with one at least as recent, so late ticks never move them.
+ */
+public record CandleDelta(CandleId id, Candle candle, long openTime, long closeTime) {
+
+    /**
+     * For candles without tick times, such as backfill rows: both are taken as the bucket start.
+     */
+    public CandleDelta(CandleId id, Candle candle) {
+        this(id, candle, candle.time(), candle.time());
+    }
+
+    public static CandleDelta ofTick(CandleId id, double price, long timestamp) {
+        return new CandleDelta(id, new Candle(id.getTime(), price, price, price, price, 1L), timestamp, timestamp);
+    }
+
+    public CandleDelta merge(CandleDelta other) {
+        var first = other.openTime < openTime ? other : this;
+        var last = other.closeTime >= closeTime ? other : this;
+        return new CandleDelta(id, new Candle(
+                candle.time(),
+                first.candle.open(),
+                Math.max(candle.high(), other.candle.high()),
+                Math.min(candle.low(), other.candle.low()),
+                last.candle.close(),
+                candle.volume() + other.candle.volume()),
+                first.openTime, last.closeTime);
+    }
+
+    public CandleEntity toEntity() {
+        return new CandleEntity(id, null, candle.open(), candle.high(), candle.low(), candle.close(), candle.volume(),
+                openTime, closeTime);
+    }
+
+    public void applyTo(CandleEntity entity) {
+        if (openTime < entity.getOpenTime()) {
+            entity.setOpen(candle.open());
+            entity.setOpenTime(openTime);
+        }
+        entity.setHigh(Math.max(entity.getHigh(), candle.high()));
+        entity.setLow(Math.min(entity.getLow(), candle.low()));
+        if (closeTime >= entity.getCloseTime()) {
+            entity.setClose(candle.close());
+            entity.setCloseTime(closeTime);
+        }
+        entity.setVolume(entity.getVolume() + candle.volume());
+    }
+}
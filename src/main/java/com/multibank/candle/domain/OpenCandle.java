@@ -0,0 +1,156 @@
+package com.multibank.candle.domain;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Mutable OHLCV state of the candle currently open for one (symbol, timeframe), updated in place.
+ * {@code flushedVolume} and {@code rolledVolume} mark the part already persisted and already folded
+ * into higher timeframes. Partial deltas carry the high/low of the whole bucket, which is safe since
+ * widening them again is idempotent. {@code openTime} and {@code closeTime} are the event times of the
+ * ticks behind the open and the close, which follow event time rather than arrival order.
+ */
+public final class OpenCandle {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long time = EMPTY;
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private long volume;
+    private long openTime;
+    private long closeTime;
+    private long flushedVolume;
+    private long rolledVolume;
+
+    public boolean isEmpty() {
+        return time == EMPTY;
+    }
+
+    public long time() {
+        return time;
+    }
+
+    public long openTime() {
+        return openTime;
+    }
+
+    public long closeTime() {
+        return closeTime;
+    }
+
+    public void reset(long time, double price, long timestamp) {
+        this.time = time;
+        this.open = price;
+        this.high = price;
+        this.low = price;
+        this.close = price;
+        this.volume = 1;
+        this.openTime = timestamp;
+        this.closeTime = timestamp;
+        this.flushedVolume = 0;
+        this.rolledVolume = 0;
+    }
+
+    public void reset(long time, OpenCandle source) {
+        this.time = time;
+        this.open = source.open;
+        this.high = source.high;
+        this.low = source.low;
+        this.close = source.close;
+        this.volume = source.volume - source.rolledVolume;
+        this.openTime = source.openTime;
+        this.closeTime = source.closeTime;
+        this.flushedVolume = 0;
+        this.rolledVolume = 0;
+    }
+
+    public void update(double price, long timestamp) {
+        if (price > high) {
+            high = price;
+        }
+        if (price < low) {
+            low = price;
+        }
+        if (timestamp < openTime) {
+            open = price;
+            openTime = timestamp;
+        }
+        if (timestamp >= closeTime) {
+            close = price;
+            closeTime = timestamp;
+        }
+        volume++;
+    }
+
+    public void merge(OpenCandle source) {
+        if (source.high > high) {
+            high = source.high;
+        }
+        if (source.low < low) {
+            low = source.low;
+        }
+        if (source.openTime < openTime) {
+            open = source.open;
+            openTime = source.openTime;
+        }
+        if (source.closeTime >= closeTime) {
+            close = source.close;
+            closeTime = source.closeTime;
+        }
+        volume += source.volume - source.rolledVolume;
+    }
+
+    public boolean hasUnrolled() {
+        return volume > rolledVolume;
+    }
+
+    public void markRolled() {
+        rolledVolume = volume;
+    }
+
+    public boolean hasPending() {
+        return volume > flushedVolume;
+    }
+
+    public Candle pending() {
+        return new Candle(time, open, high, low, close, volume - flushedVolume);
+    }
+
+    public void markFlushed() {
+        flushedVolume = volume;
+    }
+
+    public Candle toCandle() {
+        return new Candle(time, open, high, low, close, volume);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(time);
+        out.writeDouble(open);
+        out.writeDouble(high);
+        out.writeDouble(low);
+        out.writeDouble(close);
+        out.writeLong(volume);
+        out.writeLong(openTime);
+        out.writeLong(closeTime);
+        out.writeLong(flushedVolume);
+        out.writeLong(rolledVolume);
+    }
+
+    public void readFrom(DataInput in) throws IOException {
+        time = in.readLong();
+        open = in.readDouble();
+        high = in.readDouble();
+        low = in.readDouble();
+        close = in.readDouble();
+        volume = in.readLong();
+        openTime = in.readLong();
+        closeTime = in.readLong();
+        flushedVolume = in.readLong();
+        rolledVolume = in.readLong();
+    }
+}
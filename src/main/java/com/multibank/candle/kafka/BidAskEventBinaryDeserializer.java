@@ -0,0 +1,72 @@
+package com.multibank.candle.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.multibank.candle.domain.BidAskEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static com.multibank.candle.kafka.BidAskEventBinaryFormat.*;
+
+/**
+ * Reads {@link BidAskEvent} from the {@link BidAskEventBinaryFormat} layout. Dictionary symbols
+ * resolve to the configured {@code String} instances, so a record costs a single allocation.
+ * <p>
+ * Payloads starting with <code>'{'</code> are read as JSON, so records written by the
+ * {@code JsonSerializer} before a switch-over can still be consumed.
+ */
+public class BidAskEventBinaryDeserializer implements Deserializer<BidAskEvent> {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private String[] symbols = new String[0];
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        symbols = BidAskEventBinaryFormat.symbols(configs);
+    }
+
+    @Override
+    public BidAskEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length > 0 && data[0] == '{') {
+            return fromJson(data);
+        }
+        if (data.length < FIXED_SIZE || data[0] != VERSION) {
+            throw new SerializationException("Unsupported bid/ask payload, version=" + (data.length > 0 ? data[0] : "none"));
+        }
+
+        var id = (short) SHORT.get(data, 1);
+        var bid = (double) DOUBLE.get(data, 3);
+        var ask = (double) DOUBLE.get(data, 11);
+        var timestamp = (long) LONG.get(data, 19);
+        return new BidAskEvent(symbol(id, data), bid, ask, timestamp);
+    }
+
+    private String symbol(short id, byte[] data) {
+        if (id == INLINE_SYMBOL) {
+            var length = data.length > FIXED_SIZE ? data[FIXED_SIZE] & 0xFF : -1;
+            if (length < 0 || FIXED_SIZE + 1 + length > data.length) {
+                throw new SerializationException("Truncated inline symbol, payload has " + data.length + " bytes");
+            }
+            return new String(data, FIXED_SIZE + 1, length, StandardCharsets.UTF_8);
+        }
+        if (id < 0 || id >= symbols.length) {
+            throw new SerializationException("Unknown symbol id " + id + ", dictionary has " + symbols.length + " entries");
+        }
+        return symbols[id];
+    }
+
+    private static BidAskEvent fromJson(byte[] data) {
+        try {
+            return JSON.readValue(data, BidAskEvent.class);
+        } catch (IOException ex) {
+            throw new SerializationException("Invalid JSON bid/ask payload", ex);
+        }
+    }
+}
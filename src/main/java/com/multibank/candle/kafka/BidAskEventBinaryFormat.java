@@ -0,0 +1,65 @@
+package com.multibank.candle.kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed layout binary encoding of {@link com.multibank.candle.domain.BidAskEvent}, all numbers big-endian:
+ * <pre>
+ *   offset  size  field
+ *   0       1     version (1)
+ *   1       2     symbol id in the dictionary, or -1 when the symbol is written inline
+ *   3       8     bid (IEEE 754 double)
+ *   11      8     ask (IEEE 754 double)
+ *   19      8     timestamp (epoch seconds)
+ *   27      1     inline symbol length, only when symbol id is -1
+ *   28      n     inline symbol (UTF-8)
+ * </pre>
+ * The symbol dictionary is configured with {@value #SYMBOLS_CONFIG} on both producer and consumer.
+ * Ids are list positions, so the list is append-only: existing entries must never be reordered.
+ */
+final class BidAskEventBinaryFormat {
+
+    static final String SYMBOLS_CONFIG = "bid-ask.binary.symbols";
+
+    static final byte VERSION = 1;
+    static final short INLINE_SYMBOL = -1;
+    static final int FIXED_SIZE = 27;
+
+    static final VarHandle SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    static final VarHandle DOUBLE = MethodHandles.byteArrayViewVarHandle(double[].class, ByteOrder.BIG_ENDIAN);
+
+    private BidAskEventBinaryFormat() {
+    }
+
+    static String[] symbols(Map<String, ?> configs) {
+        var value = configs.get(SYMBOLS_CONFIG);
+        if (value == null) {
+            return new String[0];
+        }
+        List<String> symbols = value instanceof List<?> list
+                ? list.stream().map(String::valueOf).toList()
+                : Arrays.stream(String.valueOf(value).split(",")).toList();
+        var trimmed = symbols.stream().map(String::trim).filter(s -> !s.isEmpty()).toArray(String[]::new);
+        if (trimmed.length > Short.MAX_VALUE) {
+            throw new SerializationException("Symbol dictionary too large: " + trimmed.length);
+        }
+        return trimmed;
+    }
+
+    static Map<String, Short> ids(String[] symbols) {
+        var ids = new HashMap<String, Short>();
+        for (short i = 0; i < symbols.length; i++) {
+            ids.put(symbols[i], i);
+        }
+        return ids;
+    }
+}
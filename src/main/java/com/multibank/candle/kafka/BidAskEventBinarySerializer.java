@@ -0,0 +1,53 @@
+package com.multibank.candle.kafka;
+
+import com.multibank.candle.domain.BidAskEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static com.multibank.candle.kafka.BidAskEventBinaryFormat.*;
+
+/**
+ * Writes {@link BidAskEvent} in the {@link BidAskEventBinaryFormat} layout.
+ */
+public class BidAskEventBinarySerializer implements Serializer<BidAskEvent> {
+
+    private Map<String, Short> ids = Map.of();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        ids = BidAskEventBinaryFormat.ids(BidAskEventBinaryFormat.symbols(configs));
+    }
+
+    @Override
+    public byte[] serialize(String topic, BidAskEvent event) {
+        if (event == null) {
+            return null;
+        }
+
+        var id = ids.get(event.symbol());
+        byte[] inline = null;
+        var size = FIXED_SIZE;
+        if (id == null) {
+            inline = event.symbol().getBytes(StandardCharsets.UTF_8);
+            if (inline.length > 255) {
+                throw new SerializationException("Symbol too long: " + event.symbol());
+            }
+            size += 1 + inline.length;
+        }
+
+        var data = new byte[size];
+        data[0] = VERSION;
+        SHORT.set(data, 1, id == null ? INLINE_SYMBOL : id);
+        DOUBLE.set(data, 3, event.bid());
+        DOUBLE.set(data, 11, event.ask());
+        LONG.set(data, 19, event.timestamp());
+        if (inline != null) {
+            data[FIXED_SIZE] = (byte) inline.length;
+            System.arraycopy(inline, 0, data, FIXED_SIZE + 1, inline.length);
+        }
+        return data;
+    }
+}
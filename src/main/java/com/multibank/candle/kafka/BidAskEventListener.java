@@ -1,29 +1,97 @@
 package com.multibank.candle.kafka;
 
 import com.multibank.candle.config.CandleConfigProperties;
-import com.multibank.candle.config.TimeFrameConfig;
+import com.multibank.candle.config.KafkaConfig;
 import com.multibank.candle.domain.BidAskEvent;
+import com.multibank.candle.service.CandleAggregationEngine;
 import com.multibank.candle.service.CandleAggregationOperation;
+import com.multibank.candle.service.CatchUpMonitor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BidAskEventListener {
 
+    private static final Acknowledgment NO_ACK = () -> {
+    };
+
     private final CandleAggregationOperation candleAggregationOperation;
+    private final CandleAggregationEngine candleAggregationEngine;
+    private final CatchUpMonitor catchUpMonitor;
     private final CandleConfigProperties properties;
 
-    @KafkaListener(topics = "bid-ask-events", groupId = "candle-aggregator")
-    public void onMessage(BidAskEvent event, Acknowledgment ack) {
-        log.debug("BidAskEvent from Kafka: {}", event);
-        for (TimeFrameConfig tf : properties.getTimeframes()) {
-            candleAggregationOperation.createOrUpdateCandle(event, tf);
+    @KafkaListener(id = KafkaConfig.AGGREGATOR_LISTENER_ID, topics = "bid-ask-events", groupId = "candle-aggregator",
+            batch = "true")
+    public void onMessage(
+            List<BidAskEvent> events,
+            @Header(KafkaHeaders.RECEIVED_PARTITION) List<Integer> partitions,
+            @Header(KafkaHeaders.OFFSET) List<Long> offsets,
+            Acknowledgment ack,
+            Consumer<?, ?> consumer
+    ) {
+        log.debug("BidAskEvent batch from Kafka: size={}", events.size());
+        catchUpMonitor.onBatch(consumer, events.size());
+        if (events.contains(null)) {
+            events = new ArrayList<>(events);
+            partitions = new ArrayList<>(partitions);
+            offsets = new ArrayList<>(offsets);
+            skipUndecodable(events, partitions, offsets);
+        }
+        if (properties.getEngine().isEnabled()) {
+            candleAggregationEngine.apply(events, partitions, offsets);
+            candleAggregationEngine.acknowledgeOnFlush(ack);
+            return;
         }
+        candleAggregationOperation.createOrUpdateCandles(events);
         ack.acknowledge();
     }
-}
\ No newline at end of file
+
+    /**
+     * Drops the records the {@code ErrorHandlingDeserializer} could not decode, which it hands over as nulls.
+     */
+    private static void skipUndecodable(List<BidAskEvent> events, List<Integer> partitions, List<Long> offsets) {
+        for (int i = events.size() - 1; i >= 0; i--) {
+            if (events.get(i) == null) {
+                log.warn("Skipping undecodable bid/ask record at partition {} offset {}", partitions.get(i), offsets.get(i));
+                events.remove(i);
+                partitions.remove(i);
+                offsets.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Takes a batch replayed from a tick tape down the same path as consumed batches. Replayed ticks
+     * have no offsets, so they are neither deduplicated nor checkpointed.
+     */
+    public void onReplay(List<BidAskEvent> events) {
+        log.debug("BidAskEvent batch from tape: size={}", events.size());
+        if (properties.getEngine().isEnabled()) {
+            candleAggregationEngine.apply(events);
+            candleAggregationEngine.acknowledgeOnFlush(NO_ACK);
+            return;
+        }
+        candleAggregationOperation.createOrUpdateCandles(events);
+    }
+
+    /**
+     * Writes what the replay left in the engine; in partition-affine mode it must run on the replaying thread.
+     */
+    public void onReplayEnd() {
+        if (properties.getEngine().isEnabled()) {
+            candleAggregationEngine.flushOwned();
+            candleAggregationEngine.flush();
+        }
+    }
+}
@@ -2,21 +2,92 @@ package com.multibank.candle.kafka;
 
 
 import com.multibank.candle.domain.BidAskEvent;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes bid/ask events without waiting for the broker, with at most
+ * {@code app.kafka.producer.max-in-flight} records not yet acknowledged.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class BidAskProducer {
 
     private final KafkaTemplate<String, BidAskEvent> kafkaTemplate;
+    private final String topic;
+    private final Semaphore inFlight;
+
+    private final Timer sendLatency;
+    private final Counter errors;
+    private final Counter saturated;
 
-    @Value("${app.kafka.bid-ask-topic}")
-    private String topic;
+    public BidAskProducer(KafkaTemplate<String, BidAskEvent> kafkaTemplate,
+                          @Value("${app.kafka.bid-ask-topic}") String topic,
+                          @Value("${app.kafka.producer.max-in-flight:10000}") int maxInFlight,
+                          MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.topic = topic;
+        this.inFlight = new Semaphore(maxInFlight);
+
+        Gauge.builder("candle.producer.inflight", inFlight, s -> maxInFlight - s.availablePermits())
+                .description("Records sent and not yet acknowledged by the broker")
+                .register(meterRegistry);
+        this.sendLatency = Timer.builder("candle.producer.send")
+                .description("Time from send to broker acknowledgment")
+                .register(meterRegistry);
+        this.errors = Counter.builder("candle.producer.errors")
+                .description("Records the broker did not accept")
+                .register(meterRegistry);
+        this.saturated = Counter.builder("candle.producer.saturated")
+                .description("Sends refused because too many records were in flight")
+                .register(meterRegistry);
+    }
 
     public void send(BidAskEvent event) {
-        kafkaTemplate.send(topic, event.symbol(), event);
+        if (!inFlight.tryAcquire()) {
+            saturated.increment();
+            inFlight.acquireUninterruptibly();
+        }
+        doSend(event);
+    }
+
+    /**
+     * Returns false instead of waiting when the pipeline is saturated.
+     */
+    public boolean trySend(BidAskEvent event) {
+        if (!inFlight.tryAcquire()) {
+            saturated.increment();
+            return false;
+        }
+        doSend(event);
+        return true;
+    }
+
+    private void doSend(BidAskEvent event) {
+        var started = System.nanoTime();
+        try {
+            kafkaTemplate.send(topic, event.symbol(), event).whenComplete((result, ex) -> {
+                inFlight.release();
+                sendLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                if (ex != null) {
+                    errors.increment();
+                    log.warn("Failed to send tick for symbol={}", event.symbol(), ex);
+                }
+            });
+        } catch (RuntimeException ex) {
+            // send fails synchronously when metadata or buffer space is not available within max.block.ms
+            inFlight.release();
+            errors.increment();
+            throw ex;
+        }
     }
-}
\ No newline at end of file
+}
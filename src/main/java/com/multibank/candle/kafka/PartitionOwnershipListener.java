@@ -0,0 +1,70 @@
+package com.multibank.candle.kafka;
+
+import com.multibank.candle.domain.AggregationCheckpoint;
+import com.multibank.candle.service.CandleAggregationEngine;
+import com.multibank.candle.service.CatchUpMonitor;
+import com.multibank.candle.service.RecentCandleBuffer;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands partition ownership changes and idle periods over to the aggregation engine, on the consumer
+ * thread that owns the partitions.
+ */
+@Component
+@RequiredArgsConstructor
+public class PartitionOwnershipListener implements ConsumerAwareRebalanceListener {
+
+    private final CandleAggregationEngine candleAggregationEngine;
+    private final RecentCandleBuffer recentCandles;
+    private final CatchUpMonitor catchUpMonitor;
+
+    /**
+     * Revoked partitions may be written by another consumer from now on, which the recent candles would not see.
+     */
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        candleAggregationEngine.onPartitionsRevoked(partitionNumbers(partitions));
+        catchUpMonitor.onPartitionsRevoked(partitions);
+        if (!partitions.isEmpty()) {
+            recentCandles.clear();
+        }
+    }
+
+    /**
+     * Seeks past the ticks covered by a checkpoint ahead of the committed offset.
+     */
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        var groupId = consumer.groupMetadata().groupId();
+        var byTopic = new HashMap<String, Map<Integer, TopicPartition>>();
+        partitions.forEach(tp -> byTopic.computeIfAbsent(tp.topic(), t -> new HashMap<>()).put(tp.partition(), tp));
+        byTopic.forEach((topic, byNumber) -> candleAggregationEngine.onPartitionsAssigned(
+                        new AggregationCheckpoint.Source(groupId, topic), byNumber.keySet(),
+                        p -> consumer.position(byNumber.get(p)),
+                        p -> consumer.endOffsets(List.of(byNumber.get(p))).get(byNumber.get(p)))
+                .forEach((partition, offset) -> consumer.seek(byNumber.get(partition), offset)));
+    }
+
+    /**
+     * Quiet partitions still get persisted and acknowledged within the flush interval.
+     */
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        candleAggregationEngine.flushOwned();
+    }
+
+    private static Collection<Integer> partitionNumbers(Collection<TopicPartition> partitions) {
+        return partitions.stream().map(TopicPartition::partition).toList();
+    }
+}
@@ -0,0 +1,53 @@
+package com.multibank.candle.kafka;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.domain.BidAskEvent;
+import com.multibank.candle.tape.TickTapeWriter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Records the live topic to {@code candle.tape.record-file} in its own consumer group, so the
+ * aggregator's offsets are untouched. Capture times are taken when each batch arrives.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "candle.tape.record-file")
+public class TickTapeRecorder {
+
+    private final TickTapeWriter writer;
+    private long firstNanos;
+
+    public TickTapeRecorder(CandleConfigProperties properties) throws IOException {
+        var file = Path.of(properties.getTape().getRecordFile());
+        this.writer = new TickTapeWriter(file);
+        log.info("Recording bid/ask ticks to {}", file);
+    }
+
+    @KafkaListener(topics = "bid-ask-events", groupId = "candle-tape-recorder", batch = "true",
+            containerFactory = "tickTapeContainerFactory")
+    public synchronized void onMessage(List<BidAskEvent> events) throws IOException {
+        long now = System.nanoTime();
+        if (writer.count() == 0) {
+            firstNanos = now;
+        }
+        for (BidAskEvent event : events) {
+            if (event != null) {
+                writer.write(event, now - firstNanos);
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        writer.close();
+        log.info("Recorded {} ticks", writer.count());
+    }
+}
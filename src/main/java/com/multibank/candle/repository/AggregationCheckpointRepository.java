@@ -0,0 +1,52 @@
+package com.multibank.candle.repository;
+
+import com.multibank.candle.domain.AggregationCheckpoint;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Latest {@link AggregationCheckpoint} of every (group, topic, partition), overwritten in the transaction
+ * that persists the candles it covers.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AggregationCheckpointRepository {
+
+    private static final String UPSERT = """
+            INSERT INTO aggregation_checkpoints (group_id, topic, partition_id, next_offset, state, updated_at)
+            VALUES (?, ?, ?, ?, ?, now())
+            ON CONFLICT (group_id, topic, partition_id) DO UPDATE SET
+                next_offset = EXCLUDED.next_offset,
+                state = EXCLUDED.state,
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    private static final String SELECT = """
+            SELECT next_offset, state FROM aggregation_checkpoints
+            WHERE group_id = ? AND topic = ? AND partition_id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void saveAll(Collection<AggregationCheckpoint> checkpoints) {
+        jdbcTemplate.batchUpdate(UPSERT, new ArrayList<>(checkpoints), checkpoints.size(), (ps, checkpoint) -> {
+            ps.setString(1, checkpoint.source().groupId());
+            ps.setString(2, checkpoint.source().topic());
+            ps.setInt(3, checkpoint.partition());
+            ps.setLong(4, checkpoint.nextOffset());
+            ps.setBytes(5, checkpoint.state());
+        });
+    }
+
+    public Optional<AggregationCheckpoint> find(AggregationCheckpoint.Source source, int partition) {
+        return jdbcTemplate.query(SELECT,
+                (rs, rowNum) -> new AggregationCheckpoint(source, partition, rs.getLong("next_offset"), rs.getBytes("state")),
+                source.groupId(), source.topic(), partition
+        ).stream().findFirst();
+    }
+}
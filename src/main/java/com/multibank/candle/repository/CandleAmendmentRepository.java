@@ -0,0 +1,33 @@
+package com.multibank.candle.repository;
+
+import com.multibank.candle.domain.CandleAmendment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Append-only log of ticks that arrived for already sealed candles.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CandleAmendmentRepository {
+
+    private static final String INSERT = """
+            INSERT INTO candle_amendments (symbol_id, timeframe_id, time, price, event_time)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void saveAll(List<CandleAmendment> amendments) {
+        jdbcTemplate.batchUpdate(INSERT, amendments, amendments.size(), (ps, amendment) -> {
+            ps.setInt(1, amendment.id().getSymbolId());
+            ps.setShort(2, amendment.id().getTimeframeId());
+            ps.setLong(3, amendment.id().getTime());
+            ps.setDouble(4, amendment.price());
+            ps.setLong(5, amendment.timestamp());
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package com.multibank.candle.repository;
+
+import com.multibank.candle.domain.CandleDelta;
+
+import java.nio.ByteBuffer;
+
+/**
+ * PostgreSQL binary {@code COPY} encoding of candle rows, in the column order of
+ * {@link CopyCandleBulkLoader#COPY}. Every row has the same size, so buffers can be flushed
+ * by checking {@link #ROW_BYTES} only.
+ */
+final class CandleCopyEncoder {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final short COLUMNS = 10;
+
+    static final int HEADER_BYTES = SIGNATURE.length + 4 + 4;
+    static final int TRAILER_BYTES = 2;
+    // field count, then a length prefix and the value of every column
+    static final int ROW_BYTES = 2 + COLUMNS * 4 + 4 + 2 + 8 + 4 * 8 + 8 + 2 * 8;
+
+    private CandleCopyEncoder() {
+    }
+
+    static void header(ByteBuffer buffer) {
+        buffer.put(SIGNATURE);
+        buffer.putInt(0); // flags
+        buffer.putInt(0); // header extension length
+    }
+
+    static void row(ByteBuffer buffer, CandleDelta delta) {
+        var candle = delta.candle();
+        buffer.putShort(COLUMNS);
+        buffer.putInt(4).putInt(delta.id().getSymbolId());
+        buffer.putInt(2).putShort(delta.id().getTimeframeId());
+        buffer.putInt(8).putLong(delta.id().getTime());
+        buffer.putInt(8).putDouble(candle.open());
+        buffer.putInt(8).putDouble(candle.high());
+        buffer.putInt(8).putDouble(candle.low());
+        buffer.putInt(8).putDouble(candle.close());
+        buffer.putInt(8).putLong(candle.volume());
+        buffer.putInt(8).putLong(delta.openTime());
+        buffer.putInt(8).putLong(delta.closeTime());
+    }
+
+    static void trailer(ByteBuffer buffer) {
+        buffer.putShort((short) -1);
+    }
+}
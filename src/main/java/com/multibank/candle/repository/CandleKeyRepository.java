@@ -0,0 +1,24 @@
+package com.multibank.candle.repository;
+
+import java.util.Map;
+
+/**
+ * Storage of the symbol and timeframe dictionaries behind the compact {@code candles} key.
+ * Ids are assigned once and never reused or renumbered.
+ */
+public interface CandleKeyRepository {
+
+    Map<String, Integer> findSymbols();
+
+    Map<String, Short> findTimeframes();
+
+    /**
+     * Returns the id of {@code symbol}, registering it first when it is not known yet.
+     */
+    int symbolId(String symbol);
+
+    /**
+     * Returns the id of the timeframe {@code code}, registering it first when it is not known yet.
+     */
+    short timeframeId(String code);
+}
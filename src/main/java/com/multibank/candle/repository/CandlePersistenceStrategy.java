@@ -0,0 +1,17 @@
+package com.multibank.candle.repository;
+
+import com.multibank.candle.domain.CandleDelta;
+
+import java.util.Collection;
+
+/**
+ * Write path used to merge candle deltas into the {@code candles} table.
+ * Selected with {@code candle.persistence.strategy} ({@code jpa} or {@code jdbc}).
+ */
+public interface CandlePersistenceStrategy {
+
+    /**
+     * Merges the deltas into the stored candles. Expects at most one delta per candle.
+     */
+    void merge(Collection<CandleDelta> deltas);
+}
@@ -9,9 +9,9 @@ import java.util.Optional;
 
 public interface CandleRepository extends JpaRepository<CandleEntity, CandleId> {
 
-    List<CandleEntity> findByCandleIdSymbolAndCandleIdTimeframeAndCandleIdTimeBetweenOrderByCandleIdTimeAsc(
-            String symbol,
-            String timeframe,
+    List<CandleEntity> findByCandleIdSymbolIdAndCandleIdTimeframeIdAndCandleIdTimeBetweenOrderByCandleIdTimeAsc(
+            int symbolId,
+            short timeframeId,
             long from,
             long to
     );
@@ -0,0 +1,150 @@
+package com.multibank.candle.repository;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.domain.BulkLoadMode;
+import com.multibank.candle.domain.CandleDelta;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Iterator;
+
+/**
+ * Bulk write path for backfills and rebuilds: candles are streamed with binary {@code COPY} into a
+ * temporary staging table and merged into {@code candles} every {@code candle.persistence.copy-chunk-rows}
+ * rows, each chunk in its own transaction. Rows of the same candle within a chunk are folded first, since
+ * {@code ON CONFLICT} can not touch a row twice in one statement; open and close follow the event times as
+ * in {@link JdbcUpsertCandlePersistenceStrategy}.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class CopyCandleBulkLoader {
+
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private static final String CREATE_STAGING = """
+            CREATE TEMPORARY TABLE IF NOT EXISTS candles_staging (
+                seq bigserial,
+                symbol_id int NOT NULL,
+                timeframe_id smallint NOT NULL,
+                time bigint NOT NULL,
+                open double precision NOT NULL,
+                high double precision NOT NULL,
+                low double precision NOT NULL,
+                close double precision NOT NULL,
+                volume bigint NOT NULL,
+                open_time bigint NOT NULL,
+                close_time bigint NOT NULL
+            ) ON COMMIT DELETE ROWS
+            """;
+
+    static final String COPY = """
+            COPY candles_staging (symbol_id, timeframe_id, time, open, high, low, close, volume, open_time, close_time)
+            FROM STDIN (FORMAT binary)
+            """;
+
+    private static final String MERGE = """
+            INSERT INTO candles (symbol_id, timeframe_id, time, open, high, low, close, volume, open_time, close_time, version)
+            SELECT symbol_id, timeframe_id, time,
+                   (array_agg(open ORDER BY open_time, seq))[1], max(high), min(low),
+                   (array_agg(close ORDER BY close_time DESC, seq DESC))[1], sum(volume),
+                   min(open_time), max(close_time), 0
+            FROM candles_staging
+            GROUP BY symbol_id, timeframe_id, time
+            ON CONFLICT (symbol_id, timeframe_id, time) DO UPDATE SET
+                open = CASE WHEN EXCLUDED.open_time < candles.open_time THEN EXCLUDED.open ELSE candles.open END,
+                high = GREATEST(candles.high, EXCLUDED.high),
+                low = LEAST(candles.low, EXCLUDED.low),
+                close = CASE WHEN EXCLUDED.close_time >= candles.close_time THEN EXCLUDED.close ELSE candles.close END,
+                volume = candles.volume + EXCLUDED.volume,
+                open_time = LEAST(candles.open_time, EXCLUDED.open_time),
+                close_time = GREATEST(candles.close_time, EXCLUDED.close_time),
+                version = candles.version + 1
+            """;
+
+    private static final String REPLACE = """
+            INSERT INTO candles (symbol_id, timeframe_id, time, open, high, low, close, volume, open_time, close_time, version)
+            SELECT DISTINCT ON (symbol_id, timeframe_id, time)
+                   symbol_id, timeframe_id, time, open, high, low, close, volume, open_time, close_time, 0
+            FROM candles_staging
+            ORDER BY symbol_id, timeframe_id, time, seq DESC
+            ON CONFLICT (symbol_id, timeframe_id, time) DO UPDATE SET
+                open = EXCLUDED.open,
+                high = EXCLUDED.high,
+                low = EXCLUDED.low,
+                close = EXCLUDED.close,
+                volume = EXCLUDED.volume,
+                open_time = EXCLUDED.open_time,
+                close_time = EXCLUDED.close_time,
+                version = candles.version + 1
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CandleConfigProperties properties;
+
+    public long load(Iterator<CandleDelta> candles, BulkLoadMode mode) {
+
+        var started = System.nanoTime();
+        long loaded = 0;
+        while (candles.hasNext()) {
+            Long rows = transactionTemplate.execute(status ->
+                    jdbcTemplate.execute((ConnectionCallback<Long>) con -> loadChunk(con, candles, mode)));
+            loaded += rows == null ? 0 : rows;
+            log.info("Bulk loaded {} candles so far", loaded);
+        }
+        var elapsed = Duration.ofNanos(System.nanoTime() - started);
+        log.info("Bulk loaded {} candles in {} ({} rows/s)", loaded, elapsed,
+                loaded * 1_000_000_000L / Math.max(1, elapsed.toNanos()));
+        return loaded;
+    }
+
+    private long loadChunk(Connection con, Iterator<CandleDelta> candles, BulkLoadMode mode) throws SQLException {
+
+        try (var statement = con.createStatement()) {
+            statement.execute(CREATE_STAGING);
+        }
+
+        var copyIn = con.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY);
+        var chunkRows = properties.getPersistence().getCopyChunkRows();
+        var buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        long rows = 0;
+        try {
+            CandleCopyEncoder.header(buffer);
+            while (rows < chunkRows && candles.hasNext()) {
+                if (buffer.remaining() < CandleCopyEncoder.ROW_BYTES + CandleCopyEncoder.TRAILER_BYTES) {
+                    write(copyIn, buffer);
+                }
+                CandleCopyEncoder.row(buffer, candles.next());
+                rows++;
+            }
+            CandleCopyEncoder.trailer(buffer);
+            write(copyIn, buffer);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+
+        try (var statement = con.createStatement()) {
+            statement.executeUpdate(mode == BulkLoadMode.REPLACE ? REPLACE : MERGE);
+        }
+        return rows;
+    }
+
+    private static void write(CopyIn copyIn, ByteBuffer buffer) throws SQLException {
+        copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+}
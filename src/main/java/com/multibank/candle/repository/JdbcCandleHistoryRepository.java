@@ -0,0 +1,84 @@
+package com.multibank.candle.repository;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.domain.Candle;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * History reads mapped straight from the rows into {@link Candle} records, bypassing entities and the
+ * persistence context. {@link #stream} reads through a cursor: rows are fetched
+ * {@code candle.persistence.stream-fetch-size} at a time and handed to the sink one by one, so memory
+ * does not grow with the range. PostgreSQL only uses a cursor inside a transaction, callers must run in one.
+ * {@link #findAll} reads the same range of many symbols in one query.
+ */
+@Repository
+@RequiredArgsConstructor
+public class JdbcCandleHistoryRepository {
+
+    private static final String SELECT_RANGE = """
+            SELECT time, open, high, low, close, volume
+            FROM candles
+            WHERE symbol_id = ? AND timeframe_id = ? AND time BETWEEN ? AND ?
+            ORDER BY time
+            """;
+
+    private static final String SELECT_SYMBOLS_RANGE = """
+            SELECT symbol_id, time, open, high, low, close, volume
+            FROM candles
+            WHERE symbol_id = ANY(?) AND timeframe_id = ? AND time BETWEEN ? AND ?
+            ORDER BY symbol_id, time
+            """;
+
+    private static final RowMapper<Candle> CANDLE = (rs, rowNum) -> new Candle(
+            rs.getLong(1), rs.getDouble(2), rs.getDouble(3), rs.getDouble(4), rs.getDouble(5), rs.getLong(6));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CandleConfigProperties properties;
+
+    public List<Candle> find(int symbolId, short timeframeId, long from, long to) {
+        return jdbcTemplate.query(SELECT_RANGE, CANDLE, symbolId, timeframeId, from, to);
+    }
+
+    /**
+     * Candles of the range for each of the symbols, by symbol id in time order; symbols without
+     * candles are left out.
+     */
+    public Map<Integer, List<Candle>> findAll(Collection<Integer> symbolIds, short timeframeId, long from, long to) {
+        var bySymbol = new HashMap<Integer, List<Candle>>();
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(SELECT_SYMBOLS_RANGE);
+            ps.setArray(1, con.createArrayOf("integer", symbolIds.toArray()));
+            ps.setShort(2, timeframeId);
+            ps.setLong(3, from);
+            ps.setLong(4, to);
+            return ps;
+        }, (RowCallbackHandler) rs -> bySymbol.computeIfAbsent(rs.getInt(1), id -> new ArrayList<>()).add(new Candle(
+                rs.getLong(2), rs.getDouble(3), rs.getDouble(4), rs.getDouble(5), rs.getDouble(6), rs.getLong(7))));
+        return bySymbol;
+    }
+
+    public void stream(int symbolId, short timeframeId, long from, long to, Consumer<Candle> sink) {
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(SELECT_RANGE);
+            ps.setFetchSize(properties.getPersistence().getStreamFetchSize());
+            ps.setInt(1, symbolId);
+            ps.setShort(2, timeframeId);
+            ps.setLong(3, from);
+            ps.setLong(4, to);
+            return ps;
+        }, rs -> {
+            sink.accept(CANDLE.mapRow(rs, 0));
+        });
+    }
+}
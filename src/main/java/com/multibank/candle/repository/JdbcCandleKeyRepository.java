@@ -0,0 +1,54 @@
+package com.multibank.candle.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registers keys with {@code INSERT ... ON CONFLICT DO NOTHING} followed by a select, so instances
+ * registering the same key concurrently all end up with the id that won. Registration commits on its
+ * own so an id handed out is never rolled back together with the candles of the calling transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class JdbcCandleKeyRepository implements CandleKeyRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Map<String, Integer> findSymbols() {
+        var symbols = new HashMap<String, Integer>();
+        jdbcTemplate.query("SELECT id, code FROM symbols", rs -> {
+            symbols.put(rs.getString("code"), rs.getInt("id"));
+        });
+        return symbols;
+    }
+
+    @Override
+    public Map<String, Short> findTimeframes() {
+        var timeframes = new HashMap<String, Short>();
+        jdbcTemplate.query("SELECT id, code FROM timeframes", rs -> {
+            timeframes.put(rs.getString("code"), rs.getShort("id"));
+        });
+        return timeframes;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int symbolId(String symbol) {
+        jdbcTemplate.update("INSERT INTO symbols (code) VALUES (?) ON CONFLICT (code) DO NOTHING", symbol);
+        return jdbcTemplate.queryForObject("SELECT id FROM symbols WHERE code = ?", Integer.class, symbol);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public short timeframeId(String code) {
+        jdbcTemplate.update("INSERT INTO timeframes (code) VALUES (?) ON CONFLICT (code) DO NOTHING", code);
+        return jdbcTemplate.queryForObject("SELECT id FROM timeframes WHERE code = ?", Short.class, code);
+    }
+}
@@ -0,0 +1,85 @@
+package com.multibank.candle.repository;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.domain.CandleDelta;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Set-based write path: deltas are merged with multi-row
+ * {@code INSERT ... ON CONFLICT DO UPDATE} statements, so concurrent writers never
+ * collide on the {@code version} column and no retries are needed.
+ * <p>
+ * High/low are widened with GREATEST/LEAST and volumes are added. The open and close follow the event
+ * times carried by the delta: the earliest open is kept and the close is replaced only by one at least
+ * as recent, so a late tick merged after newer ones does not move them.
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "candle.persistence.strategy", havingValue = "jdbc")
+public class JdbcUpsertCandlePersistenceStrategy implements CandlePersistenceStrategy {
+
+    private static final String INSERT = """
+            INSERT INTO candles (symbol_id, timeframe_id, time, open, high, low, close, volume, open_time, close_time, version)
+            VALUES %s
+            ON CONFLICT (symbol_id, timeframe_id, time) DO UPDATE SET
+                open = CASE WHEN EXCLUDED.open_time < candles.open_time THEN EXCLUDED.open ELSE candles.open END,
+                high = GREATEST(candles.high, EXCLUDED.high),
+                low = LEAST(candles.low, EXCLUDED.low),
+                close = CASE WHEN EXCLUDED.close_time >= candles.close_time THEN EXCLUDED.close ELSE candles.close END,
+                volume = candles.volume + EXCLUDED.volume,
+                open_time = LEAST(candles.open_time, EXCLUDED.open_time),
+                close_time = GREATEST(candles.close_time, EXCLUDED.close_time),
+                version = candles.version + 1
+            """;
+
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CandleConfigProperties properties;
+
+    @Override
+    public void merge(Collection<CandleDelta> deltas) {
+
+        var batchSize = properties.getPersistence().getBatchSize();
+        var chunk = new ArrayList<CandleDelta>(Math.min(batchSize, deltas.size()));
+        for (CandleDelta delta : deltas) {
+            chunk.add(delta);
+            if (chunk.size() == batchSize) {
+                upsert(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            upsert(chunk);
+        }
+    }
+
+    private void upsert(List<CandleDelta> chunk) {
+
+        var sql = INSERT.formatted(String.join(", ", Collections.nCopies(chunk.size(), ROW)));
+        jdbcTemplate.update(sql, ps -> {
+            int i = 1;
+            for (CandleDelta delta : chunk) {
+                var candle = delta.candle();
+                ps.setInt(i++, delta.id().getSymbolId());
+                ps.setShort(i++, delta.id().getTimeframeId());
+                ps.setLong(i++, delta.id().getTime());
+                ps.setDouble(i++, candle.open());
+                ps.setDouble(i++, candle.high());
+                ps.setDouble(i++, candle.low());
+                ps.setDouble(i++, candle.close());
+                ps.setLong(i++, candle.volume());
+                ps.setLong(i++, delta.openTime());
+                ps.setLong(i++, delta.closeTime());
+            }
+        });
+    }
+}
@@ -0,0 +1,44 @@
+package com.multibank.candle.repository;
+
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.repository.entity.CandleEntity;
+import com.multibank.candle.repository.entity.CandleId;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * Read-modify-write through {@link CandleRepository}: one select for all touched candles,
+ * then a save per candle guarded by the {@code @Version} column.
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "candle.persistence.strategy", havingValue = "jpa", matchIfMissing = true)
+public class JpaCandlePersistenceStrategy implements CandlePersistenceStrategy {
+
+    private final CandleRepository repository;
+
+    @Override
+    public void merge(Collection<CandleDelta> deltas) {
+
+        var ids = deltas.stream().map(CandleDelta::id).toList();
+        var stored = new HashMap<CandleId, CandleEntity>();
+        repository.findAllById(ids).forEach(e -> stored.put(e.getCandleId(), e));
+
+        var toSave = new ArrayList<CandleEntity>(deltas.size());
+        for (CandleDelta delta : deltas) {
+            var candleEntity = stored.get(delta.id());
+            if (candleEntity == null) {
+                candleEntity = delta.toEntity();
+            } else {
+                delta.applyTo(candleEntity);
+            }
+            toSave.add(candleEntity);
+        }
+        repository.saveAll(toSave);
+    }
+}
@@ -9,11 +9,7 @@ import lombok.NoArgsConstructor;
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "candles",
-        indexes = {
-                @Index(name = "idx_candles_symbol_tf_time", columnList = "symbol,timeframe,time")
-        }
-)
+@Table(name = "candles")
 public class CandleEntity {
 
     @EmbeddedId
@@ -38,6 +34,13 @@ public class CandleEntity {
     @Column(name = "volume", nullable = false)
     private long volume;
 
+    // event times of the ticks behind the open and the close
+    @Column(name = "open_time", nullable = false)
+    private long openTime;
+
+    @Column(name = "close_time", nullable = false)
+    private long closeTime;
+
     public CandleEntity(CandleId candleId, double open, double high, double low, double close, long volume) {
         this.candleId = candleId;
         this.open = open;
@@ -45,5 +48,7 @@ public class CandleEntity {
         this.low = low;
         this.close = close;
         this.volume = volume;
+        this.openTime = candleId.getTime();
+        this.closeTime = candleId.getTime();
     }
 }
\ No newline at end of file
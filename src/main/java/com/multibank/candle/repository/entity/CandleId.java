@@ -1,17 +1,25 @@
 package com.multibank.candle.repository.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Embeddable;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * Dictionary-encoded candle key, see {@link com.multibank.candle.service.CandleKeyRegistry}.
+ */
 @Data
 @Embeddable
 @NoArgsConstructor
 @AllArgsConstructor
 public class CandleId {
 
-    private String symbol;
-    private String timeframe;
-    private Long time;
-}
\ No newline at end of file
+    @Column(name = "symbol_id")
+    private int symbolId;
+
+    @Column(name = "timeframe_id")
+    private short timeframeId;
+
+    private long time;
+}
@@ -1,11 +1,11 @@
 package com.multibank.candle.scheduler;
 
 import com.multibank.candle.config.CandleConfigProperties;
-import com.multibank.candle.domain.BidAskEvent;
 import com.multibank.candle.kafka.BidAskProducer;
 import com.multibank.candle.service.PriceSimulator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -16,33 +16,27 @@ import java.time.Instant;
 @Component
 @Profile("!test")
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "candle.load-generator.enabled", havingValue = "false", matchIfMissing = true)
 public class BidAskGeneratorScheduler {
 
     private final BidAskProducer bidAskProducer;
     private final CandleConfigProperties properties;
+    private final PriceSimulator priceSimulator = new PriceSimulator();
 
 
     @Scheduled(fixedDelay = 1000)
     public void generateTicks() {
 
-        var priceSimulator = new PriceSimulator();
         long start = System.currentTimeMillis();
         long nowEpochSeconds = Instant.now().getEpochSecond();
 
         for (String symbol : properties.getSymbols().keySet()) {
 
-            double mid = priceSimulator.nextPrice(symbol, properties.getSymbols().get(symbol));
-
-            // little fixed spread
-            double spread = mid * 0.0005;
-            double bid = mid - spread / 2;
-            double ask = mid + spread / 2;
-
-            var event = new BidAskEvent(symbol, bid, ask, nowEpochSeconds);
+            var event = priceSimulator.nextTick(symbol, properties.getSymbols().get(symbol), nowEpochSeconds);
 
             bidAskProducer.send(event);
 
-            log.debug("Generated tick symbol={} mid={} bid={} ask={}", symbol, mid, bid, ask);
+            log.debug("Generated tick symbol={} bid={} ask={}", symbol, event.bid(), event.ask());
         }
 
         log.debug("completed in  " + (System.currentTimeMillis() - start) + " ms");
@@ -0,0 +1,147 @@
+package com.multibank.candle.scheduler;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.domain.BidAskEvent;
+import com.multibank.candle.kafka.BidAskProducer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.random.RandomGenerator;
+
+/**
+ * Synthetic high-rate feed used to size the aggregation pipeline, replacing
+ * {@link BidAskGeneratorScheduler} with {@code candle.load-generator.enabled}. Ticks follow a Zipf
+ * distribution over the symbols and the rate is multiplied by {@code burst-factor} during bursts.
+ */
+@Slf4j
+@Component
+@Profile("!test")
+@ConditionalOnProperty(name = "candle.load-generator.enabled", havingValue = "true")
+public class LoadGenerator {
+
+    private static final String SYMBOL_PREFIX = "LOAD-";
+    private static final double SPREAD = 0.0005;
+    private static final long SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final BidAskProducer bidAskProducer;
+    private final CandleConfigProperties.LoadGenerator config;
+    private final String[] symbols;
+    private final SymbolSampler sampler;
+    private final AtomicLongArray prices;
+
+    private final LongAdder sent = new LongAdder();
+    private final List<Thread> senders = new ArrayList<>();
+    private volatile boolean running;
+    private long startedNanos;
+    private long reportedSent;
+    private long reportedNanos;
+
+    public LoadGenerator(BidAskProducer bidAskProducer, CandleConfigProperties properties) {
+        this.bidAskProducer = bidAskProducer;
+        this.config = properties.getLoadGenerator();
+        this.symbols = new String[config.getSymbols()];
+        this.prices = new AtomicLongArray(config.getSymbols());
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = SYMBOL_PREFIX + "%05d".formatted(i);
+            prices.set(i, Double.doubleToRawLongBits(config.getInitialPrice()));
+        }
+        this.sampler = new SymbolSampler(config.getSymbols(), config.getSkew());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        log.info("Starting load generator: {} ticks/s over {} symbols (skew {}) on {} threads",
+                config.getTicksPerSecond(), config.getSymbols(), config.getSkew(), config.getThreads());
+        running = true;
+        startedNanos = System.nanoTime();
+        reportedNanos = startedNanos;
+        for (int i = 0; i < config.getThreads(); i++) {
+            senders.add(Thread.ofPlatform().name("load-generator-" + i).start(this::run));
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread sender : senders) {
+            sender.join();
+        }
+    }
+
+    @Scheduled(fixedDelay = 10_000)
+    public void reportRate() {
+        if (!running) {
+            return;
+        }
+        var now = System.nanoTime();
+        var total = sent.sum();
+        log.info("Load generator sent {} ticks/s", (total - reportedSent) * 1_000_000_000L / Math.max(1, now - reportedNanos));
+        reportedSent = total;
+        reportedNanos = now;
+    }
+
+    double rateAt(long elapsedNanos) {
+        var every = config.getBurstEvery().toNanos();
+        var inBurst = every > 0 && elapsedNanos % every < config.getBurstDuration().toNanos();
+        return inBurst ? config.getTicksPerSecond() * config.getBurstFactor() : config.getTicksPerSecond();
+    }
+
+    BidAskEvent nextTick(RandomGenerator random, long epochSecond) {
+        var index = sampler.sample(random);
+        var mid = step(index, random);
+        var spread = mid * SPREAD;
+        return new BidAskEvent(symbols[index], mid - spread / 2, mid + spread / 2, epochSecond);
+    }
+
+    /**
+     * Lock-free since hot symbols are hit by every thread.
+     */
+    private double step(int index, RandomGenerator random) {
+        while (true) {
+            var current = prices.get(index);
+            var last = Double.longBitsToDouble(current);
+            var next = Math.max(1.0, last + (random.nextDouble() * 2 - 1) * last * 0.001);
+            if (prices.compareAndSet(index, current, Double.doubleToRawLongBits(next))) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Credit is capped at one second so a stalled producer does not turn into an unbounded burst afterwards.
+     */
+    private void run() {
+        var random = ThreadLocalRandom.current();
+        var threads = config.getThreads();
+        var last = System.nanoTime();
+        var credit = 0.0;
+        while (running) {
+            var now = System.nanoTime();
+            var threadRate = rateAt(now - startedNanos) / threads;
+            credit = Math.min(credit + threadRate * (now - last) / 1e9, threadRate);
+            last = now;
+            var epochSecond = System.currentTimeMillis() / 1000;
+            while (credit >= 1 && running) {
+                if (!bidAskProducer.trySend(nextTick(random, epochSecond))) {
+                    break;
+                }
+                sent.increment();
+                credit--;
+            }
+            LockSupport.parkNanos(SLICE_NANOS);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.multibank.candle.scheduler;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Picks symbol indexes following a Zipf distribution: index {@code k} is drawn with a weight of
+ * {@code 1 / (k + 1)^skew}, so a skew of 0 is uniform and higher skews concentrate on the first symbols.
+ */
+final class SymbolSampler {
+
+    private final double[] cumulative;
+
+    SymbolSampler(int symbols, double skew) {
+        cumulative = new double[symbols];
+        var total = 0.0;
+        for (int k = 0; k < symbols; k++) {
+            total += 1.0 / Math.pow(k + 1, skew);
+            cumulative[k] = total;
+        }
+        for (int k = 0; k < symbols; k++) {
+            cumulative[k] /= total;
+        }
+    }
+
+    int sample(RandomGenerator random) {
+        var index = Arrays.binarySearch(cumulative, random.nextDouble());
+        // a miss returns -(first entry above the value) - 1, which is the drawn symbol
+        return Math.min(index >= 0 ? index + 1 : -index - 1, cumulative.length - 1);
+    }
+}
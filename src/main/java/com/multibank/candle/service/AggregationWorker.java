@@ -0,0 +1,451 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.config.TimeFrameConfig;
+import com.multibank.candle.domain.AggregationCheckpoint;
+import com.multibank.candle.domain.BidAskEvent;
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleAmendment;
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.domain.OpenCandle;
+import com.multibank.candle.repository.entity.CandleId;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Open candles of the symbols of one Kafka partition. A candle is sealed once the partition's watermark,
+ * the highest tick timestamp seen, has passed its end by the allowed lateness; later ticks for it become
+ * {@link CandleAmendment}s. Not thread-safe: callers hold the worker's monitor.
+ */
+@Slf4j
+class AggregationWorker {
+
+    private static final byte CHECKPOINT_FORMAT = 2;
+    private static final long NO_OFFSET = -1;
+
+    private final AggregationCheckpoint.Source source;
+    private final int partition;
+    private final List<TimeFrameConfig> timeframes;
+    private final short[] timeframeIds;
+    private final long[] sealOffsets;
+    private final boolean rollup;
+    private final int baseIndex;
+    private final CandleKeyRegistry keyRegistry;
+
+    private final List<Series> openCandles = new ArrayList<>();
+    // open candles indexed by symbol id, ids are dense dictionary positions
+    private Series[] bySymbolId = new Series[64];
+    private final List<CandleDelta> closedCandles = new ArrayList<>();
+    // drained and not yet written or queued, still overlaid on reads
+    private final List<CandleDelta> inFlight = new ArrayList<>();
+    private final List<CandleAmendment> amendments = new ArrayList<>();
+    private long watermark = Long.MIN_VALUE;
+    private long durableWatermark = Long.MIN_VALUE;
+    private long nextOffset = NO_OFFSET;
+    private long durableOffset = NO_OFFSET;
+
+    AggregationWorker(AggregationCheckpoint.Source source, int partition, List<TimeFrameConfig> timeframes,
+                      CandleConfigProperties.Engine engine, CandleKeyRegistry keyRegistry) {
+        this.source = source;
+        this.partition = partition;
+        this.timeframes = timeframes;
+        this.rollup = engine.isRollup();
+        this.baseIndex = rollup ? resolveBaseIndex(timeframes) : -1;
+        this.keyRegistry = keyRegistry;
+        this.timeframeIds = new short[timeframes.size()];
+        this.sealOffsets = new long[timeframes.size()];
+        // higher timeframes are fed from the base candle, so they can not seal before it does
+        var minLateness = rollup ? engine.allowedLateness(timeframes.get(baseIndex)).toSeconds() : 0;
+        for (int i = 0; i < timeframeIds.length; i++) {
+            var tf = timeframes.get(i);
+            timeframeIds[i] = keyRegistry.timeframeId(tf.getCode());
+            sealOffsets[i] = tf.getSeconds() + Math.max(minLateness, engine.allowedLateness(tf).toSeconds());
+        }
+    }
+
+    void apply(BidAskEvent event) {
+
+        if (event.timestamp() > watermark) {
+            watermark = event.timestamp();
+        }
+
+        var symbolId = keyRegistry.symbolId(event.symbol());
+        var series = series(symbolId);
+        if (series == null) {
+            series = new Series(event.symbol(), symbolId, timeframes.size());
+            add(series);
+        }
+
+        var mid = (event.bid() + event.ask()) / 2.0;
+        series.changes++;
+
+        if (rollup) {
+            if (!apply(series, baseIndex, event.timestamp(), mid)) {
+                // a late tick never reaches the open base candle, so every timeframe takes it directly
+                for (int i = 0; i < timeframeIds.length; i++) {
+                    if (i != baseIndex) {
+                        lateTick(series, i, event.timestamp(), mid);
+                    }
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < timeframeIds.length; i++) {
+            apply(series, i, event.timestamp(), mid);
+        }
+    }
+
+    /**
+     * Offsets of a partition are delivered in order, so the next offset is an exact high-water mark.
+     */
+    boolean isRedelivered(long offset) {
+        return offset < nextOffset;
+    }
+
+    void consumed(long offset) {
+        if (offset >= nextOffset) {
+            nextOffset = offset + 1;
+        }
+    }
+
+    long nextOffset() {
+        return nextOffset;
+    }
+
+    List<CandleDelta> drainPending() {
+
+        // rolling up can close higher timeframe candles, so it runs before they are collected
+        if (rollup) {
+            openCandles.forEach(this::rollUp);
+        }
+        var deltas = new ArrayList<>(closedCandles);
+        closedCandles.clear();
+
+        for (Series series : openCandles) {
+            for (int i = 0; i < timeframeIds.length; i++) {
+                var candle = series.candles[i];
+                if (candle.hasPending()) {
+                    deltas.add(pendingDelta(series, i, candle));
+                    candle.markFlushed();
+                }
+            }
+        }
+        inFlight.addAll(deltas);
+        return deltas;
+    }
+
+    /**
+     * Stops overlaying the oldest {@code count} drained deltas.
+     */
+    void release(int count) {
+        inFlight.subList(0, Math.min(count, inFlight.size())).clear();
+    }
+
+    void requeue(List<CandleDelta> deltas) {
+        release(deltas.size());
+        closedCandles.addAll(deltas);
+    }
+
+    List<CandleAmendment> drainAmendments() {
+        var drained = new ArrayList<>(amendments);
+        amendments.clear();
+        return drained;
+    }
+
+    void requeueAmendments(List<CandleAmendment> failed) {
+        amendments.addAll(0, failed);
+    }
+
+    long watermark() {
+        return watermark;
+    }
+
+    void markDurable(long drainedWatermark, long drainedOffset) {
+        if (drainedWatermark > durableWatermark) {
+            durableWatermark = drainedWatermark;
+        }
+        if (drainedOffset > durableOffset) {
+            durableOffset = drainedOffset;
+        }
+    }
+
+    /**
+     * Null when nothing was applied since the last durable checkpoint, or for a worker not created on
+     * assignment, which does not know its group and topic.
+     */
+    AggregationCheckpoint checkpoint() {
+        if (source == null || nextOffset == NO_OFFSET || nextOffset == durableOffset) {
+            return null;
+        }
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeByte(CHECKPOINT_FORMAT);
+            out.writeLong(watermark);
+            out.writeShort(timeframeIds.length);
+            for (short timeframeId : timeframeIds) {
+                out.writeShort(timeframeId);
+            }
+            out.writeInt(openCandles.size());
+            for (Series series : openCandles) {
+                out.writeUTF(series.symbol);
+                out.writeInt(series.symbolId);
+                for (OpenCandle candle : series.candles) {
+                    candle.writeTo(out);
+                }
+            }
+            // amendments recorded after the last amendment flush are not in the database yet
+            out.writeInt(amendments.size());
+            for (CandleAmendment amendment : amendments) {
+                out.writeInt(amendment.id().getSymbolId());
+                out.writeShort(amendment.id().getTimeframeId());
+                out.writeLong(amendment.id().getTime());
+                out.writeDouble(amendment.price());
+                out.writeLong(amendment.timestamp());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new AggregationCheckpoint(source, partition, nextOffset, bytes.toByteArray());
+    }
+
+    /**
+     * Returns false, leaving the worker empty but at the checkpointed offset, when the checkpoint was taken
+     * with different timeframes or in another format.
+     */
+    boolean restore(AggregationCheckpoint checkpoint) {
+        nextOffset = checkpoint.nextOffset();
+        durableOffset = checkpoint.nextOffset();
+        try (var in = new DataInputStream(new ByteArrayInputStream(checkpoint.state()))) {
+            if (in.readByte() != CHECKPOINT_FORMAT) {
+                return false;
+            }
+            var checkpointWatermark = in.readLong();
+            if (in.readShort() != timeframeIds.length) {
+                return false;
+            }
+            for (short timeframeId : timeframeIds) {
+                if (in.readShort() != timeframeId) {
+                    return false;
+                }
+            }
+            var seriesCount = in.readInt();
+            for (int s = 0; s < seriesCount; s++) {
+                var series = new Series(in.readUTF(), in.readInt(), timeframeIds.length);
+                for (OpenCandle candle : series.candles) {
+                    candle.readFrom(in);
+                }
+                add(series);
+            }
+            var amendmentCount = in.readInt();
+            for (int a = 0; a < amendmentCount; a++) {
+                var id = new CandleId(in.readInt(), in.readShort(), in.readLong());
+                amendments.add(new CandleAmendment(id, in.readDouble(), in.readLong()));
+            }
+            watermark = checkpointWatermark;
+            durableWatermark = checkpointWatermark;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long sealedUntil(int symbolId, TimeFrameConfig tf) {
+        var index = timeframes.indexOf(tf);
+        if (index < 0 || durableWatermark == Long.MIN_VALUE || series(symbolId) == null) {
+            return Long.MIN_VALUE;
+        }
+        // candles starting at or after this bound still end within the allowed lateness
+        return bucketStart(durableWatermark - sealOffsets[index] + tf.getSeconds(), tf.getSeconds());
+    }
+
+    long changes(int symbolId) {
+        var series = series(symbolId);
+        return series == null ? 0 : series.changes;
+    }
+
+    void collectPending(int symbolId, TimeFrameConfig tf, List<Candle> out) {
+
+        var index = timeframes.indexOf(tf);
+        if (index < 0) {
+            return;
+        }
+        var timeframeId = timeframeIds[index];
+        collect(inFlight, symbolId, timeframeId, out);
+        collect(closedCandles, symbolId, timeframeId, out);
+
+        var series = series(symbolId);
+        if (series == null) {
+            return;
+        }
+        if (rollup) {
+            rollUp(series);
+        }
+        var candle = series.candles[index];
+        if (candle.hasPending()) {
+            out.add(candle.pending());
+        }
+    }
+
+    private Series series(int symbolId) {
+        return symbolId < bySymbolId.length ? bySymbolId[symbolId] : null;
+    }
+
+    private void add(Series series) {
+        if (series.symbolId >= bySymbolId.length) {
+            bySymbolId = Arrays.copyOf(bySymbolId, Math.max(series.symbolId + 1, bySymbolId.length * 2));
+        }
+        bySymbolId[series.symbolId] = series;
+        openCandles.add(series);
+    }
+
+    private static void collect(List<CandleDelta> deltas, int symbolId, short timeframeId, List<Candle> out) {
+        for (CandleDelta delta : deltas) {
+            var id = delta.id();
+            if (id.getSymbolId() == symbolId && id.getTimeframeId() == timeframeId) {
+                out.add(delta.candle());
+            }
+        }
+    }
+
+    /**
+     * Returns false when the tick belongs to an already closed bucket.
+     */
+    private boolean apply(Series series, int index, long timestamp, double mid) {
+
+        var candleStart = bucketStart(timestamp, timeframes.get(index).getSeconds());
+        var candle = series.candles[index];
+
+        if (isSealed(index, candleStart)) {
+            amend(series, index, candleStart, timestamp, mid);
+            return false;
+        }
+        if (candle.isEmpty()) {
+            candle.reset(candleStart, mid, timestamp);
+        } else if (candleStart == candle.time()) {
+            candle.update(mid, timestamp);
+        } else if (candleStart > candle.time()) {
+            if (rollup) {
+                rollUp(series);
+            }
+            close(series, index, candle);
+            candle.reset(candleStart, mid, timestamp);
+        } else {
+            lateTick(series, index, timestamp, mid);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Configured timeframes are multiples of the base one, so a base bucket falls in one bucket of each.
+     */
+    private void rollUp(Series series) {
+
+        var source = series.candles[baseIndex];
+        if (!source.hasUnrolled()) {
+            return;
+        }
+
+        for (int i = 0; i < timeframeIds.length; i++) {
+            if (i == baseIndex) {
+                continue;
+            }
+            var candleStart = bucketStart(source.time(), timeframes.get(i).getSeconds());
+            var candle = series.candles[i];
+
+            if (candle.isEmpty()) {
+                candle.reset(candleStart, source);
+            } else if (candleStart == candle.time()) {
+                candle.merge(source);
+            } else if (candleStart > candle.time()) {
+                close(series, i, candle);
+                candle.reset(candleStart, source);
+            } else {
+                var rolled = new OpenCandle();
+                rolled.reset(candleStart, source);
+                closedCandles.add(pendingDelta(series, i, rolled));
+            }
+        }
+        source.markRolled();
+    }
+
+    private void lateTick(Series series, int index, long timestamp, double mid) {
+        var candleStart = bucketStart(timestamp, timeframes.get(index).getSeconds());
+        if (isSealed(index, candleStart)) {
+            amend(series, index, candleStart, timestamp, mid);
+            return;
+        }
+        // late event for an already closed bucket: merged straight into the stored candle
+        log.debug("Late tick for symbol={} tf={} time={}", series.symbol, timeframes.get(index).getCode(), candleStart);
+        closedCandles.add(CandleDelta.ofTick(new CandleId(series.symbolId, timeframeIds[index], candleStart), mid, timestamp));
+    }
+
+    private boolean isSealed(int index, long candleStart) {
+        return candleStart + sealOffsets[index] <= watermark;
+    }
+
+    private void amend(Series series, int index, long candleStart, long timestamp, double mid) {
+        log.debug("Tick for sealed candle symbol={} tf={} time={}", series.symbol, timeframes.get(index).getCode(), candleStart);
+        amendments.add(new CandleAmendment(new CandleId(series.symbolId, timeframeIds[index], candleStart), mid, timestamp));
+    }
+
+    private void close(Series series, int index, OpenCandle candle) {
+        if (candle.hasPending()) {
+            log.debug("Closing candle for symbol={} tf={} time={}", series.symbol, timeframes.get(index).getCode(), candle.time());
+            closedCandles.add(pendingDelta(series, index, candle));
+            candle.markFlushed();
+        }
+    }
+
+    private CandleDelta pendingDelta(Series series, int index, OpenCandle candle) {
+        return new CandleDelta(new CandleId(series.symbolId, timeframeIds[index], candle.time()), candle.pending(),
+                candle.openTime(), candle.closeTime());
+    }
+
+    static int resolveBaseIndex(List<TimeFrameConfig> timeframes) {
+        var base = 0;
+        for (int i = 1; i < timeframes.size(); i++) {
+            if (timeframes.get(i).getSeconds() < timeframes.get(base).getSeconds()) {
+                base = i;
+            }
+        }
+        var baseSeconds = timeframes.get(base).getSeconds();
+        for (TimeFrameConfig tf : timeframes) {
+            if (tf.getSeconds() % baseSeconds != 0) {
+                throw new IllegalStateException("Timeframe " + tf.getCode()
+                        + " is not a multiple of base timeframe " + timeframes.get(base).getCode());
+            }
+        }
+        return base;
+    }
+
+
+    private static long bucketStart(long ts, long tfSeconds) {
+        return (ts / tfSeconds) * tfSeconds;
+    }
+
+    private static final class Series {
+        private final String symbol;
+        private final int symbolId;
+        private final OpenCandle[] candles;
+        private long changes;
+
+        private Series(String symbol, int symbolId, int timeframes) {
+            this.symbol = symbol;
+            this.symbolId = symbolId;
+            this.candles = new OpenCandle[timeframes];
+            for (int i = 0; i < timeframes; i++) {
+                candles[i] = new OpenCandle();
+            }
+        }
+    }
+}
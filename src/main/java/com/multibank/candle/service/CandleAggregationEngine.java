@@ -0,0 +1,571 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.config.TimeFrameConfig;
+import com.multibank.candle.domain.AggregationCheckpoint;
+import com.multibank.candle.domain.BidAskEvent;
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleAmendment;
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.repository.AggregationCheckpointRepository;
+import com.multibank.candle.repository.CandleAmendmentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Keeps the open candle of every (symbol, timeframe) in memory, one {@link AggregationWorker} per Kafka
+ * partition, and writes candles when their bucket closes or every flush interval. Acknowledgments handed to
+ * {@link #acknowledgeOnFlush(Acknowledgment)} are only released once the ticks they cover are persisted.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CandleAggregationEngine {
+
+    static final int DEFAULT_PARTITION = 0;
+
+    private final CandleAggregationOperation candleAggregationOperation;
+    private final CandleKeyRegistry keyRegistry;
+    private final CandleWriteBehindQueue writeBehindQueue;
+    private final CandleAmendmentRepository amendmentRepository;
+    private final AggregationCheckpointRepository checkpointRepository;
+    private final CandleConfigProperties properties;
+
+    private final Map<Integer, AggregationWorker> workers = new ConcurrentHashMap<>();
+    private final Queue<Acknowledgment> pendingAcks = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<OwnedPartitions> owned = ThreadLocal.withInitial(OwnedPartitions::new);
+    // the scheduler and a revocation never flush the shared workers at once
+    private final ReentrantLock sharedFlushLock = new ReentrantLock();
+    private volatile Duration catchUpFlushInterval;
+    private volatile long lastFlushNanos = System.nanoTime();
+
+    @PostConstruct
+    void validateRollup() {
+        if (properties.getEngine().isRollup()) {
+            AggregationWorker.resolveBaseIndex(properties.getTimeframes());
+        }
+    }
+
+    public void apply(BidAskEvent event) {
+        var worker = worker(DEFAULT_PARTITION);
+        synchronized (worker) {
+            worker.apply(event);
+        }
+    }
+
+    public void apply(List<BidAskEvent> events) {
+        apply(events, null);
+    }
+
+    public void apply(List<BidAskEvent> events, List<Integer> partitions) {
+        apply(events, partitions, null);
+    }
+
+    /**
+     * Records at or below a partition's high-water mark were already applied and are dropped.
+     */
+    public void apply(List<BidAskEvent> events, List<Integer> partitions, List<Long> offsets) {
+        int i = 0;
+        int redelivered = 0;
+        while (i < events.size()) {
+            var partition = partitionOf(partitions, i);
+            var worker = worker(partition);
+            if (isPartitionAffine()) {
+                owned.get().partitions.add(partition);
+            }
+            synchronized (worker) {
+                do {
+                    if (offsets == null) {
+                        worker.apply(events.get(i));
+                    } else if (worker.isRedelivered(offsets.get(i))) {
+                        redelivered++;
+                    } else {
+                        worker.apply(events.get(i));
+                        worker.consumed(offsets.get(i));
+                    }
+                    i++;
+                } while (i < events.size() && partitionOf(partitions, i) == partition);
+            }
+        }
+        if (redelivered > 0) {
+            log.info("Dropped {} redelivered ticks", redelivered);
+        }
+    }
+
+    /**
+     * Defers the acknowledgment until every tick applied before this call has been flushed.
+     */
+    public void acknowledgeOnFlush(Acknowledgment ack) {
+        if (isPartitionAffine()) {
+            var partitions = owned.get();
+            partitions.acks.add(ack);
+            if (System.nanoTime() - partitions.lastFlushNanos >= flushInterval().toNanos()) {
+                flushOwned();
+            }
+            return;
+        }
+        pendingAcks.add(ack);
+    }
+
+    public void onCatchUp(boolean active) {
+        catchUpFlushInterval = active ? properties.getCatchUp().getFlushInterval() : null;
+    }
+
+    @Scheduled(fixedDelayString = "${candle.engine.flush-interval:1s}")
+    public void scheduledFlush() {
+        if (System.nanoTime() - lastFlushNanos >= flushInterval().toNanos()) {
+            flush();
+        }
+    }
+
+    @PreDestroy
+    public void flush() {
+        if (isPartitionAffine()) {
+            return;
+        }
+        flushShared(false);
+    }
+
+    /**
+     * With {@code awaitWrite} a write-behind flush is durable and acknowledged on return, as needed on revocation.
+     */
+    private void flushShared(boolean awaitWrite) {
+        sharedFlushLock.lock();
+        try {
+            lastFlushNanos = System.nanoTime();
+
+            // acks are captured before the candles so every captured ack is covered by this flush
+            var captured = pendingAcks.size();
+            if (!flushAmendments(workers.values())) {
+                return;
+            }
+            if (isWriteBehind()) {
+                var acks = new ArrayList<Acknowledgment>(captured);
+                for (int i = 0; i < captured; i++) {
+                    acks.add(pendingAcks.poll());
+                }
+                var marks = new HashMap<AggregationWorker, DrainMark>();
+                var checkpoints = new ArrayList<AggregationCheckpoint>();
+                var deltas = drain(workers.values(), marks, checkpoints);
+                // the queue overlays them from here on, released first so a read never counts them twice
+                release(marks);
+                var written = writeBehindQueue.enqueue(deltas, checkpoints);
+                if (awaitWrite) {
+                    written.join();
+                    markDurable(marks);
+                    acks.forEach(Acknowledgment::acknowledge);
+                } else {
+                    written.thenRun(() -> {
+                        markDurable(marks);
+                        acks.forEach(Acknowledgment::acknowledge);
+                    });
+                }
+                return;
+            }
+            if (!flush(workers.values())) {
+                return;
+            }
+            for (int i = 0; i < captured; i++) {
+                pendingAcks.poll().acknowledge();
+            }
+        } finally {
+            sharedFlushLock.unlock();
+        }
+    }
+
+    public void flushOwned() {
+        flushOwned(false);
+    }
+
+    /**
+     * With {@code awaitWrite} a write-behind flush is durable and acknowledged on return, as needed on revocation.
+     */
+    private void flushOwned(boolean awaitWrite) {
+        if (!isPartitionAffine()) {
+            return;
+        }
+        var partitions = owned.get();
+        var ownedWorkers = new ArrayList<AggregationWorker>();
+        for (Integer partition : partitions.partitions) {
+            var worker = workers.get(partition);
+            if (worker != null) {
+                ownedWorkers.add(worker);
+            }
+        }
+        var acks = new ArrayList<>(partitions.acks);
+        if (!flushAmendments(ownedWorkers)) {
+            return;
+        }
+        if (isWriteBehind()) {
+            var marks = new HashMap<AggregationWorker, DrainMark>();
+            var checkpoints = new ArrayList<AggregationCheckpoint>();
+            var deltas = drain(ownedWorkers, marks, checkpoints);
+            release(marks);
+            var written = writeBehindQueue.enqueue(deltas, checkpoints);
+            if (awaitWrite) {
+                written.join();
+                markDurable(marks);
+                acks.forEach(Acknowledgment::acknowledge);
+            } else {
+                written.thenRun(() -> {
+                    markDurable(marks);
+                    acks.forEach(Acknowledgment::acknowledge);
+                });
+            }
+        } else {
+            if (!flush(ownedWorkers)) {
+                return;
+            }
+            acks.forEach(Acknowledgment::acknowledge);
+        }
+        partitions.acks.clear();
+        partitions.lastFlushNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns the offsets the consumer has to seek to, for partitions whose checkpoint is ahead of its position.
+     */
+    public Map<Integer, Long> onPartitionsAssigned(AggregationCheckpoint.Source source, Collection<Integer> partitions,
+                                                   IntToLongFunction position, IntToLongFunction endOffset) {
+        var seeks = new HashMap<Integer, Long>();
+        if (!isPartitionAffine()) {
+            if (isCheckpointing()) {
+                partitions.forEach(p -> workers.computeIfAbsent(p,
+                        q -> restoredWorker(source, q, position, endOffset, seeks)));
+            }
+            return seeks;
+        }
+        var ownedPartitions = owned.get();
+        for (Integer partition : partitions) {
+            workers.put(partition, isCheckpointing()
+                    ? restoredWorker(source, partition, position, endOffset, seeks)
+                    : newWorker(partition));
+            ownedPartitions.partitions.add(partition);
+        }
+        log.info("Aggregation workers assigned for partitions {}", partitions);
+        return seeks;
+    }
+
+    /**
+     * Persists and acknowledges what was applied so far, then drops the workers of the revoked partitions.
+     * Without partition affinity the pending acknowledgments cover every partition, so all workers are flushed.
+     */
+    public void onPartitionsRevoked(Collection<Integer> partitions) {
+        if (isPartitionAffine()) {
+            flushOwned(true);
+        } else {
+            flushShared(true);
+        }
+        var ownedPartitions = owned.get();
+        for (Integer partition : partitions) {
+            var worker = workers.get(partition);
+            if (worker != null) {
+                workers.remove(partition, worker);
+            }
+            ownedPartitions.partitions.remove(partition);
+        }
+        log.info("Aggregation workers revoked for partitions {}", partitions);
+    }
+
+    public List<Candle> overlay(int symbolId, TimeFrameConfig tf, long from, long to, List<Candle> stored) {
+
+        var pending = pending(symbolId, tf, from, to);
+        if (pending.isEmpty()) {
+            return stored;
+        }
+        return mergeSorted(stored, pending);
+    }
+
+    /**
+     * Sorted by time; a bucket may appear more than once, its entries are to be merged in order.
+     */
+    public List<Candle> pending(int symbolId, TimeFrameConfig tf, long from, long to) {
+
+        var pending = new ArrayList<Candle>();
+        for (AggregationWorker worker : workers.values()) {
+            synchronized (worker) {
+                worker.collectPending(symbolId, tf, pending);
+            }
+        }
+        if (isWriteBehind()) {
+            writeBehindQueue.collectPending(symbolId, keyRegistry.timeframeId(tf.getCode()), pending);
+        }
+
+        pending.removeIf(c -> c.time() < from || c.time() > to);
+        pending.sort(Comparator.comparingLong(Candle::time));
+        return pending;
+    }
+
+    /**
+     * Start of the first candle of (symbol, timeframe) that is not sealed yet, {@link Long#MIN_VALUE} when unknown.
+     */
+    public long sealedUntil(int symbolId, TimeFrameConfig tf) {
+        var sealedUntil = Long.MAX_VALUE;
+        for (AggregationWorker worker : workers.values()) {
+            long workerSealedUntil;
+            synchronized (worker) {
+                workerSealedUntil = worker.sealedUntil(symbolId, tf);
+            }
+            if (workerSealedUntil != Long.MIN_VALUE) {
+                sealedUntil = Math.min(sealedUntil, workerSealedUntil);
+            }
+        }
+        return sealedUntil == Long.MAX_VALUE ? Long.MIN_VALUE : sealedUntil;
+    }
+
+    /**
+     * Changes whenever a tick of the symbol is applied.
+     */
+    public long changes(int symbolId) {
+        long changes = 0;
+        for (AggregationWorker worker : workers.values()) {
+            synchronized (worker) {
+                changes += worker.changes(symbolId);
+            }
+        }
+        return changes;
+    }
+
+    private boolean flushAmendments(Collection<AggregationWorker> toFlush) {
+
+        var drained = new ArrayList<Map.Entry<AggregationWorker, List<CandleAmendment>>>();
+        var amendments = new ArrayList<CandleAmendment>();
+        for (AggregationWorker worker : toFlush) {
+            synchronized (worker) {
+                var pending = worker.drainAmendments();
+                if (!pending.isEmpty()) {
+                    drained.add(Map.entry(worker, pending));
+                    amendments.addAll(pending);
+                }
+            }
+        }
+
+        if (amendments.isEmpty()) {
+            return true;
+        }
+        try {
+            amendmentRepository.saveAll(amendments);
+        } catch (RuntimeException ex) {
+            log.error("Failed to record {} amendments, retrying on next flush", amendments.size(), ex);
+            for (var entry : drained) {
+                synchronized (entry.getKey()) {
+                    entry.getKey().requeueAmendments(entry.getValue());
+                }
+            }
+            return false;
+        }
+        log.info("Recorded {} ticks for sealed candles as amendments", amendments.size());
+        return true;
+    }
+
+    private List<CandleDelta> drain(Collection<AggregationWorker> toDrain, Map<AggregationWorker, DrainMark> marks,
+                                    List<AggregationCheckpoint> checkpoints) {
+        var deltas = new ArrayList<CandleDelta>();
+        for (AggregationWorker worker : toDrain) {
+            synchronized (worker) {
+                var drained = worker.drainPending();
+                marks.put(worker, new DrainMark(worker.watermark(), worker.nextOffset(), drained.size()));
+                deltas.addAll(drained);
+                checkpoint(worker, checkpoints);
+            }
+        }
+        return deltas;
+    }
+
+    private void checkpoint(AggregationWorker worker, List<AggregationCheckpoint> checkpoints) {
+        if (isCheckpointing()) {
+            var checkpoint = worker.checkpoint();
+            if (checkpoint != null) {
+                checkpoints.add(checkpoint);
+            }
+        }
+    }
+
+    private void release(Map<AggregationWorker, DrainMark> marks) {
+        marks.forEach((worker, mark) -> {
+            synchronized (worker) {
+                worker.release(mark.drained());
+            }
+        });
+    }
+
+    private void markDurable(Map<AggregationWorker, DrainMark> marks) {
+        marks.forEach((worker, mark) -> {
+            synchronized (worker) {
+                worker.markDurable(mark.watermark(), mark.nextOffset());
+            }
+        });
+    }
+
+    private boolean flush(Collection<AggregationWorker> toFlush) {
+
+        var drained = new ArrayList<Map.Entry<AggregationWorker, List<CandleDelta>>>();
+        var deltas = new ArrayList<CandleDelta>();
+        var checkpoints = new ArrayList<AggregationCheckpoint>();
+        var marks = new HashMap<AggregationWorker, DrainMark>();
+        for (AggregationWorker worker : toFlush) {
+            synchronized (worker) {
+                var pending = worker.drainPending();
+                marks.put(worker, new DrainMark(worker.watermark(), worker.nextOffset(), pending.size()));
+                if (!pending.isEmpty()) {
+                    drained.add(Map.entry(worker, pending));
+                    deltas.addAll(pending);
+                }
+                checkpoint(worker, checkpoints);
+            }
+        }
+
+        if (deltas.isEmpty() && checkpoints.isEmpty()) {
+            markDurable(marks);
+            return true;
+        }
+        try {
+            candleAggregationOperation.mergeCandles(deltas, checkpoints, () -> release(marks));
+        } catch (RuntimeException ex) {
+            log.error("Failed to flush {} candles, retrying on next flush", deltas.size(), ex);
+            for (var entry : drained) {
+                synchronized (entry.getKey()) {
+                    entry.getKey().requeue(entry.getValue());
+                }
+            }
+            return false;
+        }
+        markDurable(marks);
+        log.debug("Flushed {} candles", deltas.size());
+        return true;
+    }
+
+    private static List<Candle> mergeSorted(List<Candle> stored, List<Candle> pending) {
+
+        var merged = new ArrayList<Candle>(stored.size() + pending.size());
+        int i = 0;
+        int j = 0;
+        while (i < stored.size() || j < pending.size()) {
+            if (j == pending.size()) {
+                merged.add(stored.get(i++));
+            } else if (i == stored.size() || pending.get(j).time() < stored.get(i).time()) {
+                var candle = pending.get(j++);
+                while (j < pending.size() && pending.get(j).time() == candle.time()) {
+                    candle = candle.merge(pending.get(j++));
+                }
+                merged.add(candle);
+            } else if (pending.get(j).time() == stored.get(i).time()) {
+                var candle = stored.get(i++);
+                while (j < pending.size() && pending.get(j).time() == candle.time()) {
+                    candle = candle.merge(pending.get(j++));
+                }
+                merged.add(candle);
+            } else {
+                merged.add(stored.get(i++));
+            }
+        }
+        return merged;
+    }
+
+    private AggregationWorker worker(int partition) {
+        var worker = workers.get(partition);
+        if (worker == null) {
+            worker = workers.computeIfAbsent(partition, this::newWorker);
+        }
+        return worker;
+    }
+
+    private AggregationWorker newWorker(int partition) {
+        return newWorker(null, partition);
+    }
+
+    private AggregationWorker newWorker(AggregationCheckpoint.Source source, int partition) {
+        return new AggregationWorker(source, partition, properties.getTimeframes(), properties.getEngine(), keyRegistry);
+    }
+
+    /**
+     * A checkpoint behind the consumer position may cover candles merged since, and one past the end of the
+     * partition belongs to a deleted topic of the same name; the worker starts empty for both.
+     */
+    private AggregationWorker restoredWorker(AggregationCheckpoint.Source source, int partition,
+                                             IntToLongFunction position, IntToLongFunction endOffset,
+                                             Map<Integer, Long> seeks) {
+        var worker = newWorker(source, partition);
+        var checkpoint = checkpointRepository.find(source, partition).orElse(null);
+        if (checkpoint == null) {
+            return worker;
+        }
+        var resumeAt = position.applyAsLong(partition);
+        if (checkpoint.nextOffset() < resumeAt) {
+            log.warn("Ignoring checkpoint of partition {} at offset {} behind committed offset {}",
+                    partition, checkpoint.nextOffset(), resumeAt);
+            return worker;
+        }
+        var end = endOffset.applyAsLong(partition);
+        if (checkpoint.nextOffset() > end) {
+            log.warn("Ignoring checkpoint of partition {} at offset {} past end offset {}",
+                    partition, checkpoint.nextOffset(), end);
+            return worker;
+        }
+        if (checkpoint.nextOffset() > resumeAt) {
+            seeks.put(partition, checkpoint.nextOffset());
+        }
+        try {
+            if (worker.restore(checkpoint)) {
+                log.info("Restored partition {} from checkpoint at offset {}", partition, checkpoint.nextOffset());
+            } else {
+                log.warn("Checkpoint of partition {} was taken with other timeframes or format, starting empty", partition);
+            }
+            return worker;
+        } catch (RuntimeException ex) {
+            log.warn("Unreadable checkpoint of partition {}, starting empty", partition, ex);
+            // the seek is kept, the candles before the checkpointed offset are in the database either way
+            return newWorker(source, partition);
+        }
+    }
+
+    private boolean isWriteBehind() {
+        return properties.getWriteBehind().isEnabled();
+    }
+
+    private Duration flushInterval() {
+        var interval = catchUpFlushInterval;
+        return interval != null ? interval : properties.getEngine().getFlushInterval();
+    }
+
+    private boolean isCheckpointing() {
+        return properties.getCheckpoint().isEnabled();
+    }
+
+    private boolean isPartitionAffine() {
+        return properties.getEngine().isPartitionAffine();
+    }
+
+    private static int partitionOf(List<Integer> partitions, int index) {
+        return partitions == null ? DEFAULT_PARTITION : partitions.get(index);
+    }
+
+    private record DrainMark(long watermark, long nextOffset, int drained) {
+    }
+
+    private static final class OwnedPartitions {
+        private final Set<Integer> partitions = new HashSet<>();
+        private final List<Acknowledgment> acks = new ArrayList<>();
+        private long lastFlushNanos = System.nanoTime();
+    }
+}
@@ -1,65 +1,98 @@
 package com.multibank.candle.service;
 
 import com.multibank.candle.config.CandleConfigProperties;
-import com.multibank.candle.config.TimeFrameConfig;
+import com.multibank.candle.domain.AggregationCheckpoint;
 import com.multibank.candle.domain.BidAskEvent;
-import com.multibank.candle.repository.entity.CandleEntity;
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.domain.OpenCandle;
+import com.multibank.candle.repository.AggregationCheckpointRepository;
 import com.multibank.candle.repository.entity.CandleId;
-import jakarta.persistence.OptimisticLockException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.OptimisticLockingFailureException;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CandleAggregationOperation {
 
     private final CandleService candleService;
+    private final CandleKeyRegistry keyRegistry;
+    private final AggregationCheckpointRepository checkpointRepository;
     private final CandleConfigProperties properties;
 
-    @Retryable(
-            retryFor = {OptimisticLockingFailureException.class, OptimisticLockException.class},
-            backoff = @Backoff(delay = 50, multiplier = 2)
-    )
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void createOrUpdateCandle(BidAskEvent event, TimeFrameConfig tf) {
+    /**
+     * Folds a batch of ticks into one delta per touched candle and merges them in a single transaction.
+     */
+    @Transactional
+    public void createOrUpdateCandles(List<BidAskEvent> events) {
+
+        var timeframes = properties.getTimeframes();
+        var timeframeIds = new short[timeframes.size()];
+        for (int i = 0; i < timeframeIds.length; i++) {
+            timeframeIds[i] = keyRegistry.timeframeId(timeframes.get(i).getCode());
+        }
 
-        var mid = (event.bid() + event.ask()) / 2.0;
-        var candleStart = bucketStart(event.timestamp(), tf.getSeconds());
-        var id = new CandleId(event.symbol(), tf.getCode(), candleStart);
-        var candle = candleService.findById(id);
-        if (candle.isEmpty()) {
-            var candleEntity = new CandleEntity(id, mid, mid, mid, mid, 1L);
-            log.debug("Creating new candle for symbol={} tf={} time={}", id.getSymbol(), id.getTimeframe(), id.getTime());
-            candleService.save(candleEntity);
-        } else {
-            var candleEntity = candle.get();
-            var volume = updateCandleEntity(candleEntity, mid);
-            log.debug("Updating candle for symbol={} tf={} time={} volume={}",
-                    id.getSymbol(), id.getTimeframe(), id.getTime(), volume);
-            candleService.save(candleEntity);
+        var folded = new LinkedHashMap<CandleId, OpenCandle>();
+        for (BidAskEvent event : events) {
+            var mid = (event.bid() + event.ask()) / 2.0;
+            var symbolId = keyRegistry.symbolId(event.symbol());
+            for (int i = 0; i < timeframeIds.length; i++) {
+                var candleStart = bucketStart(event.timestamp(), timeframes.get(i).getSeconds());
+                var id = new CandleId(symbolId, timeframeIds[i], candleStart);
+                var candle = folded.get(id);
+                if (candle == null) {
+                    candle = new OpenCandle();
+                    candle.reset(candleStart, mid, event.timestamp());
+                    folded.put(id, candle);
+                } else {
+                    candle.update(mid, event.timestamp());
+                }
+            }
         }
+
+        var deltas = new ArrayList<CandleDelta>(folded.size());
+        folded.forEach((id, candle) ->
+                deltas.add(new CandleDelta(id, candle.toCandle(), candle.openTime(), candle.closeTime())));
+        log.debug("Folded {} events into {} candle deltas", events.size(), deltas.size());
+        mergeCandles(deltas);
     }
 
-    private static long updateCandleEntity(CandleEntity candle, double mid) {
-        var open = candle.getOpen();
-        var high = Math.max(candle.getHigh(), mid);
-        var low = Math.min(candle.getLow(), mid);
-        var close = mid;
-        var volume = candle.getVolume() + 1;
+    /**
+     * Merges a set of candle deltas into the stored candles in a single transaction.
+     * Deltas for the same candle are coalesced first so each row is read and written once.
+     */
+    @Transactional
+    public void mergeCandles(Collection<CandleDelta> deltas) {
+        mergeCandles(deltas, List.of(), () -> {
+        });
+    }
 
-        candle.setOpen(open);
-        candle.setHigh(high);
-        candle.setLow(low);
-        candle.setClose(close);
-        candle.setVolume(volume);
-        return volume;
+    /**
+     * Merges the deltas and stores the checkpoints covering them in the same transaction, so a
+     * checkpoint is never ahead or behind of the candles in the database. {@code onCommit} runs once
+     * committed, right before the deltas reach the recent candles, to stop overlaying them.
+     */
+    @Transactional
+    public void mergeCandles(Collection<CandleDelta> deltas, Collection<AggregationCheckpoint> checkpoints,
+                             Runnable onCommit) {
+
+        var coalesced = new LinkedHashMap<CandleId, CandleDelta>();
+        for (CandleDelta delta : deltas) {
+            coalesced.merge(delta.id(), delta, CandleDelta::merge);
+        }
+
+        log.debug("Merging {} candles from {} deltas", coalesced.size(), deltas.size());
+        candleService.merge(coalesced.values(), onCommit);
+        if (!checkpoints.isEmpty()) {
+            checkpointRepository.saveAll(checkpoints);
+        }
     }
 
     private long bucketStart(long ts, long tfSeconds) {
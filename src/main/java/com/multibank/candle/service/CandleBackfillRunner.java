@@ -0,0 +1,73 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.repository.CopyCandleBulkLoader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Backfill command: with {@code candle.backfill.file} set, the candles of that CSV file are loaded
+ * through the {@link CopyCandleBulkLoader} on startup. Listener containers do not start on their own
+ * ({@code spring.kafka.listener.auto-startup: false}): {@code StartupManager} starts them once the
+ * application is ready, after every runner.
+ * <p>
+ * Lines are {@code symbol,timeframe,time,open,high,low,close,volume} with the timeframe code
+ * ({@code 1m}); a header line starting with {@code symbol} is skipped. The file is streamed, so its
+ * size is not bounded by memory.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "candle.backfill.file")
+public class CandleBackfillRunner implements ApplicationRunner {
+
+    private final CopyCandleBulkLoader bulkLoader;
+    private final CandleKeyRegistry keyRegistry;
+    private final HistoryChunkCache historyChunkCache;
+    private final RecentCandleBuffer recentCandles;
+    private final CandleConfigProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+
+        var backfill = properties.getBackfill();
+        log.info("Backfilling candles from {} in {} mode", backfill.getFile(), backfill.getMode());
+        try (var lines = Files.lines(Path.of(backfill.getFile()))) {
+            var candles = lines
+                    .filter(line -> !line.isBlank() && !line.startsWith("symbol"))
+                    .map(this::parse)
+                    .iterator();
+            bulkLoader.load(candles, backfill.getMode());
+            historyChunkCache.invalidateAll();
+            recentCandles.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    CandleDelta parse(String line) {
+        var fields = line.split(",");
+        if (fields.length != 8) {
+            throw new IllegalArgumentException("Expected 8 fields in backfill line: " + line);
+        }
+        var time = Long.parseLong(fields[2].trim());
+        var id = keyRegistry.candleId(fields[0].trim(), fields[1].trim(), time);
+        return new CandleDelta(id, new Candle(time,
+                Double.parseDouble(fields[3].trim()),
+                Double.parseDouble(fields[4].trim()),
+                Double.parseDouble(fields[5].trim()),
+                Double.parseDouble(fields[6].trim()),
+                Long.parseLong(fields[7].trim())));
+    }
+}
@@ -0,0 +1,78 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.repository.CandleKeyRepository;
+import com.multibank.candle.repository.entity.CandleId;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps symbols and timeframe codes to the compact ids stored in the {@code candles} key.
+ * <p>
+ * Ids are cached for the lifetime of the process, so after the first tick of a symbol the
+ * lookup is a map hit and the database is only involved when a new key is registered.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CandleKeyRegistry {
+
+    public static final int UNKNOWN = -1;
+
+    private final CandleKeyRepository repository;
+    private final CandleConfigProperties properties;
+
+    private final Map<String, Integer> symbols = new ConcurrentHashMap<>();
+    private final Map<String, Short> timeframes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void load() {
+        symbols.putAll(repository.findSymbols());
+        timeframes.putAll(repository.findTimeframes());
+        if (properties.getSymbols() != null) {
+            properties.getSymbols().keySet().forEach(this::symbolId);
+        }
+        properties.getTimeframes().forEach(tf -> timeframeId(tf.getCode()));
+        log.info("Loaded {} symbols and {} timeframes", symbols.size(), timeframes.size());
+    }
+
+    /**
+     * Id of {@code symbol}, registered on first use.
+     */
+    public int symbolId(String symbol) {
+        var id = symbols.get(symbol);
+        if (id == null) {
+            id = symbols.computeIfAbsent(symbol, repository::symbolId);
+        }
+        return id;
+    }
+
+    /**
+     * Id of {@code symbol} or {@link #UNKNOWN} when it was never registered, for read paths
+     * that must not grow the dictionary.
+     */
+    public int findSymbolId(String symbol) {
+        var id = symbols.get(symbol);
+        return id == null ? UNKNOWN : id;
+    }
+
+    /**
+     * Id of the timeframe {@code code}, registered on first use.
+     */
+    public short timeframeId(String code) {
+        var id = timeframes.get(code);
+        if (id == null) {
+            id = timeframes.computeIfAbsent(code, repository::timeframeId);
+        }
+        return id;
+    }
+
+    public CandleId candleId(String symbol, String timeframe, long time) {
+        return new CandleId(symbolId(symbol), timeframeId(timeframe), time);
+    }
+}
@@ -0,0 +1,72 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.domain.Candle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Folds time-ordered candles into candles of a longer interval that is a multiple of theirs, in a
+ * single pass: the bucket being built is kept in primitive fields and handed downstream as soon as
+ * a candle of a later bucket arrives. {@link #finish()} emits the last one.
+ */
+final class CandleResampler implements Consumer<Candle> {
+
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final long seconds;
+    private final Consumer<Candle> downstream;
+
+    private long time = NONE;
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private long volume;
+
+    CandleResampler(long seconds, Consumer<Candle> downstream) {
+        this.seconds = seconds;
+        this.downstream = downstream;
+    }
+
+    static List<Candle> resample(List<Candle> candles, long seconds) {
+        var resampled = new ArrayList<Candle>(candles.size() / 2 + 1);
+        var resampler = new CandleResampler(seconds, resampled::add);
+        for (Candle candle : candles) {
+            resampler.accept(candle);
+        }
+        resampler.finish();
+        return resampled;
+    }
+
+    @Override
+    public void accept(Candle candle) {
+        var bucket = Math.floorDiv(candle.time(), seconds) * seconds;
+        if (bucket != time) {
+            finish();
+            time = bucket;
+            open = candle.open();
+            high = candle.high();
+            low = candle.low();
+            close = candle.close();
+            volume = candle.volume();
+            return;
+        }
+        if (candle.high() > high) {
+            high = candle.high();
+        }
+        if (candle.low() < low) {
+            low = candle.low();
+        }
+        close = candle.close();
+        volume += candle.volume();
+    }
+
+    void finish() {
+        if (time != NONE) {
+            downstream.accept(new Candle(time, open, high, low, close, volume));
+            time = NONE;
+        }
+    }
+}
@@ -1,41 +1,59 @@
 package com.multibank.candle.service;
 
-import com.multibank.candle.config.TimeFrameConfig;
-import com.multibank.candle.repository.CandleRepository;
-import com.multibank.candle.repository.entity.CandleEntity;
-import com.multibank.candle.repository.entity.CandleId;
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.repository.CandlePersistenceStrategy;
+import com.multibank.candle.repository.JdbcCandleHistoryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CandleService {
 
-    private final CandleRepository repository;
-
-    public Optional<CandleEntity> findById(CandleId id) {
-        return repository.findById(id);
+    private final CandlePersistenceStrategy persistenceStrategy;
+    private final JdbcCandleHistoryRepository historyRepository;
+    private final RecentCandleBuffer recentCandles;
+
+    /**
+     * Merges deltas (at most one per candle) through the configured persistence strategy, and into
+     * the recent candles once committed. {@code onCommit} runs first in the same callback, so a delta
+     * released from the overlay is never also read from the recent candles.
+     */
+    public void merge(Collection<CandleDelta> deltas, Runnable onCommit) {
+        persistenceStrategy.merge(deltas);
+        AfterCommit.run(() -> {
+            onCommit.run();
+            recentCandles.append(deltas);
+        });
     }
 
-    @CacheEvict(cacheNames = "history-cache")
-    public void save(CandleEntity candle) {
-        repository.save(candle);
+    /**
+     * Stored candles of the range in time order, read by a projection query rather than as entities.
+     */
+    public List<Candle> getHistory(int symbolId, short timeframeId, long from, long to) {
+        return historyRepository.find(symbolId, timeframeId, from, to);
     }
 
-    @Cacheable(value = "history-cache", key = "#symbol + '|' + #tf.code + '|' + #from + '|' + #to")
-    public List<CandleEntity> getHistory(String symbol, TimeFrameConfig tf, long from, long to) {
+    /**
+     * Stored candles of the range for many symbols in one query, by symbol id.
+     */
+    public Map<Integer, List<Candle>> getHistories(Collection<Integer> symbolIds, short timeframeId, long from, long to) {
+        return historyRepository.findAll(symbolIds, timeframeId, from, to);
+    }
 
-        return repository
-                .findByCandleIdSymbolAndCandleIdTimeframeAndCandleIdTimeBetweenOrderByCandleIdTimeAsc(symbol, tf.getCode(), from, to)
-                .stream()
-                .toList();
+    /**
+     * Hands the stored candles of the range to the sink in time order without materializing them.
+     */
+    public void streamHistory(int symbolId, short timeframeId, long from, long to, Consumer<Candle> sink) {
+        historyRepository.stream(symbolId, timeframeId, from, to, sink);
     }
 
 }
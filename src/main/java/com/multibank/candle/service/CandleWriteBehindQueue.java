@@ -0,0 +1,275 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.config.KafkaConfig;
+import com.multibank.candle.domain.AggregationCheckpoint;
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.repository.entity.CandleId;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Flushed deltas coalesced per candle, merged in one transaction by a dedicated writer thread.
+ * {@link #enqueue(Collection, Collection)} completes once the deltas and everything queued before them
+ * are durable.
+ * <p>
+ * {@code candle.write-behind.capacity} is a high-water mark, not a hard bound: reaching it pauses the
+ * aggregator's listener container until the queue is below half of it, while flushes keep being accepted.
+ * A container paused by someone else is never resumed here.
+ */
+@Slf4j
+@Service
+public class CandleWriteBehindQueue {
+
+    private final CandleAggregationOperation candleAggregationOperation;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final CandleConfigProperties properties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition dirtyAvailable = lock.newCondition();
+
+    private Map<CandleId, CandleDelta> dirty = new LinkedHashMap<>();
+    // the batch being written, overlaid on reads until its commit reaches the recent candles
+    private Map<CandleId, CandleDelta> writing = Map.of();
+    private Map<AggregationCheckpoint.Key, AggregationCheckpoint> checkpoints = new HashMap<>();
+    private CompletableFuture<Void> generation = new CompletableFuture<>();
+    private CompletableFuture<Void> inFlight = CompletableFuture.completedFuture(null);
+    private boolean paused;
+    private MessageListenerContainer pausedContainer;
+    private volatile boolean running;
+    private Thread writer;
+
+    private final DistributionSummary batchSize;
+    private final Timer flushLatency;
+
+    public CandleWriteBehindQueue(CandleAggregationOperation candleAggregationOperation,
+                                  KafkaListenerEndpointRegistry listenerRegistry,
+                                  CandleConfigProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.candleAggregationOperation = candleAggregationOperation;
+        this.listenerRegistry = listenerRegistry;
+        this.properties = properties;
+
+        Gauge.builder("candle.writebehind.depth", this, CandleWriteBehindQueue::depth)
+                .description("Candles waiting to be written")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("candle.writebehind.batch.size")
+                .description("Candles merged per write")
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("candle.writebehind.flush")
+                .description("Time to merge one batch into the database")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.getWriteBehind().isEnabled()) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("candle-write-behind").start(this::run);
+    }
+
+    /**
+     * Stops accepting work once everything queued so far has been written.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        lock.lock();
+        try {
+            dirtyAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        writer.join();
+    }
+
+    public CompletableFuture<Void> enqueue(Collection<CandleDelta> deltas, Collection<AggregationCheckpoint> drainedCheckpoints) {
+        lock.lock();
+        try {
+            if (deltas.isEmpty() && drainedCheckpoints.isEmpty() && isEmpty()) {
+                return inFlight;
+            }
+            for (CandleDelta delta : deltas) {
+                dirty.merge(delta.id(), delta, CandleDelta::merge);
+            }
+            for (AggregationCheckpoint checkpoint : drainedCheckpoints) {
+                checkpoints.put(checkpoint.key(), checkpoint);
+            }
+            if (!paused && dirty.size() >= properties.getWriteBehind().getCapacity()) {
+                log.warn("Write-behind queue full with {} candles, pausing consumption", dirty.size());
+                paused = true;
+                var container = listenerRegistry.getListenerContainer(KafkaConfig.AGGREGATOR_LISTENER_ID);
+                if (container != null && !container.isPauseRequested()) {
+                    container.pause();
+                    pausedContainer = container;
+                }
+            }
+            dirtyAvailable.signal();
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void collectPending(int symbolId, short timeframeId, List<Candle> out) {
+        lock.lock();
+        try {
+            collect(writing, symbolId, timeframeId, out);
+            collect(dirty, symbolId, timeframeId, out);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void collect(Map<CandleId, CandleDelta> deltas, int symbolId, short timeframeId, List<Candle> out) {
+        for (CandleDelta delta : deltas.values()) {
+            if (delta.id().getSymbolId() == symbolId && delta.id().getTimeframeId() == timeframeId) {
+                out.add(delta.candle());
+            }
+        }
+    }
+
+    public int depth() {
+        lock.lock();
+        try {
+            return dirty.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            Map<CandleId, CandleDelta> batch;
+            Map<AggregationCheckpoint.Key, AggregationCheckpoint> batchCheckpoints;
+            CompletableFuture<Void> written;
+            lock.lock();
+            try {
+                while (isEmpty()) {
+                    if (!running) {
+                        return;
+                    }
+                    dirtyAvailable.awaitUninterruptibly();
+                }
+                batch = dirty;
+                writing = batch;
+                batchCheckpoints = checkpoints;
+                written = generation;
+                dirty = new LinkedHashMap<>();
+                checkpoints = new HashMap<>();
+                generation = new CompletableFuture<>();
+                inFlight = written;
+            } finally {
+                lock.unlock();
+            }
+            if (!write(batch, batchCheckpoints, written) && !running) {
+                // offsets of the unwritten candles were never acknowledged, they are replayed on restart
+                log.warn("Stopping with {} candles not written", depth());
+                return;
+            }
+        }
+    }
+
+    private boolean write(Map<CandleId, CandleDelta> batch,
+                          Map<AggregationCheckpoint.Key, AggregationCheckpoint> batchCheckpoints,
+                          CompletableFuture<Void> written) {
+        try {
+            flushLatency.record(() -> candleAggregationOperation.mergeCandles(batch.values(), batchCheckpoints.values(),
+                    this::written));
+        } catch (RuntimeException ex) {
+            log.error("Failed to write {} candles, retrying", batch.size(), ex);
+            requeue(batch, batchCheckpoints, written);
+            sleep(properties.getEngine().getFlushInterval().toMillis());
+            return false;
+        }
+        batchSize.record(batch.size());
+        log.debug("Wrote {} candles", batch.size());
+        written.complete(null);
+        resumeIfDrained();
+        return true;
+    }
+
+    private void written() {
+        lock.lock();
+        try {
+            writing = Map.of();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The newer generation is only completed together with the failed one so acknowledgments stay in order.
+     */
+    private void requeue(Map<CandleId, CandleDelta> batch,
+                         Map<AggregationCheckpoint.Key, AggregationCheckpoint> batchCheckpoints,
+                         CompletableFuture<Void> failed) {
+        lock.lock();
+        try {
+            var newer = dirty;
+            dirty = batch;
+            writing = Map.of();
+            newer.forEach((id, delta) -> dirty.merge(id, delta, CandleDelta::merge));
+            batchCheckpoints.putAll(checkpoints);
+            checkpoints = batchCheckpoints;
+
+            var newerGeneration = generation;
+            failed.thenRun(() -> newerGeneration.complete(null));
+            generation = failed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isEmpty() {
+        return dirty.isEmpty() && checkpoints.isEmpty();
+    }
+
+    private void resumeIfDrained() {
+        lock.lock();
+        try {
+            if (paused && dirty.size() <= properties.getWriteBehind().getCapacity() / 2) {
+                log.info("Write-behind queue down to {} candles, resuming consumption", dirty.size());
+                paused = false;
+                if (pausedContainer != null) {
+                    pausedContainer.resume();
+                    pausedContainer = null;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
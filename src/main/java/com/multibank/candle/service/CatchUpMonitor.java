@@ -0,0 +1,176 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.config.KafkaConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Switches ingestion to catch-up mode while the consumer lag, read from each batch's last fetch, is above
+ * {@code candle.catch-up.enter-lag}, until it is down to {@code candle.catch-up.exit-lag}. The aggregator's
+ * container is restarted on each switch since consumer settings are fixed at creation.
+ */
+@Slf4j
+@Service
+public class CatchUpMonitor {
+
+    private final CandleAggregationEngine candleAggregationEngine;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final CandleConfigProperties properties;
+
+    private final Map<TopicPartition, Long> lags = new ConcurrentHashMap<>();
+    private final LongAdder consumed = new LongAdder();
+    private final ExecutorService reconfigurer =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("candle-catch-up").factory());
+
+    private volatile boolean active;
+    // started on request: only left through finish(), or once the lag has reached enter-lag and come back down
+    private volatile boolean manual;
+    private volatile Start start;
+
+    public CatchUpMonitor(CandleAggregationEngine candleAggregationEngine,
+                          KafkaListenerEndpointRegistry listenerRegistry,
+                          CandleConfigProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.candleAggregationEngine = candleAggregationEngine;
+        this.listenerRegistry = listenerRegistry;
+        this.properties = properties;
+
+        Gauge.builder("candle.catchup.active", this, m -> m.isActive() ? 1 : 0)
+                .description("Whether ingestion is in catch-up mode")
+                .register(meterRegistry);
+        Gauge.builder("candle.catchup.lag", this, CatchUpMonitor::lag)
+                .description("Records behind the head of the topic")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        reconfigurer.shutdownNow();
+    }
+
+    public void onBatch(Consumer<?, ?> consumer, int records) {
+        consumed.add(records);
+        for (TopicPartition partition : consumer.assignment()) {
+            var partitionLag = consumer.currentLag(partition);
+            if (partitionLag.isPresent()) {
+                lags.put(partition, partitionLag.getAsLong());
+            }
+        }
+        var lag = lag();
+        var catchUp = properties.getCatchUp();
+        if (manual && lag >= catchUp.getEnterLag()) {
+            manual = false;
+        }
+        if (active ? !manual && lag <= catchUp.getExitLag() : catchUp.isEnabled() && lag >= catchUp.getEnterLag()) {
+            switchMode(!active, lag);
+        }
+    }
+
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        partitions.forEach(lags::remove);
+    }
+
+    /**
+     * Enters catch-up mode regardless of the current lag, e.g. right before a backfill.
+     */
+    public void start() {
+        manual = true;
+        switchMode(true, lag());
+    }
+
+    public void finish() {
+        manual = false;
+        switchMode(false, lag());
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public long lag() {
+        long lag = 0;
+        for (Long partitionLag : lags.values()) {
+            lag += partitionLag;
+        }
+        return lag;
+    }
+
+    public Status status() {
+        var lag = lag();
+        var current = start;
+        if (!active || current == null) {
+            return new Status(false, lag, 0, 0, 0.0, 0.0, null, null);
+        }
+        var elapsedSeconds = Math.max(1e-3, (System.nanoTime() - current.nanos()) / 1e9);
+        var records = consumed.sum() - current.consumed();
+        var caughtUp = current.lag() - lag;
+        var progress = current.lag() == 0 ? 1.0 : Math.clamp((double) caughtUp / current.lag(), 0.0, 1.0);
+        // the lag shrinks by what is consumed minus what is produced meanwhile
+        var estimatedCompletion = caughtUp > 0
+                ? Instant.now().plus(Duration.ofMillis((long) (lag / (caughtUp / elapsedSeconds) * 1000)))
+                : null;
+        return new Status(true, lag, current.lag(), records, records / elapsedSeconds, progress,
+                current.at(), estimatedCompletion);
+    }
+
+    private synchronized void switchMode(boolean enter, long lag) {
+        if (active == enter) {
+            return;
+        }
+        if (enter) {
+            start = new Start(Instant.now(), System.nanoTime(), lag, consumed.sum());
+            log.info("Entering catch-up mode, {} records behind", lag);
+        } else {
+            log.info("Caught up, leaving catch-up mode after {}", Duration.between(start.at(), Instant.now()));
+        }
+        active = enter;
+        candleAggregationEngine.onCatchUp(enter);
+        if (!properties.getCatchUp().getConsumerProperties().isEmpty()) {
+            reconfigurer.execute(this::reconfigureContainers);
+        }
+    }
+
+    /**
+     * Runs off the consumer threads since stopping a container waits for them.
+     */
+    private void reconfigureContainers() {
+        var container = listenerRegistry.getListenerContainer(KafkaConfig.AGGREGATOR_LISTENER_ID);
+        if (container == null || !container.isRunning()) {
+            return;
+        }
+        var overrides = properties.getCatchUp().getConsumerProperties();
+        var catchingUp = active;
+        var consumerProperties = container.getContainerProperties().getKafkaConsumerProperties();
+        if (catchingUp) {
+            consumerProperties.putAll(overrides);
+        } else {
+            overrides.keySet().forEach(consumerProperties::remove);
+        }
+        container.stop();
+        container.start();
+        log.info("Listener containers restarted with {} consumer settings", catchingUp ? "catch-up" : "regular");
+    }
+
+    public record Status(boolean active, long lag, long startLag, long consumed, double recordsPerSecond,
+                         double progress, Instant startedAt, Instant estimatedCompletion) {
+    }
+
+    private record Start(Instant at, long nanos, long lag, long consumed) {
+    }
+}
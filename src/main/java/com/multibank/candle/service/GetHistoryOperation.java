@@ -3,30 +3,180 @@ package com.multibank.candle.service;
 import com.multibank.candle.config.CandleConfigProperties;
 import com.multibank.candle.config.TimeFrameConfig;
 import com.multibank.candle.domain.Candle;
-import com.multibank.candle.repository.entity.CandleEntity;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 public class GetHistoryOperation {
 
     private final CandleService service;
+    private final CandleAggregationEngine aggregationEngine;
+    private final CandleKeyRegistry keyRegistry;
     private final CandleConfigProperties properties;
+    private final HistoryChunkCache historyChunkCache;
+    private final RecentCandleBuffer recentCandles;
 
+    /**
+     * An interval that is not a configured timeframe is resampled from the largest configured one dividing it.
+     */
     @Transactional(readOnly = true)
     public List<Candle> getHistory(String symbol, String interval, long from, long to) {
 
-        var tf = TimeFrameConfig.fromCode(properties.getTimeframes(), interval);
+        var resolved = resolve(interval);
         validateFromTo(from, to);
-        return service
-                .getHistory(symbol, tf, from, to)
-                .stream()
-                .map(this::buildCandle)
-                .toList();
+        var symbolId = keyRegistry.findSymbolId(symbol);
+        if (symbolId == CandleKeyRegistry.UNKNOWN) {
+            return List.of();
+        }
+
+        if (!resolved.isResampled()) {
+            return history(symbolId, resolved.source(), from, to);
+        }
+        var seconds = resolved.seconds();
+        var first = Math.ceilDiv(from, seconds) * seconds;
+        var last = Math.floorDiv(to, seconds) * seconds;
+        if (first > last) {
+            return List.of();
+        }
+        // every candle of the range is built from the whole of its bucket, even past 'to'
+        var source = resolved.source();
+        var sealedUntil = aggregationEngine.sealedUntil(symbolId, source);
+        return historyChunkCache.getHistory(symbolId, source, seconds, first, last + seconds - 1, sealedUntil,
+                (rangeFrom, rangeTo) -> CandleResampler.resample(history(symbolId, source, rangeFrom, rangeTo), seconds));
+    }
+
+    /**
+     * Series outside the recent candles are read with one query per interval, bypassing the chunk cache.
+     */
+    @Transactional(readOnly = true)
+    public List<SeriesHistory> getHistories(List<String> symbols, List<String> intervals, long from, long to) {
+
+        var maxSeries = properties.getHistoryBatch().getMaxSeries();
+        if (symbols.isEmpty() || intervals.isEmpty() || (long) symbols.size() * intervals.size() > maxSeries) {
+            throw new RuntimeException("Between 1 and " + maxSeries + " series are allowed");
+        }
+        var resolved = intervals.stream().map(this::resolve).toList();
+        validateFromTo(from, to);
+
+        var histories = new ArrayList<SeriesHistory>(symbols.size() * intervals.size());
+        for (int i = 0; i < intervals.size(); i++) {
+            var bySymbol = histories(symbols, resolved.get(i), from, to);
+            for (String symbol : symbols) {
+                histories.add(new SeriesHistory(symbol, intervals.get(i), bySymbol.getOrDefault(symbol, List.of())));
+            }
+        }
+        return histories;
+    }
+
+    /**
+     * Bypasses the history caches, which would hold the whole range.
+     */
+    @Transactional(readOnly = true)
+    public void streamHistory(String symbol, String interval, long from, long to, Consumer<Candle> sink) {
+
+        var resolved = resolve(interval);
+        validateFromTo(from, to);
+        var symbolId = keyRegistry.findSymbolId(symbol);
+        if (symbolId == CandleKeyRegistry.UNKNOWN) {
+            return;
+        }
+
+        if (!resolved.isResampled()) {
+            stream(symbolId, resolved.source(), from, to, sink);
+            return;
+        }
+        var seconds = resolved.seconds();
+        var first = Math.ceilDiv(from, seconds) * seconds;
+        var last = Math.floorDiv(to, seconds) * seconds;
+        if (first > last) {
+            return;
+        }
+        var resampler = new CandleResampler(seconds, sink);
+        stream(symbolId, resolved.source(), first, last + seconds - 1, resampler);
+        resampler.finish();
+    }
+
+    public long intervalSeconds(String interval) {
+        return resolve(interval).seconds();
+    }
+
+    private List<Candle> history(int symbolId, TimeFrameConfig tf, long from, long to) {
+
+        var timeframeId = keyRegistry.timeframeId(tf.getCode());
+        var recent = recentCandles.find(symbolId, timeframeId, from, to);
+        if (recent.isPresent()) {
+            return aggregationEngine.overlay(symbolId, tf, from, to, recent.get());
+        }
+
+        var sealedUntil = aggregationEngine.sealedUntil(symbolId, tf);
+        return historyChunkCache.getHistory(symbolId, tf, from, to, sealedUntil,
+                (rangeFrom, rangeTo) -> load(symbolId, tf, rangeFrom, rangeTo));
+    }
+
+    private Map<String, List<Candle>> histories(List<String> symbols, Interval interval, long from, long to) {
+
+        var seconds = interval.seconds();
+        var source = interval.source();
+        var first = interval.isResampled() ? Math.ceilDiv(from, seconds) * seconds : from;
+        var last = interval.isResampled() ? Math.floorDiv(to, seconds) * seconds + seconds - 1 : to;
+        if (first > last) {
+            return Map.of();
+        }
+
+        var timeframeId = keyRegistry.timeframeId(source.getCode());
+        var bySymbol = new HashMap<String, List<Candle>>();
+        var toRead = new LinkedHashMap<Integer, String>();
+        for (String symbol : symbols) {
+            var symbolId = keyRegistry.findSymbolId(symbol);
+            if (symbolId == CandleKeyRegistry.UNKNOWN) {
+                continue;
+            }
+            var recent = recentCandles.find(symbolId, timeframeId, first, last);
+            if (recent.isPresent()) {
+                bySymbol.put(symbol, resampled(interval, aggregationEngine.overlay(symbolId, source, first, last, recent.get())));
+            } else {
+                toRead.put(symbolId, symbol);
+            }
+        }
+        if (!toRead.isEmpty()) {
+            var stored = service.getHistories(toRead.keySet(), timeframeId, first, last);
+            toRead.forEach((symbolId, symbol) -> bySymbol.put(symbol, resampled(interval,
+                    aggregationEngine.overlay(symbolId, source, first, last, stored.getOrDefault(symbolId, List.of())))));
+        }
+        return bySymbol;
+    }
+
+    private static List<Candle> resampled(Interval interval, List<Candle> candles) {
+        return interval.isResampled() ? CandleResampler.resample(candles, interval.seconds()) : candles;
+    }
+
+    private void stream(int symbolId, TimeFrameConfig tf, long from, long to, Consumer<Candle> sink) {
+        var overlay = new OverlaySink(() -> aggregationEngine.pending(symbolId, tf, from, to), sink);
+        service.streamHistory(symbolId, keyRegistry.timeframeId(tf.getCode()), from, to, overlay);
+        overlay.finish();
+    }
+
+    private List<Candle> load(int symbolId, TimeFrameConfig tf, long from, long to) {
+        var stored = service.getHistory(symbolId, keyRegistry.timeframeId(tf.getCode()), from, to);
+        return aggregationEngine.overlay(symbolId, tf, from, to, stored);
+    }
+
+    private Interval resolve(String interval) {
+        var tf = TimeFrameConfig.findByCode(properties.getTimeframes(), interval);
+        if (tf != null) {
+            return new Interval(tf, tf.getSeconds());
+        }
+        var seconds = TimeFrameConfig.parseSeconds(interval);
+        return new Interval(TimeFrameConfig.divisorOf(properties.getTimeframes(), seconds), seconds);
     }
 
     private static void validateFromTo(long from, long to) {
@@ -35,7 +185,13 @@ public class GetHistoryOperation {
         }
     }
 
-    private Candle buildCandle(CandleEntity e) {
-        return new Candle(e.getCandleId().getTime(), e.getOpen(), e.getHigh(), e.getLow(), e.getClose(), e.getVolume());
+    public record SeriesHistory(String symbol, String interval, List<Candle> candles) {
+    }
+
+    private record Interval(TimeFrameConfig source, long seconds) {
+
+        boolean isResampled() {
+            return seconds != source.getSeconds();
+        }
     }
 }
@@ -0,0 +1,162 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.config.TimeFrameConfig;
+import com.multibank.candle.domain.Candle;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * History cache of time-aligned chunks of {@code candle.history-cache.chunk-candles} candles per
+ * (symbol, timeframe). Only chunks ending before the engine's {@code sealedUntil} are cached; the open
+ * tail of a range is loaded on every read. A read racing with an invalidation drops what it cached.
+ */
+@Service
+@RequiredArgsConstructor
+public class HistoryChunkCache {
+
+    public static final String HISTORY_CHUNK_CACHE = "history-chunk-cache";
+
+    private final CacheManager cacheManager;
+    private final CandleKeyRegistry keyRegistry;
+    private final CandleConfigProperties properties;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<Short, Set<Long>> resampledSeconds = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface RangeLoader {
+        List<Candle> load(long from, long to);
+    }
+
+    record ChunkKey(int symbolId, short timeframeId, long seconds, long chunk) {
+    }
+
+    public List<Candle> getHistory(int symbolId, TimeFrameConfig tf, long from, long to, long sealedUntil,
+                                   RangeLoader loader) {
+        return getHistory(symbolId, tf, tf.getSeconds(), from, to, sealedUntil, loader);
+    }
+
+    /**
+     * For candles of {@code seconds} resampled from {@code source}; {@code sealedUntil} is the source's.
+     */
+    public List<Candle> getHistory(int symbolId, TimeFrameConfig source, long seconds, long from, long to,
+                                   long sealedUntil, RangeLoader loader) {
+
+        var cache = cache();
+        var span = chunkSpan(seconds);
+        var timeframeId = keyRegistry.timeframeId(source.getCode());
+        if (seconds != source.getSeconds()) {
+            resampledSeconds.computeIfAbsent(timeframeId, id -> ConcurrentHashMap.newKeySet()).add(seconds);
+        }
+        var candles = new ArrayList<Candle>();
+
+        long chunk = Math.floorDiv(from, span);
+        while (chunk * span <= to && (chunk + 1) * span <= sealedUntil) {
+            var hit = cache.get(new ChunkKey(symbolId, timeframeId, seconds, chunk));
+            if (hit != null) {
+                @SuppressWarnings("unchecked")
+                var cached = (List<Candle>) hit.get();
+                addInRange(cached, from, to, candles);
+                chunk++;
+                continue;
+            }
+            long missingTo = chunk;
+            while ((missingTo + 1) * span <= to && (missingTo + 2) * span <= sealedUntil
+                    && cache.get(new ChunkKey(symbolId, timeframeId, seconds, missingTo + 1)) == null) {
+                missingTo++;
+            }
+            var loaded = loadChunks(cache, new ChunkKey(symbolId, timeframeId, seconds, chunk), missingTo, loader);
+            addInRange(loaded, from, to, candles);
+            chunk = missingTo + 1;
+        }
+
+        var tailFrom = Math.max(from, chunk * span);
+        if (tailFrom <= to) {
+            candles.addAll(loader.load(tailFrom, to));
+        }
+        return candles;
+    }
+
+    /**
+     * Also drops the chunks resampled from the candle's chunk.
+     */
+    public void invalidate(int symbolId, short timeframeId, long time) {
+        for (TimeFrameConfig tf : properties.getTimeframes()) {
+            if (keyRegistry.timeframeId(tf.getCode()) == timeframeId) {
+                AfterCommit.run(() -> {
+                    generation.incrementAndGet();
+                    var cache = cache();
+                    cache.evict(chunkKey(symbolId, timeframeId, tf.getSeconds(), time));
+                    for (Long seconds : resampledSeconds.getOrDefault(timeframeId, Set.of())) {
+                        cache.evict(chunkKey(symbolId, timeframeId, seconds, time));
+                    }
+                });
+                return;
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            cache().clear();
+        });
+    }
+
+    private List<Candle> loadChunks(Cache cache, ChunkKey firstKey, long last, RangeLoader loader) {
+
+        var span = chunkSpan(firstKey.seconds());
+        var first = firstKey.chunk();
+        var observed = generation.get();
+        var loaded = loader.load(first * span, (last + 1) * span - 1);
+
+        var keys = new ArrayList<ChunkKey>();
+        int start = 0;
+        for (long chunk = first; chunk <= last; chunk++) {
+            var end = (chunk + 1) * span;
+            int stop = start;
+            while (stop < loaded.size() && loaded.get(stop).time() < end) {
+                stop++;
+            }
+            var key = new ChunkKey(firstKey.symbolId(), firstKey.timeframeId(), firstKey.seconds(), chunk);
+            cache.put(key, List.copyOf(loaded.subList(start, stop)));
+            keys.add(key);
+            start = stop;
+        }
+        if (generation.get() != observed) {
+            // an invalidation ran meanwhile, what was loaded may predate its write
+            keys.forEach(cache::evict);
+        }
+        return loaded;
+    }
+
+    private static void addInRange(List<Candle> chunk, long from, long to, List<Candle> out) {
+        for (Candle candle : chunk) {
+            if (candle.time() >= from && candle.time() <= to) {
+                out.add(candle);
+            }
+        }
+    }
+
+    private ChunkKey chunkKey(int symbolId, short timeframeId, long seconds, long time) {
+        return new ChunkKey(symbolId, timeframeId, seconds, Math.floorDiv(time, chunkSpan(seconds)));
+    }
+
+    private long chunkSpan(long seconds) {
+        return seconds * properties.getHistoryCache().getChunkCandles();
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(HISTORY_CHUNK_CACHE);
+    }
+}
@@ -0,0 +1,266 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.domain.Candle;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Sends candle updates to subscribers of (symbol, interval) pairs. Every {@code candle.live.publish-interval}
+ * the latest candles of each subscribed pair whose symbol moved are read once through the history path and
+ * offered to its subscribers, on a dedicated thread. A subscriber keeps at most one unsent candle per pair,
+ * so a slow client skips intermediate states instead of queueing them.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "candle.live.enabled", havingValue = "true", matchIfMissing = true)
+public class LiveCandleHub {
+
+    private final GetHistoryOperation getHistoryOperation;
+    private final CandleAggregationEngine candleAggregationEngine;
+    private final CandleKeyRegistry keyRegistry;
+    private final CandleConfigProperties properties;
+    private final LongSupplier epochSeconds;
+
+    private final Map<Subscription, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Subscription, Candle> published = new ConcurrentHashMap<>();
+    private final Map<Subscription, Long> readAtChanges = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService publisher =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("candle-live").factory());
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger connected = new AtomicInteger();
+
+    private final Counter updates;
+    private final Counter conflated;
+
+    @Autowired
+    public LiveCandleHub(GetHistoryOperation getHistoryOperation, CandleAggregationEngine candleAggregationEngine,
+                         CandleKeyRegistry keyRegistry, CandleConfigProperties properties, MeterRegistry meterRegistry) {
+        this(getHistoryOperation, candleAggregationEngine, keyRegistry, properties, meterRegistry,
+                () -> Instant.now().getEpochSecond());
+    }
+
+    LiveCandleHub(GetHistoryOperation getHistoryOperation, CandleAggregationEngine candleAggregationEngine,
+                  CandleKeyRegistry keyRegistry, CandleConfigProperties properties, MeterRegistry meterRegistry,
+                  LongSupplier epochSeconds) {
+        this.getHistoryOperation = getHistoryOperation;
+        this.candleAggregationEngine = candleAggregationEngine;
+        this.keyRegistry = keyRegistry;
+        this.properties = properties;
+        this.epochSeconds = epochSeconds;
+
+        Gauge.builder("candle.live.subscribers", connected, AtomicInteger::get)
+                .description("Connected live candle subscribers")
+                .register(meterRegistry);
+        this.updates = Counter.builder("candle.live.updates")
+                .description("Candle updates offered to subscribers")
+                .register(meterRegistry);
+        this.conflated = Counter.builder("candle.live.conflated")
+                .description("Candle updates replaced by a later one before being sent")
+                .register(meterRegistry);
+    }
+
+    public record Subscription(String symbol, String interval) {
+    }
+
+    @FunctionalInterface
+    public interface Sink {
+        void send(Subscription subscription, Candle candle) throws IOException;
+    }
+
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * {@code onError} runs once, on a sender thread, if the sink fails.
+     */
+    public Registration subscribe(Collection<Subscription> subscriptions, Sink sink, Runnable onError) {
+
+        if (subscriptions.isEmpty() || subscriptions.size() > properties.getLive().getMaxSubscriptions()) {
+            throw new RuntimeException("Between 1 and " + properties.getLive().getMaxSubscriptions()
+                    + " subscriptions are allowed");
+        }
+        subscriptions.forEach(s -> getHistoryOperation.intervalSeconds(s.interval()));
+
+        var subscriber = new Subscriber(List.copyOf(subscriptions), sink, onError);
+        for (Subscription subscription : subscriber.subscriptions) {
+            subscribers.compute(subscription, (s, set) -> {
+                var targets = set != null ? set : ConcurrentHashMap.<Subscriber>newKeySet();
+                targets.add(subscriber);
+                return targets;
+            });
+            var latest = published.get(subscription);
+            if (latest != null) {
+                subscriber.offer(subscription, latest);
+            }
+        }
+        connected.incrementAndGet();
+        return subscriber;
+    }
+
+    @PostConstruct
+    public void start() {
+        var interval = properties.getLive().getPublishInterval().toMillis();
+        publisher.scheduleWithFixedDelay(this::publish, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void publish() {
+        for (var entry : subscribers.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            try {
+                publish(entry.getKey(), entry.getValue());
+            } catch (RuntimeException ex) {
+                readAtChanges.remove(entry.getKey());
+                log.warn("Failed to publish live candles of {}", entry.getKey(), ex);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        publisher.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    private void publish(Subscription subscription, Set<Subscriber> targets) {
+
+        if (properties.getEngine().isEnabled()) {
+            var symbolId = keyRegistry.findSymbolId(subscription.symbol());
+            var changes = symbolId == CandleKeyRegistry.UNKNOWN ? 0 : candleAggregationEngine.changes(symbolId);
+            var previous = readAtChanges.put(subscription, changes);
+            if (previous != null && previous == changes) {
+                return;
+            }
+        }
+        var seconds = getHistoryOperation.intervalSeconds(subscription.interval());
+        var last = published.get(subscription);
+        var now = epochSeconds.getAsLong();
+        var from = last != null ? last.time() : Math.floorDiv(now, seconds) * seconds - seconds;
+        var to = Math.max(from, now) + seconds;
+
+        for (Candle candle : getHistoryOperation.getHistory(subscription.symbol(), subscription.interval(), from, to)) {
+            if (last != null && (candle.time() < last.time() || candle.equals(last))) {
+                continue;
+            }
+            last = candle;
+            published.put(subscription, candle);
+            for (Subscriber subscriber : targets) {
+                subscriber.offer(subscription, candle);
+            }
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        for (Subscription subscription : subscriber.subscriptions) {
+            subscribers.computeIfPresent(subscription, (s, set) -> {
+                set.remove(subscriber);
+                if (set.isEmpty()) {
+                    published.remove(s);
+                    readAtChanges.remove(s);
+                    return null;
+                }
+                return set;
+            });
+        }
+        connected.decrementAndGet();
+    }
+
+    private final class Subscriber implements Registration {
+
+        private final List<Subscription> subscriptions;
+        private final Sink sink;
+        private final Runnable onError;
+
+        private Map<Subscription, Candle> pending = new LinkedHashMap<>();
+        private boolean draining;
+        private boolean closed;
+
+        Subscriber(List<Subscription> subscriptions, Sink sink, Runnable onError) {
+            this.subscriptions = subscriptions;
+            this.sink = sink;
+            this.onError = onError;
+        }
+
+        void offer(Subscription subscription, Candle candle) {
+            updates.increment();
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (pending.put(subscription, candle) != null) {
+                    conflated.increment();
+                }
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            senders.execute(this::drain);
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+            }
+            unsubscribe(this);
+        }
+
+        private void drain() {
+            while (true) {
+                Map<Subscription, Candle> batch;
+                synchronized (this) {
+                    if (pending.isEmpty() || closed) {
+                        draining = false;
+                        return;
+                    }
+                    batch = pending;
+                    pending = new LinkedHashMap<>();
+                }
+                try {
+                    for (var update : batch.entrySet()) {
+                        sink.send(update.getKey(), update.getValue());
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    log.debug("Live candle subscriber failed, closing it", ex);
+                    synchronized (this) {
+                        draining = false;
+                    }
+                    close();
+                    onError.run();
+                    return;
+                }
+            }
+        }
+    }
+}
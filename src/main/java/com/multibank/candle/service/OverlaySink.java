@@ -0,0 +1,58 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.domain.Candle;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Streaming counterpart of the engine's history overlay: stored candles arrive in time order and the
+ * pending ones, sorted, are merged in between or into the stored candle of the same bucket before
+ * reaching the downstream sink. {@link #finish()} emits the pending candles after the last stored one.
+ * <p>
+ * Pending candles are collected when the first stored row arrives, after the query took its snapshot,
+ * as the non-streaming path collects them after loading. Flushed deltas leave the overlay in the
+ * after-commit callback, before they reach the recent candles, so reads served from those never count
+ * a delta twice. The database commit becomes visible just before that callback runs: a snapshot taken
+ * in between can see a delta both as stored and as pending, for that one read.
+ */
+class OverlaySink implements Consumer<Candle> {
+
+    private final Supplier<List<Candle>> pendingSupplier;
+    private final Consumer<Candle> downstream;
+    private List<Candle> pending;
+    private int next;
+
+    OverlaySink(Supplier<List<Candle>> pending, Consumer<Candle> downstream) {
+        this.pendingSupplier = pending;
+        this.downstream = downstream;
+    }
+
+    @Override
+    public void accept(Candle stored) {
+        if (pending == null) {
+            pending = pendingSupplier.get();
+        }
+        while (next < pending.size() && pending.get(next).time() < stored.time()) {
+            downstream.accept(mergeBucket(pending.get(next++)));
+        }
+        downstream.accept(mergeBucket(stored));
+    }
+
+    void finish() {
+        if (pending == null) {
+            pending = pendingSupplier.get();
+        }
+        while (next < pending.size()) {
+            downstream.accept(mergeBucket(pending.get(next++)));
+        }
+    }
+
+    private Candle mergeBucket(Candle candle) {
+        while (next < pending.size() && pending.get(next).time() == candle.time()) {
+            candle = candle.merge(pending.get(next++));
+        }
+        return candle;
+    }
+}
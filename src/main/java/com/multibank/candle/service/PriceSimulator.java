@@ -1,14 +1,31 @@
 package com.multibank.candle.service;
 
+import com.multibank.candle.domain.BidAskEvent;
+
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class PriceSimulator {
 
-    private final Random random = new Random();
+    private final Random random;
     private final Map<String, Double> lastPriceBySymbol = new ConcurrentHashMap<>();
 
+    public PriceSimulator() {
+        this(new Random());
+    }
+
+    /**
+     * A simulator producing the same price path on every run, for recorded tapes.
+     */
+    public PriceSimulator(long seed) {
+        this(new Random(seed));
+    }
+
+    private PriceSimulator(Random random) {
+        this.random = random;
+    }
+
     public double nextPrice(String symbol, Double price) {
         var last = lastPriceBySymbol.computeIfAbsent(symbol, s -> price);
         var maxMove = last * 0.001;
@@ -18,4 +35,13 @@ public class PriceSimulator {
         return next;
     }
 
-}
\ No newline at end of file
+    /**
+     * Next tick of the symbol: a random step from its last mid price with a little fixed spread.
+     */
+    public BidAskEvent nextTick(String symbol, Double price, long epochSecond) {
+        double mid = nextPrice(symbol, price);
+        double spread = mid * 0.0005;
+        return new BidAskEvent(symbol, mid - spread / 2, mid + spread / 2, epochSecond);
+    }
+
+}
@@ -0,0 +1,238 @@
+package com.multibank.candle.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.config.TimeFrameConfig;
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleDelta;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongSupplier;
+
+/**
+ * The last {@code candle.recent-candles.capacity} stored candles of every (symbol, timeframe) in primitive
+ * rings, fed with the deltas of every committed merge. Reads copy the slots under an optimistic
+ * {@link StampedLock} stamp and never block writers.
+ * <p>
+ * A ring only answers for buckets it has seen every delta of: coverage starts with the bucket after its
+ * creation, since earlier ones may hold writes of the partition's previous owner.
+ */
+@Service
+public class RecentCandleBuffer {
+
+    private final CandleConfigProperties properties;
+    private final CandleKeyRegistry keyRegistry;
+    private final LongSupplier epochSeconds;
+
+    private final Cache<SeriesKey, Ring> rings;
+
+    record SeriesKey(int symbolId, short timeframeId) {
+    }
+
+    @Autowired
+    public RecentCandleBuffer(CandleConfigProperties properties, CandleKeyRegistry keyRegistry) {
+        this(properties, keyRegistry, () -> Instant.now().getEpochSecond());
+    }
+
+    RecentCandleBuffer(CandleConfigProperties properties, CandleKeyRegistry keyRegistry, LongSupplier epochSeconds) {
+        this.properties = properties;
+        this.keyRegistry = keyRegistry;
+        this.epochSeconds = epochSeconds;
+        this.rings = Caffeine.newBuilder()
+                .maximumSize(properties.getRecentCandles().getMaxSeries())
+                .executor(Runnable::run)
+                .build();
+    }
+
+    public void append(Collection<CandleDelta> deltas) {
+        if (!isEnabled()) {
+            return;
+        }
+        for (CandleDelta delta : deltas) {
+            var ring = ring(delta.id().getSymbolId(), delta.id().getTimeframeId());
+            if (ring != null) {
+                ring.merge(delta);
+            }
+        }
+    }
+
+    /**
+     * Empty when part of [from, to] is outside the buffered window of the series.
+     */
+    public Optional<List<Candle>> find(int symbolId, short timeframeId, long from, long to) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        var ring = rings.getIfPresent(new SeriesKey(symbolId, timeframeId));
+        return ring == null ? Optional.empty() : Optional.ofNullable(ring.read(from, to));
+    }
+
+    /**
+     * For candles written outside the merge path: stops answering for the one at {@code time} and older ones.
+     */
+    public void invalidate(int symbolId, short timeframeId, long time) {
+        if (isEnabled()) {
+            AfterCommit.run(() -> {
+                var ring = ring(symbolId, timeframeId);
+                if (ring != null) {
+                    ring.coverFrom(time + ring.seconds);
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        if (isEnabled()) {
+            AfterCommit.run(rings::invalidateAll);
+        }
+    }
+
+    private Ring ring(int symbolId, short timeframeId) {
+        var key = new SeriesKey(symbolId, timeframeId);
+        var ring = rings.getIfPresent(key);
+        if (ring != null) {
+            return ring;
+        }
+        for (TimeFrameConfig tf : properties.getTimeframes()) {
+            if (keyRegistry.timeframeId(tf.getCode()) == timeframeId) {
+                var seconds = tf.getSeconds();
+                return rings.get(key, k -> new Ring(properties.getRecentCandles().getCapacity(), seconds,
+                        Math.floorDiv(epochSeconds.getAsLong(), seconds) * seconds + seconds));
+            }
+        }
+        return null;
+    }
+
+    private boolean isEnabled() {
+        return properties.getRecentCandles().isEnabled();
+    }
+
+    private static final class Ring {
+
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private final StampedLock lock = new StampedLock();
+        private final int capacity;
+        private final long seconds;
+        private final long[] time;
+        private final double[] open;
+        private final double[] high;
+        private final double[] low;
+        private final double[] close;
+        private final long[] volume;
+        private final long[] openTime;
+        private final long[] closeTime;
+        private long newest = EMPTY;
+        private long coveredFrom;
+
+        Ring(int capacity, long seconds, long coveredFrom) {
+            this.capacity = capacity;
+            this.seconds = seconds;
+            this.coveredFrom = coveredFrom;
+            this.time = new long[capacity];
+            this.open = new double[capacity];
+            this.high = new double[capacity];
+            this.low = new double[capacity];
+            this.close = new double[capacity];
+            this.volume = new long[capacity];
+            this.openTime = new long[capacity];
+            this.closeTime = new long[capacity];
+            Arrays.fill(time, EMPTY);
+        }
+
+        void merge(CandleDelta delta) {
+            var candle = delta.candle();
+            var stamp = lock.writeLock();
+            try {
+                var bucket = candle.time();
+                if (bucket < coveredFrom || (newest != EMPTY && bucket <= newest - capacity * seconds)) {
+                    return;
+                }
+                if (newest == EMPTY || bucket > newest) {
+                    newest = bucket;
+                }
+                var slot = slot(bucket);
+                if (time[slot] == bucket) {
+                    if (delta.openTime() < openTime[slot]) {
+                        open[slot] = candle.open();
+                        openTime[slot] = delta.openTime();
+                    }
+                    high[slot] = Math.max(high[slot], candle.high());
+                    low[slot] = Math.min(low[slot], candle.low());
+                    if (delta.closeTime() >= closeTime[slot]) {
+                        close[slot] = candle.close();
+                        closeTime[slot] = delta.closeTime();
+                    }
+                    volume[slot] += candle.volume();
+                } else {
+                    time[slot] = bucket;
+                    open[slot] = candle.open();
+                    high[slot] = candle.high();
+                    low[slot] = candle.low();
+                    close[slot] = candle.close();
+                    volume[slot] = candle.volume();
+                    openTime[slot] = delta.openTime();
+                    closeTime[slot] = delta.closeTime();
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void coverFrom(long bucket) {
+            var stamp = lock.writeLock();
+            try {
+                coveredFrom = Math.max(coveredFrom, bucket);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Null when the range starts before the covered window.
+         */
+        List<Candle> read(long from, long to) {
+            while (true) {
+                var stamp = lock.tryOptimisticRead();
+                if (stamp == 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                var last = newest;
+                var windowStart = last == EMPTY ? coveredFrom : Math.max(coveredFrom, last - (capacity - 1) * seconds);
+                if (from < windowStart) {
+                    if (lock.validate(stamp)) {
+                        return null;
+                    }
+                    continue;
+                }
+                var candles = new ArrayList<Candle>();
+                var end = Math.min(to, last);
+                // bounded by the capacity as well, a racing write may have left an inconsistent newest
+                var bucket = Math.ceilDiv(from, seconds) * seconds;
+                for (int i = 0; i < capacity && bucket <= end; i++, bucket += seconds) {
+                    var slot = slot(bucket);
+                    if (time[slot] == bucket) {
+                        candles.add(new Candle(bucket, open[slot], high[slot], low[slot], close[slot], volume[slot]));
+                    }
+                }
+                if (lock.validate(stamp)) {
+                    return candles;
+                }
+            }
+        }
+
+        private int slot(long bucket) {
+            return (int) Math.floorMod(Math.floorDiv(bucket, seconds), (long) capacity);
+        }
+    }
+}
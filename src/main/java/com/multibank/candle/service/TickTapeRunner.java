@@ -0,0 +1,60 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.kafka.BidAskEventListener;
+import com.multibank.candle.tape.SimulatedTickTape;
+import com.multibank.candle.tape.TickTapeReplayer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Tick tape commands, run on startup before any listener container is started:
+ * with {@code candle.tape.simulate-file} a tape of the seeded simulator is written, then with
+ * {@code candle.tape.replay-file} a tape is pushed through {@link BidAskEventListener}. Both can be
+ * set to the same file to replay a freshly simulated workload. After a replay the containers stay
+ * stopped, see {@link com.multibank.candle.config.StartupManager}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnExpression("'${candle.tape.simulate-file:}' != '' or '${candle.tape.replay-file:}' != ''")
+public class TickTapeRunner implements ApplicationRunner {
+
+    private final BidAskEventListener bidAskEventListener;
+    private final CandleConfigProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        var tape = properties.getTape();
+        try {
+            if (tape.getSimulateFile() != null && !tape.getSimulateFile().isBlank()) {
+                var ticks = SimulatedTickTape.record(Path.of(tape.getSimulateFile()), properties.getSymbols(),
+                        tape.getSimulateSeed(), tape.getSimulateDuration(), tape.getSimulateFrom());
+                log.info("Simulated {} ticks to {} with seed {}", ticks, tape.getSimulateFile(), tape.getSimulateSeed());
+            }
+            if (tape.getReplayFile() != null && !tape.getReplayFile().isBlank()) {
+                replay(Path.of(tape.getReplayFile()), tape.getReplayBatchSize(), tape.getReplaySpeed());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void replay(Path file, int batchSize, double speed) throws IOException {
+        log.info("Replaying {} at {}", file, speed > 0 ? speed + "x" : "full speed");
+        long start = System.nanoTime();
+        var ticks = TickTapeReplayer.replay(file, batchSize, speed, bidAskEventListener::onReplay);
+        bidAskEventListener.onReplayEnd();
+        var seconds = (System.nanoTime() - start) / 1e9;
+        log.info("Replayed {} ticks in {}s -> {} ticks/s",
+                ticks, String.format("%.2f", seconds), String.format("%.0f", ticks / seconds));
+    }
+}
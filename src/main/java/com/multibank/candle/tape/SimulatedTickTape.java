@@ -0,0 +1,39 @@
+package com.multibank.candle.tape;
+
+import com.multibank.candle.service.PriceSimulator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the ticks {@link com.multibank.candle.scheduler.BidAskGeneratorScheduler} would send, one per
+ * symbol per second, from a seeded {@link PriceSimulator}: the same arguments always give the same tape.
+ */
+public final class SimulatedTickTape {
+
+    private SimulatedTickTape() {
+    }
+
+    /**
+     * @param symbols initial price of each symbol; symbols are visited in name order
+     * @return the number of ticks recorded
+     */
+    public static long record(Path tape, Map<String, Double> symbols, long seed, Duration duration,
+                              long fromEpochSecond) throws IOException {
+        var simulator = new PriceSimulator(seed);
+        var ordered = new TreeMap<>(symbols);
+        try (var writer = new TickTapeWriter(tape)) {
+            for (long second = 0; second < duration.toSeconds(); second++) {
+                var captureNanos = TimeUnit.SECONDS.toNanos(second);
+                for (var symbol : ordered.entrySet()) {
+                    writer.write(simulator.nextTick(symbol.getKey(), symbol.getValue(), fromEpochSecond + second), captureNanos);
+                }
+            }
+            return writer.count();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.multibank.candle.tape;
+
+/**
+ * On-disk layout of a tick tape, all numbers big-endian. The file starts with a header:
+ * <pre>
+ *   offset  size  field
+ *   0       4     magic ("TAPE")
+ *   4       1     version (1)
+ * </pre>
+ * followed by one record per tick:
+ * <pre>
+ *   size  field
+ *   2     symbol id, or -1 when the symbol appears for the first time
+ *   1     symbol length, only when symbol id is -1
+ *   n     symbol (UTF-8), only when symbol id is -1; it takes the next free id
+ *   8     bid (IEEE 754 double)
+ *   8     ask (IEEE 754 double)
+ *   8     timestamp (epoch seconds)
+ *   8     capture time, nanoseconds since the first tick of the tape
+ * </pre>
+ * Symbols are defined inline the first time they occur, so a recorder needs no dictionary up front
+ * and a tape is self-describing.
+ */
+final class TickTapeFormat {
+
+    static final int MAGIC = 0x54415045;
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 5;
+
+    static final short NEW_SYMBOL = -1;
+    static final int FIXED_SIZE = 34;
+    static final int MAX_SYMBOL_BYTES = 255;
+    static final int MAX_RECORD_SIZE = FIXED_SIZE + 1 + MAX_SYMBOL_BYTES;
+
+    private TickTapeFormat() {
+    }
+}
@@ -0,0 +1,100 @@
+package com.multibank.candle.tape;
+
+import com.multibank.candle.domain.BidAskEvent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.multibank.candle.tape.TickTapeFormat.*;
+
+/**
+ * Reads a tape sequentially through a read-only memory mapping, so replay is bounded by page-cache
+ * reads rather than by read calls. Tapes larger than one mapping are mapped window by window.
+ * Not thread-safe.
+ */
+public final class TickTapeReader implements Closeable {
+
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long windowSize;
+    private final List<String> symbols = new ArrayList<>();
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long captureNanos;
+
+    public TickTapeReader(Path file) throws IOException {
+        this(file, WINDOW_SIZE);
+    }
+
+    TickTapeReader(Path file, long windowSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowSize = Math.max(windowSize, MAX_RECORD_SIZE);
+        try {
+            map(0);
+            if (size < HEADER_SIZE || window.getInt() != MAGIC) {
+                throw new IOException("Not a tick tape: " + file);
+            }
+            var version = window.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported tick tape version " + version + ": " + file);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The next tick, or {@code null} at the end of the tape.
+     */
+    public BidAskEvent next() throws IOException {
+        var position = windowStart + window.position();
+        if (position >= size) {
+            return null;
+        }
+        if (window.remaining() < MAX_RECORD_SIZE && windowStart + window.limit() < size) {
+            map(position);
+        }
+        var id = window.getShort();
+        String symbol;
+        if (id == NEW_SYMBOL) {
+            var bytes = new byte[Byte.toUnsignedInt(window.get())];
+            window.get(bytes);
+            symbol = new String(bytes, StandardCharsets.UTF_8);
+            symbols.add(symbol);
+        } else {
+            symbol = symbols.get(id);
+        }
+        var event = new BidAskEvent(symbol, window.getDouble(), window.getDouble(), window.getLong());
+        captureNanos = window.getLong();
+        return event;
+    }
+
+    /**
+     * Capture time of the last tick returned by {@link #next()}, in nanoseconds since the first tick.
+     */
+    public long captureNanos() {
+        return captureNanos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void map(long position) throws IOException {
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+    }
+}
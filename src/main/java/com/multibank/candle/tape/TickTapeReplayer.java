@@ -0,0 +1,68 @@
+package com.multibank.candle.tape;
+
+import com.multibank.candle.domain.BidAskEvent;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Pushes a tape to a sink in batches, either as fast as the sink takes them ({@code speed} 0) or
+ * paced on the recorded capture times, scaled by {@code speed} (1 is real time, 10 ten times faster).
+ * When paced, a batch is handed over as soon as the next tick is not yet due, so ticks are never held back.
+ */
+public final class TickTapeReplayer {
+
+    private TickTapeReplayer() {
+    }
+
+    /**
+     * @return the number of ticks replayed
+     */
+    public static long replay(Path tape, int batchSize, double speed, Consumer<List<BidAskEvent>> sink) throws IOException {
+        if (batchSize <= 0 || speed < 0) {
+            throw new IllegalArgumentException("batchSize must be positive and speed not negative");
+        }
+        long count = 0;
+        var batch = new ArrayList<BidAskEvent>(batchSize);
+        try (var reader = new TickTapeReader(tape)) {
+            long start = System.nanoTime();
+            BidAskEvent event;
+            while ((event = reader.next()) != null) {
+                if (speed > 0) {
+                    long due = start + (long) (reader.captureNanos() / speed);
+                    if (due - System.nanoTime() > 0) {
+                        count += handOver(batch, sink);
+                        parkUntil(due);
+                    }
+                }
+                batch.add(event);
+                if (batch.size() == batchSize) {
+                    count += handOver(batch, sink);
+                }
+            }
+            count += handOver(batch, sink);
+        }
+        return count;
+    }
+
+    private static int handOver(ArrayList<BidAskEvent> batch, Consumer<List<BidAskEvent>> sink) {
+        var size = batch.size();
+        if (size > 0) {
+            // sinks may keep the list, so it is handed over rather than reused
+            sink.accept(List.copyOf(batch));
+            batch.clear();
+        }
+        return size;
+    }
+
+    private static void parkUntil(long due) {
+        long remaining;
+        while ((remaining = due - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.multibank.candle.tape;
+
+import com.multibank.candle.domain.BidAskEvent;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.multibank.candle.tape.TickTapeFormat.*;
+
+/**
+ * Appends ticks to a new tape file, see {@link TickTapeFormat}. Not thread-safe.
+ */
+public final class TickTapeWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final DataOutputStream out;
+    private final Map<String, Short> symbolIds = new HashMap<>();
+    private long count;
+
+    public TickTapeWriter(Path file) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    /**
+     * @param captureNanos when the tick was seen, in nanoseconds since the first tick of the tape
+     */
+    public void write(BidAskEvent event, long captureNanos) throws IOException {
+        var id = symbolIds.get(event.symbol());
+        if (id != null) {
+            out.writeShort(id);
+        } else {
+            var symbol = event.symbol().getBytes(StandardCharsets.UTF_8);
+            if (symbol.length > MAX_SYMBOL_BYTES) {
+                throw new IllegalArgumentException("Symbol too long for a tick tape: " + event.symbol());
+            }
+            if (symbolIds.size() == Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many symbols for a tick tape: " + symbolIds.size());
+            }
+            symbolIds.put(event.symbol(), (short) symbolIds.size());
+            out.writeShort(NEW_SYMBOL);
+            out.writeByte(symbol.length);
+            out.write(symbol);
+        }
+        out.writeDouble(event.bid());
+        out.writeDouble(event.ask());
+        out.writeLong(event.timestamp());
+        out.writeLong(captureNanos);
+        count++;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
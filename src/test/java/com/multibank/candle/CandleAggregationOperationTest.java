@@ -4,8 +4,8 @@ import com.multibank.candle.config.CandleConfigProperties;
 import com.multibank.candle.domain.BidAskEvent;
 import com.multibank.candle.kafka.BidAskProducer;
 import com.multibank.candle.repository.CandleRepository;
-import com.multibank.candle.repository.entity.CandleId;
 import com.multibank.candle.service.CandleAggregationOperation;
+import com.multibank.candle.service.CandleKeyRegistry;
 import com.multibank.candle.utils.IntegrationTestConfig;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -36,6 +36,9 @@ class CandleAggregationOperationTest extends IntegrationTestConfig {
     @Autowired
     private CandleConfigProperties candleConfigProperties;
 
+    @Autowired
+    private CandleKeyRegistry keyRegistry;
+
     @Test
     @DisplayName("Creates a new candle when none exists for symbol+timeframe+bucket")
     void shouldCreateNewCandleWhenNotExists() {
@@ -52,7 +55,7 @@ class CandleAggregationOperationTest extends IntegrationTestConfig {
         var tfSeconds = tf.getSeconds();
         var candleStart = (timestamp / tfSeconds) * tfSeconds;
 
-        var id = new CandleId(symbol, tf.getCode(), candleStart);
+        var id = keyRegistry.candleId(symbol, tf.getCode(), candleStart);
 
         // no candle exists
         assertThat(candleRepository.findByCandleId(id)).isEmpty();
@@ -71,8 +74,8 @@ class CandleAggregationOperationTest extends IntegrationTestConfig {
         var candle = candleRepository.findByCandleId(id)
                 .orElseThrow(() -> new AssertionError("Candle should exist after onEvent"));
 
-        assertThat(candle.getCandleId().getSymbol()).isEqualTo(symbol);
-        assertThat(candle.getCandleId().getTimeframe()).isEqualTo(tf.getCode());
+        assertThat(candle.getCandleId().getSymbolId()).isEqualTo(keyRegistry.findSymbolId(symbol));
+        assertThat(candle.getCandleId().getTimeframeId()).isEqualTo(keyRegistry.timeframeId(tf.getCode()));
         assertThat(candle.getCandleId().getTime()).isEqualTo(candleStart);
 
         assertThat(candle.getOpen()).isEqualTo(mid);
@@ -94,7 +97,7 @@ class CandleAggregationOperationTest extends IntegrationTestConfig {
         var tf = candleConfigProperties.getTimeframes().get(0);
         var tfSeconds = tf.getSeconds();
         var candleStart = (timestamp / tfSeconds) * tfSeconds;
-        var id = new CandleId(symbol, tf.getCode(), candleStart);
+        var id = keyRegistry.candleId(symbol, tf.getCode(), candleStart);
 
         var bid1 = 100.0;
         var ask1 = 102.0;
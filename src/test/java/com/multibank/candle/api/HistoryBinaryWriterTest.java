@@ -0,0 +1,86 @@
+package com.multibank.candle.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.multibank.candle.api.dto.HistoryResponse;
+import com.multibank.candle.domain.Candle;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryBinaryWriterTest {
+
+    @Test
+    @DisplayName("Prices on a tick grid are scaled and decode to the exact doubles, several times smaller than JSON")
+    void shouldRoundTripScaledPrices() throws IOException {
+
+        // GIVEN
+        var candles = new ArrayList<Candle>();
+        for (int i = 0; i < 10_000; i++) {
+            var price = 100_000.0 + (i % 500) * 0.25 - (i % 7) * 0.01;
+            candles.add(new Candle(1_700_000_000L + i * 60L, price, price + 5.5, price - 4.75, price + 1.25, 10L + i % 300));
+        }
+        var response = HistoryResponse.of(candles);
+
+        // WHEN
+        var payload = write(response);
+        var decoded = HistoryBinaryDecoder.decode(payload);
+
+        // THEN
+        assertThat(HistoryBinaryWriter.priceScale(response)).isEqualTo(2);
+        assertSameColumns(decoded, response);
+        var json = new ObjectMapper().writeValueAsBytes(response);
+        assertThat(payload.length * 4).isLessThan(json.length);
+    }
+
+    @Test
+    @DisplayName("Prices that are not on a decimal grid are sent as raw doubles and decode exactly")
+    void shouldRoundTripRawPrices() throws IOException {
+
+        // GIVEN
+        var candles = List.of(
+                new Candle(1_000L, 1.0 / 3, Math.PI, Math.E, -0.1, 0L),
+                new Candle(940L, Double.MAX_VALUE, Double.MIN_VALUE, 1e-9, 2.0, Long.MAX_VALUE));
+        var response = HistoryResponse.of(candles);
+
+        // WHEN
+        var decoded = HistoryBinaryDecoder.decode(write(response));
+
+        // THEN
+        assertThat(HistoryBinaryWriter.priceScale(response)).isEqualTo(-1);
+        assertSameColumns(decoded, response);
+    }
+
+    @Test
+    @DisplayName("An empty history decodes as no_data")
+    void shouldRoundTripNoData() throws IOException {
+
+        var payload = write(HistoryResponse.noData());
+
+        assertThat(payload).hasSize(5);
+        var decoded = HistoryBinaryDecoder.decode(payload);
+        assertThat(decoded.s()).isEqualTo(HistoryResponse.NO_DATA);
+        assertThat(decoded.size()).isZero();
+    }
+
+    private static void assertSameColumns(HistoryResponse actual, HistoryResponse expected) {
+        assertThat(actual.s()).isEqualTo(expected.s());
+        assertThat(actual.t()).isEqualTo(expected.t());
+        assertThat(actual.o()).isEqualTo(expected.o());
+        assertThat(actual.h()).isEqualTo(expected.h());
+        assertThat(actual.l()).isEqualTo(expected.l());
+        assertThat(actual.c()).isEqualTo(expected.c());
+        assertThat(actual.v()).isEqualTo(expected.v());
+    }
+
+    private static byte[] write(HistoryResponse response) throws IOException {
+        var out = new ByteArrayOutputStream();
+        new HistoryBinaryWriter(out).write(response);
+        return out.toByteArray();
+    }
+}
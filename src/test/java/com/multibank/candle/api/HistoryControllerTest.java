@@ -3,6 +3,8 @@ package com.multibank.candle.api;
 import com.multibank.candle.config.CandleConfigProperties;
 import com.multibank.candle.config.TimeFrameConfig;
 import com.multibank.candle.repository.CandleRepository;
+import com.multibank.candle.repository.entity.CandleEntity;
+import com.multibank.candle.service.CandleKeyRegistry;
 import com.multibank.candle.utils.IntegrationTestConfig;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,10 +12,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static com.multibank.candle.utils.TestHelpers.candle;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -29,6 +34,9 @@ class HistoryControllerTest extends IntegrationTestConfig {
     @Autowired
     private CandleConfigProperties candleConfigProperties;
 
+    @Autowired
+    private CandleKeyRegistry keyRegistry;
+
     @Test
     @DisplayName("GET /history returns candles for symbol+interval within [from,to] ordered by time")
     void shouldReturnHistoryOk() throws Exception {
@@ -45,16 +53,16 @@ class HistoryControllerTest extends IntegrationTestConfig {
         var t3 = base + 2 * tf.getSeconds();
         var tOut = base + 3 * tf.getSeconds(); // outside range
 
-        var c1 = candle(symbol, tf.getCode(), t1, 100.0, 105.0, 99.0, 102.0, 10L);
-        var c2 = candle(symbol, tf.getCode(), t2, 102.0, 110.0, 101.0, 108.0, 15L);
-        var c3 = candle(symbol, tf.getCode(), t3, 108.0, 112.0, 107.0, 111.0, 20L);
-        var cOut = candle(symbol, tf.getCode(), tOut, 111.0, 115.0, 110.0, 114.0, 5L);
+        var c1 = candle(keyRegistry.candleId(symbol, tf.getCode(), t1), 100.0, 105.0, 99.0, 102.0, 10L);
+        var c2 = candle(keyRegistry.candleId(symbol, tf.getCode(), t2), 102.0, 110.0, 101.0, 108.0, 15L);
+        var c3 = candle(keyRegistry.candleId(symbol, tf.getCode(), t3), 108.0, 112.0, 107.0, 111.0, 20L);
+        var cOut = candle(keyRegistry.candleId(symbol, tf.getCode(), tOut), 111.0, 115.0, 110.0, 114.0, 5L);
 
         // another symbol → should not be returned
-        var otherSymbol = candle("ETH-USD", tf.getCode(), t2, 2000.0, 2010.0, 1995.0, 2005.0, 7L);
+        var otherSymbol = candle(keyRegistry.candleId("ETH-USD", tf.getCode(), t2), 2000.0, 2010.0, 1995.0, 2005.0, 7L);
 
         // another timeframe → should not be returned
-        var otherTf = candle(symbol, "5m", t2, 300.0, 310.0, 295.0, 305.0, 3L);
+        var otherTf = candle(keyRegistry.candleId(symbol, "5m", t2), 300.0, 310.0, 295.0, 305.0, 3L);
 
         candleRepository.saveAll(List.of(c1, c2, c3, cOut, otherSymbol, otherTf));
 
@@ -81,6 +89,67 @@ class HistoryControllerTest extends IntegrationTestConfig {
                 .andExpect(jsonPath("$.v[0]").value(10));
     }
 
+    @Test
+    @DisplayName("GET /history returns the binary columnar layout when the client accepts it")
+    void shouldReturnBinaryHistory() throws Exception {
+
+        // GIVEN
+        var tf = TimeFrameConfig.fromCode(candleConfigProperties.getTimeframes(), "1m");
+        var base = 3_000_000L;
+        var c1 = candle(keyRegistry.candleId(BTC_USD, tf.getCode(), base), 100.0, 105.0, 99.0, 102.0, 10L);
+        var c2 = candle(keyRegistry.candleId(BTC_USD, tf.getCode(), base + tf.getSeconds()), 102.0, 110.5, 101.0, 108.25, 15L);
+        candleRepository.saveAll(List.of(c1, c2));
+
+        // WHEN
+        var payload = mockMvc.perform(get("/api/v1/candles/history")
+                        .accept(HistoryBinaryFormat.MEDIA_TYPE_VALUE)
+                        .param("symbol", BTC_USD)
+                        .param("interval", tf.getCode())
+                        .param("from", String.valueOf(base))
+                        .param("to", String.valueOf(base + tf.getSeconds())))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(HistoryBinaryFormat.MEDIA_TYPE_VALUE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // THEN
+        var history = HistoryBinaryDecoder.decode(payload);
+        assertThat(history.s()).isEqualTo("ok");
+        assertThat(history.t()).containsExactly(base, base + tf.getSeconds());
+        assertThat(history.h()).containsExactly(105.0, 110.5);
+        assertThat(history.c()).containsExactly(102.0, 108.25);
+        assertThat(history.v()).containsExactly(10L, 15L);
+    }
+
+    @Test
+    @DisplayName("GET /history/stream writes one NDJSON line per candle in range, ordered by time")
+    void shouldStreamHistory() throws Exception {
+
+        // GIVEN
+        var tf = TimeFrameConfig.fromCode(candleConfigProperties.getTimeframes(), "1m");
+        var base = 4_000_000L;
+        var candles = new ArrayList<CandleEntity>();
+        for (int i = 0; i < 2_500; i++) {
+            candles.add(candle(keyRegistry.candleId(BTC_USD, tf.getCode(), base + i * tf.getSeconds()), 100.0, 105.0, 99.0, 102.0, i));
+        }
+        candleRepository.saveAll(candles);
+
+        // WHEN
+        var body = mockMvc.perform(get("/api/v1/candles/history/stream")
+                        .param("symbol", BTC_USD)
+                        .param("interval", tf.getCode())
+                        .param("from", String.valueOf(base + tf.getSeconds()))
+                        .param("to", String.valueOf(base + 2_000 * tf.getSeconds())))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        // THEN
+        var lines = body.split("\n");
+        assertThat(lines).hasSize(2_000);
+        assertThat(lines[0]).isEqualTo("{\"t\":" + (base + tf.getSeconds()) + ",\"o\":100.0,\"h\":105.0,\"l\":99.0,\"c\":102.0,\"v\":1}");
+        assertThat(lines[1_999]).endsWith("\"v\":2000}");
+    }
+
     @Test
     @DisplayName("GET /history returns no_data when there are no candles in range")
     void shouldReturnNoDataWhenEmpty() throws Exception {
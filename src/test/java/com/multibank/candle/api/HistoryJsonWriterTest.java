@@ -0,0 +1,119 @@
+package com.multibank.candle.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.multibank.candle.api.dto.BatchHistoryResponse;
+import com.multibank.candle.api.dto.HistoryResponse;
+import com.multibank.candle.domain.Candle;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryJsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("The streamed JSON is byte for byte what Jackson writes for the same response")
+    void shouldWriteWhatJacksonWrites() throws IOException {
+
+        // GIVEN: enough candles to flush the buffer several times, with awkward numbers
+        var candles = new ArrayList<Candle>();
+        for (int i = 0; i < 5_000; i++) {
+            var price = 100_000.0 + i * 0.37;
+            candles.add(new Candle(1_700_000_000L + i, price, price * 1.0001, 1e-7 * i, -price, i * 1_000_003L));
+        }
+        candles.add(new Candle(Long.MAX_VALUE, Double.MAX_VALUE, Double.MIN_VALUE, 1e21, 0.0, Long.MIN_VALUE));
+        var response = HistoryResponse.of(candles);
+
+        // WHEN
+        var written = write(response);
+
+        // THEN
+        assertThat(written).isEqualTo(objectMapper.writeValueAsString(response));
+    }
+
+    @Test
+    @DisplayName("Doubles are formatted exactly as Double.toString, in and out of plain notation")
+    void shouldFormatDoublesAsToString() throws IOException {
+
+        // GIVEN
+        var random = new Random(11);
+        var values = new ArrayList<Double>(List.of(0.0, -0.0, 0.001, 0.000999, 9_999_999.999, 1e7, 0.1 + 0.2,
+                100_000.0, 1.0 / 3, -42.5, Double.NaN, Double.POSITIVE_INFINITY));
+        for (int i = 0; i < 20_000; i++) {
+            values.add(Math.round(random.nextDouble() * 1e8) / 100.0);
+            values.add(random.nextDouble() * Math.pow(10, random.nextInt(-5, 9)));
+            values.add(Double.longBitsToDouble(random.nextLong()));
+        }
+        var column = values.stream().mapToDouble(Double::doubleValue).toArray();
+        var response = new HistoryResponse("ok", new long[0], column, new double[0], new double[0], new double[0], new long[0]);
+
+        // WHEN
+        var written = write(response);
+
+        // THEN
+        assertThat(written).isEqualTo(objectMapper.writeValueAsString(response));
+    }
+
+    @Test
+    @DisplayName("An empty history is written as no_data with empty columns")
+    void shouldWriteNoData() throws IOException {
+
+        var written = write(HistoryResponse.of(List.of()));
+
+        assertThat(written).isEqualTo("{\"s\":\"no_data\",\"t\":[],\"o\":[],\"h\":[],\"l\":[],\"c\":[],\"v\":[]}");
+    }
+
+    @Test
+    @DisplayName("A batch is written as Jackson writes it, with symbols escaped as JSON strings")
+    void shouldWriteBatchWhatJacksonWrites() throws IOException {
+
+        // GIVEN: symbols echo the request, so they may hold anything
+        var candles = new ArrayList<Candle>();
+        for (int i = 0; i < 2_000; i++) {
+            candles.add(new Candle(1_700_000_000L + i * 60L, 100.5 + i, 101.25 + i, 99.0 + i, 100.75 + i, i));
+        }
+        var response = new BatchHistoryResponse(List.of(
+                new BatchHistoryResponse.Series("BTC-USD", "1m", HistoryResponse.of(candles)),
+                new BatchHistoryResponse.Series("a\"b\\c\n\t\u0001\u007f", "3m", HistoryResponse.of(List.of())),
+                new BatchHistoryResponse.Series("\u00e9\u20ac\uD83D\uDE80", "1w", HistoryResponse.of(candles.subList(0, 3)))));
+
+        // WHEN
+        var out = new ByteArrayOutputStream();
+        new HistoryJsonWriter(out).write(response);
+
+        // THEN
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(objectMapper.writeValueAsString(response));
+    }
+
+    @Test
+    @DisplayName("Streamed rows are one JSON object per line with the column names as keys")
+    void shouldWriteRows() throws IOException {
+
+        var out = new ByteArrayOutputStream();
+        var writer = new HistoryJsonWriter(out);
+        for (int i = 0; i < 2_000; i++) {
+            writer.writeRow(new Candle(1_700_000_000L + i, 100.25, 105.0, 99.5, 102.125, 10L + i));
+        }
+        writer.flush();
+
+        var lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2_000);
+        assertThat(lines[0]).isEqualTo("{\"t\":1700000000,\"o\":100.25,\"h\":105.0,\"l\":99.5,\"c\":102.125,\"v\":10}");
+        assertThat(objectMapper.readTree(lines[1_999]).get("v").asLong()).isEqualTo(2_009L);
+    }
+
+    private static String write(HistoryResponse response) throws IOException {
+        var out = new ByteArrayOutputStream();
+        new HistoryJsonWriter(out).write(response);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,108 @@
+package com.multibank.candle.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.multibank.candle.api.dto.HistoryResponse;
+import com.multibank.candle.domain.Candle;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures bytes allocated and time per history response for a day of 1s candles, comparing the
+ * former boxed lists serialized by Jackson with the primitive columns streamed by {@link HistoryJsonWriter}
+ * and {@link HistoryBinaryWriter}, and the payload sizes of both formats.
+ * Run with {@code mvn test -Dtest=HistoryResponseBenchmarkTest -Dbenchmark=true}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class HistoryResponseBenchmarkTest {
+
+    private static final int CANDLES = 86_400;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 200;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Benchmark: streamed primitive columns vs boxed lists through Jackson")
+    void compareAllocation() throws IOException {
+
+        var candles = candles();
+        var boxed = run("boxed lists + Jackson", () -> objectMapper.writeValue(OutputStream.nullOutputStream(), boxed(candles)));
+        var streamed = run("primitive columns + writer",
+                () -> new HistoryJsonWriter(OutputStream.nullOutputStream()).write(HistoryResponse.of(candles)));
+
+        run("primitive columns + binary",
+                () -> new HistoryBinaryWriter(OutputStream.nullOutputStream()).write(HistoryResponse.of(candles)));
+
+        var json = new ByteArrayOutputStream();
+        new HistoryJsonWriter(json).write(HistoryResponse.of(candles));
+        var binary = new ByteArrayOutputStream();
+        new HistoryBinaryWriter(binary).write(HistoryResponse.of(candles));
+        log.info("payload: json {} bytes, binary {} bytes ({}x smaller)",
+                json.size(), binary.size(), String.format("%.1f", (double) json.size() / binary.size()));
+
+        log.info("streaming allocates {}x less per request", String.format("%.1f", (double) boxed / Math.max(1, streamed)));
+        assertThat(streamed).isLessThan(boxed);
+        assertThat(binary.size()).isLessThan(json.size());
+    }
+
+    private static long run(String name, Request request) throws IOException {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP; i++) {
+            request.run();
+        }
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            request.run();
+        }
+        var millis = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+        var bytes = (threads.getCurrentThreadAllocatedBytes() - allocatedBefore) / ITERATIONS;
+        log.info("{}: {} bytes allocated/request ({} per candle), {} ms/request",
+                name, bytes, bytes / CANDLES, String.format("%.2f", millis));
+        return bytes;
+    }
+
+    private static BoxedHistory boxed(List<Candle> candles) {
+        var boxed = new BoxedHistory("ok", new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        for (Candle candle : candles) {
+            boxed.t().add(candle.time());
+            boxed.o().add(candle.open());
+            boxed.h().add(candle.high());
+            boxed.l().add(candle.low());
+            boxed.c().add(candle.close());
+            boxed.v().add(candle.volume());
+        }
+        return boxed;
+    }
+
+    private static List<Candle> candles() {
+        var candles = new ArrayList<Candle>(CANDLES);
+        for (int i = 0; i < CANDLES; i++) {
+            var price = 100_000.0 + (i % 1_000) * 0.25;
+            candles.add(new Candle(1_700_000_000L + i, price, price + 5.5, price - 4.75, price + 1.25, 10L + i % 50));
+        }
+        return candles;
+    }
+
+    private interface Request {
+        void run() throws IOException;
+    }
+
+    // the response shape before columns became primitive arrays
+    private record BoxedHistory(String s, List<Long> t, List<Double> o, List<Double> h, List<Double> l,
+                                List<Double> c, List<Long> v) {
+    }
+}
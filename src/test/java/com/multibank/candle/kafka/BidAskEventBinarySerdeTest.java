@@ -0,0 +1,95 @@
+package com.multibank.candle.kafka;
+
+import com.multibank.candle.domain.BidAskEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static com.multibank.candle.utils.IntegrationTestConfig.BTC_USD;
+import static com.multibank.candle.utils.IntegrationTestConfig.TOPIC;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BidAskEventBinarySerdeTest {
+
+    private static final Map<String, Object> CONFIGS = Map.of(BidAskEventBinaryFormat.SYMBOLS_CONFIG, "BTC-USD, ETH-USD");
+
+    private BidAskEventBinarySerializer serializer;
+    private BidAskEventBinaryDeserializer deserializer;
+
+    @BeforeEach
+    void setUp() {
+        serializer = new BidAskEventBinarySerializer();
+        serializer.configure(CONFIGS, false);
+        deserializer = new BidAskEventBinaryDeserializer();
+        deserializer.configure(CONFIGS, false);
+    }
+
+    @Test
+    @DisplayName("Dictionary symbols round-trip in the fixed 27 byte layout and reuse the configured instance")
+    void shouldRoundTripDictionarySymbol() {
+        var event = new BidAskEvent(BTC_USD, 100_000.25, 100_050.75, 1_700_000_000L);
+
+        var data = serializer.serialize(TOPIC, event);
+        var read = deserializer.deserialize(TOPIC, data);
+
+        assertThat(data).hasSize(BidAskEventBinaryFormat.FIXED_SIZE);
+        assertThat(read).isEqualTo(event);
+        assertThat(deserializer.deserialize(TOPIC, data).symbol()).isSameAs(read.symbol());
+    }
+
+    @Test
+    @DisplayName("Symbols outside the dictionary are written inline")
+    void shouldRoundTripInlineSymbol() {
+        var event = new BidAskEvent("SOL-USD", 150.5, 150.6, 1_700_000_001L);
+
+        var data = serializer.serialize(TOPIC, event);
+
+        assertThat(data).hasSize(BidAskEventBinaryFormat.FIXED_SIZE + 1 + "SOL-USD".length());
+        assertThat(deserializer.deserialize(TOPIC, data)).isEqualTo(event);
+    }
+
+    @Test
+    @DisplayName("JSON payloads written before the switch-over are still readable")
+    void shouldReadJsonPayloads() {
+        var event = new BidAskEvent(BTC_USD, 100.0, 102.0, 1_700_000_002L);
+
+        try (var json = new JsonSerializer<BidAskEvent>()) {
+            var data = json.serialize(TOPIC, event);
+
+            assertThat(deserializer.deserialize(TOPIC, data)).isEqualTo(event);
+        }
+    }
+
+    @Test
+    @DisplayName("Unknown versions, dictionary ids and truncated payloads are rejected")
+    void shouldRejectUnknownPayloads() {
+        var data = serializer.serialize(TOPIC, new BidAskEvent("ETH-USD", 1.0, 2.0, 3L));
+
+        var unknownId = data.clone();
+        unknownId[2] = 9;
+        assertThatThrownBy(() -> deserializer.deserialize(TOPIC, unknownId))
+                .isInstanceOf(SerializationException.class)
+                .hasMessage("Unknown symbol id 9, dictionary has 2 entries");
+
+        var inline = serializer.serialize(TOPIC, new BidAskEvent("SOL-USD", 1.0, 2.0, 3L));
+        var truncated = Arrays.copyOf(inline, inline.length - 2);
+        assertThatThrownBy(() -> deserializer.deserialize(TOPIC, truncated))
+                .isInstanceOf(SerializationException.class)
+                .hasMessage("Truncated inline symbol, payload has 33 bytes");
+        var noLength = Arrays.copyOf(inline, BidAskEventBinaryFormat.FIXED_SIZE);
+        assertThatThrownBy(() -> deserializer.deserialize(TOPIC, noLength))
+                .isInstanceOf(SerializationException.class);
+
+        var unknownVersion = data.clone();
+        unknownVersion[0] = 7;
+        assertThatThrownBy(() -> deserializer.deserialize(TOPIC, unknownVersion))
+                .isInstanceOf(SerializationException.class)
+                .hasMessage("Unsupported bid/ask payload, version=7");
+    }
+}
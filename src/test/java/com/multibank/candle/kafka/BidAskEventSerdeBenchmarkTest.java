@@ -0,0 +1,76 @@
+package com.multibank.candle.kafka;
+
+import com.multibank.candle.domain.BidAskEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+
+import static com.multibank.candle.utils.IntegrationTestConfig.TOPIC;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares payload size and serialize + deserialize throughput of the JSON and binary formats.
+ * Run with {@code mvn test -Dtest=BidAskEventSerdeBenchmarkTest -Dbenchmark=true}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BidAskEventSerdeBenchmarkTest {
+
+    private static final String[] SYMBOLS = {"BTC-USD", "ETH-USD", "XAU-USD"};
+    private static final int WARMUP = 500_000;
+    private static final int ITERATIONS = 2_000_000;
+
+    @Test
+    @DisplayName("Benchmark: binary vs JSON bid/ask serde")
+    void compareFormats() {
+
+        var configs = Map.<String, Object>of(
+                BidAskEventBinaryFormat.SYMBOLS_CONFIG, String.join(",", SYMBOLS),
+                JsonDeserializer.TRUSTED_PACKAGES, "com.multibank.candle.domain",
+                JsonDeserializer.VALUE_DEFAULT_TYPE, BidAskEvent.class.getName());
+
+        var json = run("json", new JsonSerializer<>(), new JsonDeserializer<>(), configs);
+        var binary = run("binary", new BidAskEventBinarySerializer(), new BidAskEventBinaryDeserializer(), configs);
+
+        log.info("binary is {}x faster than JSON", String.format("%.1f", binary / json));
+        assertThat(binary).isPositive();
+    }
+
+    private static double run(String name, Serializer<BidAskEvent> serializer,
+                              Deserializer<BidAskEvent> deserializer, Map<String, Object> configs) {
+
+        serializer.configure(configs, false);
+        deserializer.configure(configs, false);
+
+        long checksum = loop(serializer, deserializer, WARMUP);
+        long start = System.nanoTime();
+        checksum += loop(serializer, deserializer, ITERATIONS);
+        var seconds = (System.nanoTime() - start) / 1e9;
+
+        var size = serializer.serialize(TOPIC, event(0)).length;
+        var perSecond = ITERATIONS / seconds;
+        log.info("{}: {} bytes/record, {} round trips/s (checksum {})",
+                name, size, String.format("%.0f", perSecond), checksum);
+        return perSecond;
+    }
+
+    private static long loop(Serializer<BidAskEvent> serializer, Deserializer<BidAskEvent> deserializer, int iterations) {
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            var read = deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, event(i)));
+            checksum += read.timestamp();
+        }
+        return checksum;
+    }
+
+    private static BidAskEvent event(int i) {
+        return new BidAskEvent(SYMBOLS[i % SYMBOLS.length], 100_000.0 + i * 0.01, 100_050.0 + i * 0.01, 1_700_000_000L + i);
+    }
+}
@@ -0,0 +1,70 @@
+package com.multibank.candle.kafka;
+
+import com.multibank.candle.domain.BidAskEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.multibank.candle.utils.IntegrationTestConfig.BTC_USD;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BidAskProducerTest {
+
+    @Mock
+    private KafkaTemplate<String, BidAskEvent> kafkaTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BidAskProducer producer;
+
+    @BeforeEach
+    void setUp() {
+        producer = new BidAskProducer(kafkaTemplate, "bid-ask-events", 2, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Sends are refused once the in-flight bound is reached and accepted again on acknowledgment")
+    void shouldRefuseSendsWhenSaturated() {
+
+        // GIVEN
+        var first = new CompletableFuture<SendResult<String, BidAskEvent>>();
+        var second = new CompletableFuture<SendResult<String, BidAskEvent>>();
+        var sends = new ArrayDeque<>(List.of(first, second, new CompletableFuture<>()));
+        when(kafkaTemplate.send(eq("bid-ask-events"), anyString(), any(BidAskEvent.class)))
+                .thenAnswer(invocation -> sends.poll());
+        var event = new BidAskEvent(BTC_USD, 100.0, 102.0, 1_000L);
+
+        // WHEN
+        assertThat(producer.trySend(event)).isTrue();
+        assertThat(producer.trySend(event)).isTrue();
+
+        // THEN
+        assertThat(producer.trySend(event)).isFalse();
+        assertThat(meterRegistry.get("candle.producer.inflight").gauge().value()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("candle.producer.saturated").counter().count()).isEqualTo(1.0);
+
+        // WHEN: one record is acknowledged and the other fails
+        first.complete(null);
+        second.completeExceptionally(new RuntimeException("broker down"));
+
+        // THEN
+        assertThat(producer.trySend(event)).isTrue();
+        assertThat(meterRegistry.get("candle.producer.inflight").gauge().value()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("candle.producer.errors").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("candle.producer.send").timer().count()).isEqualTo(2L);
+    }
+}
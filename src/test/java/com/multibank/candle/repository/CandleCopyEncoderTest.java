@@ -0,0 +1,60 @@
+package com.multibank.candle.repository;
+
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.repository.entity.CandleId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CandleCopyEncoderTest {
+
+    @Test
+    @DisplayName("Rows are encoded in the PostgreSQL binary COPY format with a fixed size")
+    void shouldEncodeRowsInBinaryCopyFormat() {
+
+        // GIVEN
+        var delta = new CandleDelta(new CandleId(7, (short) 3, 1_000_020L),
+                new Candle(1_000_020L, 100.0, 104.0, 99.0, 103.0, 5L), 1_000_021L, 1_000_079L);
+        var buffer = ByteBuffer.allocate(256);
+
+        // WHEN
+        CandleCopyEncoder.header(buffer);
+        CandleCopyEncoder.row(buffer, delta);
+        CandleCopyEncoder.trailer(buffer);
+
+        // THEN
+        assertThat(buffer.position()).isEqualTo(CandleCopyEncoder.HEADER_BYTES + CandleCopyEncoder.ROW_BYTES
+                + CandleCopyEncoder.TRAILER_BYTES);
+
+        buffer.flip();
+        var signature = new byte[11];
+        buffer.get(signature);
+        assertThat(new String(signature, 0, 5)).isEqualTo("PGCOP");
+        assertThat(buffer.getInt()).isZero();
+        assertThat(buffer.getInt()).isZero();
+
+        assertThat(buffer.getShort()).isEqualTo((short) 10);
+        assertThat(buffer.getInt()).isEqualTo(4);
+        assertThat(buffer.getInt()).isEqualTo(7);
+        assertThat(buffer.getInt()).isEqualTo(2);
+        assertThat(buffer.getShort()).isEqualTo((short) 3);
+        assertThat(buffer.getInt()).isEqualTo(8);
+        assertThat(buffer.getLong()).isEqualTo(1_000_020L);
+        for (double price : new double[]{100.0, 104.0, 99.0, 103.0}) {
+            assertThat(buffer.getInt()).isEqualTo(8);
+            assertThat(buffer.getDouble()).isEqualTo(price);
+        }
+        assertThat(buffer.getInt()).isEqualTo(8);
+        assertThat(buffer.getLong()).isEqualTo(5L);
+        for (long time : new long[]{1_000_021L, 1_000_079L}) {
+            assertThat(buffer.getInt()).isEqualTo(8);
+            assertThat(buffer.getLong()).isEqualTo(time);
+        }
+        assertThat(buffer.getShort()).isEqualTo((short) -1);
+        assertThat(buffer.hasRemaining()).isFalse();
+    }
+}
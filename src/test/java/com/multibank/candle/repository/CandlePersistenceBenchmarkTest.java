@@ -0,0 +1,81 @@
+package com.multibank.candle.repository;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.repository.entity.CandleId;
+import com.multibank.candle.utils.IntegrationTestConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the JPA read-modify-write path with the JDBC upsert path on the same workload.
+ * Run with {@code mvn test -Dtest=CandlePersistenceBenchmarkTest -Dbenchmark=true}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CandlePersistenceBenchmarkTest extends IntegrationTestConfig {
+
+    private static final int CANDLES_PER_FLUSH = 1_000;
+    private static final int FLUSHES = 50;
+
+    @Autowired
+    private CandleRepository candleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CandleConfigProperties properties;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    @DisplayName("Benchmark: JDBC upsert vs JPA read-modify-write")
+    void compareWritePaths() {
+
+        var jpa = run("jpa", new JpaCandlePersistenceStrategy(candleRepository));
+        candleRepository.deleteAll();
+        var jdbc = run("jdbc", new JdbcUpsertCandlePersistenceStrategy(jdbcTemplate, properties));
+
+        log.info("JDBC upsert is {}x faster than JPA", String.format("%.1f", jdbc / jpa));
+        assertThat(candleRepository.count()).isEqualTo(CANDLES_PER_FLUSH);
+    }
+
+    private double run(String name, CandlePersistenceStrategy strategy) {
+
+        long start = System.nanoTime();
+        for (int flush = 0; flush < FLUSHES; flush++) {
+            var deltas = deltas(flush);
+            transactionTemplate.executeWithoutResult(status -> strategy.merge(deltas));
+        }
+        var seconds = (System.nanoTime() - start) / 1e9;
+        var rowsPerSecond = CANDLES_PER_FLUSH * FLUSHES / seconds;
+
+        log.info("{}: {} flushes of {} candles in {}s -> {} rows/s",
+                name, FLUSHES, CANDLES_PER_FLUSH, String.format("%.2f", seconds), String.format("%.0f", rowsPerSecond));
+        return rowsPerSecond;
+    }
+
+    private static List<CandleDelta> deltas(int flush) {
+        var deltas = new ArrayList<CandleDelta>(CANDLES_PER_FLUSH);
+        for (int i = 0; i < CANDLES_PER_FLUSH; i++) {
+            var price = 100.0 + flush;
+            // raw ids: candles does not reference the dictionaries, so the benchmark skips registration
+            var id = new CandleId(1_000 + i, (short) 1, 1_000_020L);
+            deltas.add(new CandleDelta(id, new Candle(id.getTime(), price, price + 1, price - 1, price, 10L)));
+        }
+        return deltas;
+    }
+}
@@ -0,0 +1,130 @@
+package com.multibank.candle.repository;
+
+import com.multibank.candle.domain.BulkLoadMode;
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.service.CandleKeyRegistry;
+import com.multibank.candle.utils.IntegrationTestConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = "candle.persistence.copy-chunk-rows=100")
+class CopyCandleBulkLoaderTest extends IntegrationTestConfig {
+
+    @Autowired
+    private CopyCandleBulkLoader bulkLoader;
+
+    @Autowired
+    private CandleRepository candleRepository;
+
+    @Autowired
+    private CandleKeyRegistry keyRegistry;
+
+    @Test
+    @DisplayName("COPY loads candles in chunks and merges them into the stored ones")
+    void shouldLoadAndMergeCandlesInChunks() {
+
+        // GIVEN
+        var candles = new ArrayList<CandleDelta>();
+        for (int i = 0; i < 250; i++) {
+            var time = 1_000_000L + i * 60L;
+            candles.add(new CandleDelta(keyRegistry.candleId(BTC_USD, "1m", time), new Candle(time, 100.0, 104.0, 99.0, 103.0, 5L)));
+        }
+        bulkLoader.load(candles.iterator(), BulkLoadMode.MERGE);
+
+        // WHEN
+        var id = keyRegistry.candleId(BTC_USD, "1m", 1_000_000L);
+        var loaded = bulkLoader.load(List.of(new CandleDelta(id, new Candle(1_000_000L, 103.5, 108.0, 101.0, 102.0, 3L))).iterator(),
+                BulkLoadMode.MERGE);
+
+        // THEN
+        assertThat(loaded).isEqualTo(1L);
+        assertThat(candleRepository.count()).isEqualTo(250L);
+        var stored = candleRepository.findByCandleId(id).orElseThrow();
+        assertThat(stored.getOpen()).isEqualTo(100.0);
+        assertThat(stored.getHigh()).isEqualTo(108.0);
+        assertThat(stored.getClose()).isEqualTo(102.0);
+        assertThat(stored.getVolume()).isEqualTo(8L);
+    }
+
+    @Test
+    @DisplayName("Rows of the same candle within a chunk are folded in order, or the last one replaces")
+    void shouldFoldDuplicateRowsOfAChunk() {
+
+        // GIVEN
+        var id = keyRegistry.candleId(BTC_USD, "1m", 2_000_040L);
+        var first = new CandleDelta(id, new Candle(2_000_040L, 100.0, 104.0, 99.0, 103.0, 5L));
+        var second = new CandleDelta(id, new Candle(2_000_040L, 103.0, 106.0, 98.0, 105.0, 2L));
+
+        // WHEN
+        bulkLoader.load(List.of(first, second).iterator(), BulkLoadMode.MERGE);
+
+        // THEN
+        var stored = candleRepository.findByCandleId(id).orElseThrow();
+        assertThat(stored.getOpen()).isEqualTo(100.0);
+        assertThat(stored.getHigh()).isEqualTo(106.0);
+        assertThat(stored.getLow()).isEqualTo(98.0);
+        assertThat(stored.getClose()).isEqualTo(105.0);
+        assertThat(stored.getVolume()).isEqualTo(7L);
+
+        // WHEN
+        bulkLoader.load(List.of(second, first).iterator(), BulkLoadMode.REPLACE);
+
+        // THEN
+        stored = candleRepository.findByCandleId(id).orElseThrow();
+        assertThat(stored.getOpen()).isEqualTo(100.0);
+        assertThat(stored.getClose()).isEqualTo(103.0);
+        assertThat(stored.getVolume()).isEqualTo(5L);
+    }
+
+    @Test
+    @DisplayName("Merged rows keep the earliest open and the latest close by event time, not by row order")
+    void shouldOrderOpenAndCloseByEventTime() {
+
+        // GIVEN: stored from ticks at +10 and +50
+        var id = keyRegistry.candleId(BTC_USD, "1m", 2_000_100L);
+        bulkLoader.load(List.of(new CandleDelta(id, new Candle(2_000_100L, 100.0, 104.0, 99.0, 103.0, 2L),
+                2_000_110L, 2_000_150L)).iterator(), BulkLoadMode.MERGE);
+
+        // WHEN: a chunk whose last row is the oldest tick
+        var newer = CandleDelta.ofTick(id, 105.0, 2_000_155L);
+        var older = CandleDelta.ofTick(id, 98.0, 2_000_105L);
+        bulkLoader.load(List.of(newer, older).iterator(), BulkLoadMode.MERGE);
+
+        // THEN
+        var stored = candleRepository.findByCandleId(id).orElseThrow();
+        assertThat(stored.getOpen()).isEqualTo(98.0);
+        assertThat(stored.getClose()).isEqualTo(105.0);
+        assertThat(stored.getVolume()).isEqualTo(4L);
+        assertThat(stored.getOpenTime()).isEqualTo(2_000_105L);
+        assertThat(stored.getCloseTime()).isEqualTo(2_000_155L);
+    }
+
+    @Test
+    @DisplayName("Replace mode overwrites the stored candles")
+    void shouldReplaceStoredCandles() {
+
+        // GIVEN
+        var id = keyRegistry.candleId(BTC_USD, "1h", 1_000_800L);
+        bulkLoader.load(List.of(new CandleDelta(id, new Candle(1_000_800L, 100.0, 104.0, 99.0, 103.0, 5L))).iterator(),
+                BulkLoadMode.MERGE);
+
+        // WHEN
+        bulkLoader.load(List.of(new CandleDelta(id, new Candle(1_000_800L, 101.0, 102.0, 100.0, 101.5, 2L))).iterator(),
+                BulkLoadMode.REPLACE);
+
+        // THEN
+        var stored = candleRepository.findByCandleId(id).orElseThrow();
+        assertThat(stored.getOpen()).isEqualTo(101.0);
+        assertThat(stored.getHigh()).isEqualTo(102.0);
+        assertThat(stored.getLow()).isEqualTo(100.0);
+        assertThat(stored.getVolume()).isEqualTo(2L);
+    }
+}
@@ -0,0 +1,94 @@
+package com.multibank.candle.repository;
+
+import com.multibank.candle.domain.BulkLoadMode;
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.repository.entity.CandleId;
+import com.multibank.candle.utils.IntegrationTestConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares reading a day of 1s candles as managed entities through the derived query, mapped to
+ * {@link Candle} as the history read used to, with the projection query of {@link JdbcCandleHistoryRepository}.
+ * Both run in a read-only transaction. Run with {@code mvn test -Dtest=HistoryReadBenchmarkTest -Dbenchmark=true}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class HistoryReadBenchmarkTest extends IntegrationTestConfig {
+
+    private static final int SYMBOL_ID = 1_000;
+    private static final short TIMEFRAME_ID = 1;
+    private static final long FROM = 1_700_000_000L;
+    private static final int CANDLES = 86_400;
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    private CandleRepository candleRepository;
+
+    @Autowired
+    private JdbcCandleHistoryRepository historyRepository;
+
+    @Autowired
+    private CopyCandleBulkLoader bulkLoader;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Benchmark: projection query vs derived entity query")
+    void compareReadPaths() {
+
+        // raw ids: candles does not reference the dictionaries, so the benchmark skips registration
+        var deltas = LongStream.range(0, CANDLES).mapToObj(i -> {
+            var id = new CandleId(SYMBOL_ID, TIMEFRAME_ID, FROM + i);
+            return new CandleDelta(id, new Candle(id.getTime(), 100.0 + i % 100, 101.0, 99.0, 100.5, i));
+        }).iterator();
+        bulkLoader.load(deltas, BulkLoadMode.REPLACE);
+
+        var readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        var to = FROM + CANDLES - 1;
+
+        Supplier<List<Candle>> entities = () -> readOnly.execute(status -> candleRepository
+                .findByCandleIdSymbolIdAndCandleIdTimeframeIdAndCandleIdTimeBetweenOrderByCandleIdTimeAsc(SYMBOL_ID, TIMEFRAME_ID, FROM, to)
+                .stream()
+                .map(e -> new Candle(e.getCandleId().getTime(), e.getOpen(), e.getHigh(), e.getLow(), e.getClose(), e.getVolume()))
+                .toList());
+        Supplier<List<Candle>> projection = () -> readOnly.execute(status -> historyRepository.find(SYMBOL_ID, TIMEFRAME_ID, FROM, to));
+
+        var entityRate = run("derived entity query", entities);
+        var projectionRate = run("projection query", projection);
+
+        log.info("projection is {}x faster than the entity query", String.format("%.1f", projectionRate / entityRate));
+        assertThat(projection.get()).isEqualTo(entities.get()).hasSize(CANDLES);
+    }
+
+    private static double run(String name, Supplier<List<Candle>> read) {
+        for (int i = 0; i < WARMUP; i++) {
+            read.get();
+        }
+        long rows = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            rows += read.get().size();
+        }
+        var seconds = (System.nanoTime() - start) / 1e9;
+        var rowsPerSecond = rows / seconds;
+        log.info("{}: {} reads of {} candles in {}s -> {} rows/s",
+                name, ITERATIONS, CANDLES, String.format("%.2f", seconds), String.format("%.0f", rowsPerSecond));
+        return rowsPerSecond;
+    }
+}
@@ -0,0 +1,106 @@
+package com.multibank.candle.repository;
+
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.service.CandleKeyRegistry;
+import com.multibank.candle.utils.IntegrationTestConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = "candle.persistence.strategy=jdbc")
+class JdbcUpsertCandlePersistenceStrategyTest extends IntegrationTestConfig {
+
+    @Autowired
+    private CandlePersistenceStrategy strategy;
+
+    @Autowired
+    private CandleRepository candleRepository;
+
+    @Autowired
+    private CandleKeyRegistry keyRegistry;
+
+    @Test
+    @DisplayName("Upsert inserts new candles and merges deltas into existing ones")
+    void shouldInsertAndMergeCandles() {
+
+        // GIVEN
+        var id = keyRegistry.candleId(BTC_USD, "1m", 1_000_020L);
+        strategy.merge(List.of(new CandleDelta(id, new Candle(1_000_020L, 100.0, 104.0, 99.0, 103.0, 5L))));
+
+        // WHEN
+        strategy.merge(List.of(new CandleDelta(id, new Candle(1_000_020L, 103.5, 108.0, 101.0, 102.0, 3L))));
+
+        // THEN
+        var stored = candleRepository.findByCandleId(id).orElseThrow();
+        assertThat(stored.getOpen()).isEqualTo(100.0);
+        assertThat(stored.getHigh()).isEqualTo(108.0);
+        assertThat(stored.getLow()).isEqualTo(99.0);
+        assertThat(stored.getClose()).isEqualTo(102.0);
+        assertThat(stored.getVolume()).isEqualTo(8L);
+    }
+
+    @Test
+    @DisplayName("A late delta keeps the newer close and takes the open only when it is earlier")
+    void shouldOrderOpenAndCloseByEventTime() {
+
+        // GIVEN: ticks at +30 and +50
+        var id = keyRegistry.candleId(BTC_USD, "1m", 1_000_020L);
+        strategy.merge(List.of(new CandleDelta(id, new Candle(1_000_020L, 100.0, 104.0, 99.0, 103.0, 2L),
+                1_000_050L, 1_000_070L)));
+
+        // WHEN: a late tick at +10, merged after them
+        strategy.merge(List.of(CandleDelta.ofTick(id, 97.0, 1_000_030L)));
+
+        // THEN
+        var stored = candleRepository.findByCandleId(id).orElseThrow();
+        assertThat(stored.getOpen()).isEqualTo(97.0);
+        assertThat(stored.getLow()).isEqualTo(97.0);
+        assertThat(stored.getClose()).isEqualTo(103.0);
+        assertThat(stored.getVolume()).isEqualTo(3L);
+        assertThat(stored.getOpenTime()).isEqualTo(1_000_030L);
+        assertThat(stored.getCloseTime()).isEqualTo(1_000_070L);
+    }
+
+    @Test
+    @DisplayName("Concurrent upserts on the same candle never lose volume and never need retries")
+    void shouldNotLoseVolumeUnderConcurrentWriters() throws Exception {
+
+        // GIVEN
+        var id = keyRegistry.candleId(BTC_USD, "1s", 1_000_000L);
+        var writers = 8;
+        var rounds = 50;
+
+        var tasks = new ArrayList<Callable<Void>>();
+        for (int w = 0; w < writers; w++) {
+            var price = 100.0 + w;
+            tasks.add(() -> {
+                for (int r = 0; r < rounds; r++) {
+                    strategy.merge(List.of(new CandleDelta(id, new Candle(1_000_000L, price, price, price, price, 1L))));
+                }
+                return null;
+            });
+        }
+
+        // WHEN
+        try (var executor = Executors.newFixedThreadPool(writers)) {
+            for (var future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        }
+
+        // THEN
+        var stored = candleRepository.findByCandleId(id).orElseThrow();
+        assertThat(stored.getVolume()).isEqualTo((long) writers * rounds);
+        assertThat(stored.getHigh()).isEqualTo(100.0 + writers - 1);
+        assertThat(stored.getLow()).isEqualTo(100.0);
+    }
+}
@@ -0,0 +1,95 @@
+package com.multibank.candle.repository;
+
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.repository.entity.CandleEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static com.multibank.candle.utils.IntegrationTestConfig.BTC_USD;
+import static com.multibank.candle.utils.TestHelpers.candle;
+import static com.multibank.candle.utils.TestHelpers.candleId;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JpaCandlePersistenceStrategyTest {
+
+    @Mock
+    private CandleRepository candleRepository;
+
+    @InjectMocks
+    private JpaCandlePersistenceStrategy strategy;
+
+    @Test
+    @DisplayName("Merges deltas into stored candles and creates the missing ones")
+    @SuppressWarnings("unchecked")
+    void shouldMergeIntoStoredAndCreateMissing() {
+
+        // GIVEN
+        var existing = candle(BTC_USD, "1m", 1_000_020L, 95.0, 99.0, 94.0, 98.0, 4L);
+        when(candleRepository.findAllById(any())).thenReturn(List.of(existing));
+
+        var update = new CandleDelta(candleId(BTC_USD, "1m", 1_000_020L),
+                new Candle(1_000_020L, 101.0, 110.0, 96.0, 105.0, 10L));
+        var created = new CandleDelta(candleId(BTC_USD, "1m", 1_000_080L),
+                new Candle(1_000_080L, 90.0, 91.0, 89.0, 90.5, 3L));
+
+        // WHEN
+        strategy.merge(List.of(update, created));
+
+        // THEN
+        ArgumentCaptor<List<CandleEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(candleRepository).saveAll(captor.capture());
+
+        var saved = captor.getValue();
+        assertThat(saved).hasSize(2);
+
+        var merged = saved.get(0);
+        assertThat(merged.getOpen()).isEqualTo(95.0);
+        assertThat(merged.getHigh()).isEqualTo(110.0);
+        assertThat(merged.getLow()).isEqualTo(94.0);
+        assertThat(merged.getClose()).isEqualTo(105.0);
+        assertThat(merged.getVolume()).isEqualTo(14L);
+
+        assertThat(saved.get(1)).isEqualTo(candle(BTC_USD, "1m", 1_000_080L, 90.0, 91.0, 89.0, 90.5, 3L));
+    }
+
+    @Test
+    @DisplayName("A late delta widens the stored candle but keeps its newer close and older open")
+    @SuppressWarnings("unchecked")
+    void shouldKeepNewerCloseAndOlderOpenOnLateDelta() {
+
+        // GIVEN: stored from ticks at +5 and +50
+        var existing = candle(BTC_USD, "1m", 1_000_020L, 95.0, 99.0, 94.0, 98.0, 4L);
+        existing.setOpenTime(1_000_025L);
+        existing.setCloseTime(1_000_070L);
+        when(candleRepository.findAllById(any())).thenReturn(List.of(existing));
+
+        var late = CandleDelta.ofTick(candleId(BTC_USD, "1m", 1_000_020L), 90.0, 1_000_040L);
+
+        // WHEN
+        strategy.merge(List.of(late));
+
+        // THEN
+        ArgumentCaptor<List<CandleEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(candleRepository).saveAll(captor.capture());
+
+        var merged = captor.getValue().get(0);
+        assertThat(merged.getOpen()).isEqualTo(95.0);
+        assertThat(merged.getLow()).isEqualTo(90.0);
+        assertThat(merged.getClose()).isEqualTo(98.0);
+        assertThat(merged.getVolume()).isEqualTo(5L);
+        assertThat(merged.getOpenTime()).isEqualTo(1_000_025L);
+        assertThat(merged.getCloseTime()).isEqualTo(1_000_070L);
+    }
+}
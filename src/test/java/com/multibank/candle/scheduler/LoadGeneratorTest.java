@@ -0,0 +1,69 @@
+package com.multibank.candle.scheduler;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.domain.BidAskEvent;
+import com.multibank.candle.kafka.BidAskProducer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class LoadGeneratorTest {
+
+    @Mock
+    private BidAskProducer bidAskProducer;
+
+    @Test
+    @DisplayName("Ticks follow the configured skew and every symbol keeps its own price walk")
+    void shouldSkewSymbolsAndKeepPriceState() {
+
+        // GIVEN
+        var properties = new CandleConfigProperties();
+        properties.getLoadGenerator().setSymbols(100).setSkew(1.2).setInitialPrice(1_000.0);
+        var generator = new LoadGenerator(bidAskProducer, properties);
+        var random = new Random(42);
+
+        // WHEN
+        var counts = new HashMap<String, Integer>();
+        var lastMid = new HashMap<String, Double>();
+        var maxJump = 0.0;
+        for (int i = 0; i < 50_000; i++) {
+            BidAskEvent tick = generator.nextTick(random, 1_000L);
+            counts.merge(tick.symbol(), 1, Integer::sum);
+            var mid = (tick.bid() + tick.ask()) / 2;
+            var previous = lastMid.put(tick.symbol(), mid);
+            if (previous != null) {
+                maxJump = Math.max(maxJump, Math.abs(mid - previous) / previous);
+            }
+        }
+
+        // THEN: the hottest symbol dominates and prices never jump, which they would on a reset
+        assertThat(counts.get("LOAD-00000")).isGreaterThan(counts.get("LOAD-00010") * 10);
+        assertThat(counts.keySet()).allMatch(s -> s.startsWith("LOAD-"));
+        assertThat(maxJump).isLessThanOrEqualTo(0.0011);
+    }
+
+    @Test
+    @DisplayName("The target rate is multiplied by the burst factor during bursts")
+    void shouldBurstPeriodically() {
+
+        // GIVEN
+        var properties = new CandleConfigProperties();
+        properties.getLoadGenerator().setTicksPerSecond(1_000).setBurstFactor(5.0)
+                .setBurstEvery(Duration.ofSeconds(10)).setBurstDuration(Duration.ofSeconds(2));
+        var generator = new LoadGenerator(bidAskProducer, properties);
+
+        // THEN
+        assertThat(generator.rateAt(Duration.ofSeconds(1).toNanos())).isEqualTo(5_000.0);
+        assertThat(generator.rateAt(Duration.ofSeconds(5).toNanos())).isEqualTo(1_000.0);
+        assertThat(generator.rateAt(Duration.ofSeconds(11).toNanos())).isEqualTo(5_000.0);
+    }
+}
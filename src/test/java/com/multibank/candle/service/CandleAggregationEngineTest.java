@@ -0,0 +1,563 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.config.TimeFrameConfig;
+import com.multibank.candle.domain.AggregationCheckpoint;
+import com.multibank.candle.domain.BidAskEvent;
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleAmendment;
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.repository.AggregationCheckpointRepository;
+import com.multibank.candle.repository.CandleAmendmentRepository;
+import com.multibank.candle.repository.entity.CandleId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.multibank.candle.utils.IntegrationTestConfig.BTC_USD;
+import static com.multibank.candle.utils.TestHelpers.KEYS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CandleAggregationEngineTest {
+
+    private static final long BASE_TS = 1_100_040L; // aligned to the minute
+    private static final AggregationCheckpoint.Source SOURCE = new AggregationCheckpoint.Source("candle-service", "bid-ask");
+
+    @Mock
+    private CandleAggregationOperation candleAggregationOperation;
+
+    @Mock
+    private CandleWriteBehindQueue writeBehindQueue;
+
+    @Mock
+    private CandleAmendmentRepository amendmentRepository;
+
+    @Mock
+    private AggregationCheckpointRepository checkpointRepository;
+
+    @Mock
+    private Acknowledgment ack;
+
+    private CandleAggregationEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        CandleConfigProperties properties = new CandleConfigProperties();
+        properties.setTimeframes(List.of(new TimeFrameConfig("MIN_1", "1m", 60L)));
+        engine = new CandleAggregationEngine(candleAggregationOperation, KEYS, writeBehindQueue, amendmentRepository, checkpointRepository, properties);
+    }
+
+    @Test
+    @DisplayName("Ticks in the same bucket stay in memory until flush and are written as one delta")
+    void shouldWriteOneDeltaPerCandleOnFlush() {
+
+        // GIVEN
+        for (int i = 0; i < 10; i++) {
+            engine.apply(new BidAskEvent(BTC_USD, 100.0 + i, 102.0 + i, BASE_TS + i));
+        }
+        verifyNoInteractions(candleAggregationOperation);
+
+        // WHEN
+        engine.flush();
+
+        // THEN
+        var deltas = captureMerged(1);
+        assertThat(deltas).hasSize(1);
+
+        var candle = deltas.get(0).candle();
+        assertThat(deltas.get(0).id().getTime()).isEqualTo(BASE_TS);
+        assertThat(candle.open()).isEqualTo(101.0);
+        assertThat(candle.high()).isEqualTo(110.0);
+        assertThat(candle.low()).isEqualTo(101.0);
+        assertThat(candle.close()).isEqualTo(110.0);
+        assertThat(candle.volume()).isEqualTo(10L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("A new bucket closes the previous candle and a later flush only carries new volume")
+    void shouldCloseBucketAndFlushOnlyPendingVolume() {
+
+        // GIVEN
+        engine.apply(new BidAskEvent(BTC_USD, 100.0, 102.0, BASE_TS));
+        engine.apply(new BidAskEvent(BTC_USD, 100.0, 102.0, BASE_TS + 60));
+        engine.flush();
+
+        // WHEN: one more tick in the still open bucket
+        engine.apply(new BidAskEvent(BTC_USD, 110.0, 112.0, BASE_TS + 61));
+        engine.flush();
+
+        // THEN
+        var captor = ArgumentCaptor.forClass(Collection.class);
+        verify(candleAggregationOperation, times(2)).mergeCandles(captor.capture(), anyCollection(), any());
+
+        List<CandleDelta> first = new ArrayList<CandleDelta>(captor.getAllValues().get(0));
+        List<CandleDelta> second = new ArrayList<CandleDelta>(captor.getAllValues().get(1));
+
+        assertThat(first).extracting(d -> d.id().getTime()).containsExactly(BASE_TS, BASE_TS + 60);
+        assertThat(second).hasSize(1);
+        assertThat(second.get(0).candle().volume()).isEqualTo(1L);
+        assertThat(second.get(0).candle().close()).isEqualTo(111.0);
+    }
+
+    @Test
+    @DisplayName("Acknowledgments are only released after a successful flush")
+    void shouldAcknowledgeOnlyAfterSuccessfulFlush() {
+
+        // GIVEN
+        engine.apply(new BidAskEvent(BTC_USD, 100.0, 102.0, BASE_TS));
+        engine.acknowledgeOnFlush(ack);
+        doThrow(new RuntimeException("db down")).doNothing()
+                .when(candleAggregationOperation).mergeCandles(anyCollection(), anyCollection(), any());
+
+        // WHEN
+        engine.flush();
+
+        // THEN
+        verify(ack, never()).acknowledge();
+
+        engine.flush();
+
+        verify(ack).acknowledge();
+        verify(candleAggregationOperation, times(2)).mergeCandles(anyCollection(), anyCollection(), any());
+    }
+
+    @Test
+    @DisplayName("History overlay merges the unflushed candle into the stored one")
+    void shouldOverlayPendingStateOnStoredCandles() {
+
+        // GIVEN
+        var tf = new TimeFrameConfig("MIN_1", "1m", 60L);
+        var stored = List.of(
+                new Candle(BASE_TS - 60, 90.0, 95.0, 89.0, 94.0, 5L),
+                new Candle(BASE_TS, 95.0, 96.0, 94.0, 96.0, 3L));
+
+        engine.apply(new BidAskEvent(BTC_USD, 100.0, 102.0, BASE_TS + 5));
+        engine.apply(new BidAskEvent(BTC_USD, 90.0, 92.0, BASE_TS + 65));
+
+        // WHEN
+        var result = engine.overlay(KEYS.symbolId(BTC_USD), tf, BASE_TS - 60, BASE_TS + 120, stored);
+
+        // THEN
+        assertThat(result).containsExactly(
+                new Candle(BASE_TS - 60, 90.0, 95.0, 89.0, 94.0, 5L),
+                new Candle(BASE_TS, 95.0, 101.0, 94.0, 101.0, 4L),
+                new Candle(BASE_TS + 60, 91.0, 91.0, 91.0, 91.0, 1L));
+    }
+
+    @Test
+    @DisplayName("Drained deltas stay in the overlay until their merge has committed, and after a failed one")
+    void shouldOverlayDeltasWhileTheyAreWritten() {
+
+        // GIVEN
+        var tf = new TimeFrameConfig("MIN_1", "1m", 60L);
+        var symbolId = KEYS.symbolId(BTC_USD);
+        var seenDuringMerge = new ArrayList<Candle>();
+        engine.apply(new BidAskEvent(BTC_USD, 100.0, 102.0, BASE_TS + 5));
+        doAnswer(inv -> {
+            seenDuringMerge.addAll(engine.pending(symbolId, tf, BASE_TS, BASE_TS + 60));
+            throw new IllegalStateException("db down");
+        }).doAnswer(inv -> {
+            seenDuringMerge.addAll(engine.pending(symbolId, tf, BASE_TS, BASE_TS + 60));
+            inv.<Runnable>getArgument(2).run();
+            return null;
+        }).when(candleAggregationOperation).mergeCandles(anyCollection(), anyCollection(), any());
+
+        // WHEN
+        engine.flush();
+        var afterFailure = engine.pending(symbolId, tf, BASE_TS, BASE_TS + 60);
+        engine.flush();
+
+        // THEN
+        var candle = new Candle(BASE_TS, 101.0, 101.0, 101.0, 101.0, 1L);
+        assertThat(seenDuringMerge).containsExactly(candle, candle);
+        assertThat(afterFailure).containsExactly(candle);
+        assertThat(engine.pending(symbolId, tf, BASE_TS, BASE_TS + 60)).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Roll-up mode derives higher timeframes from the base candle with the same result")
+    void shouldRollUpHigherTimeframesFromBaseCandle() {
+
+        // GIVEN: the same tick stream through a per-timeframe engine and a roll-up engine
+        var timeframes = List.of(
+                new TimeFrameConfig("MIN_1", "1m", 60L),
+                new TimeFrameConfig("SEC_1", "1s", 1L),
+                new TimeFrameConfig("SEC_5", "5s", 5L));
+
+        var perTimeframe = new CandleConfigProperties().setTimeframes(timeframes);
+        var rollup = new CandleConfigProperties().setTimeframes(timeframes);
+        rollup.getEngine().setRollup(true);
+
+        var rollupOperation = mock(CandleAggregationOperation.class);
+        var rollupEngine = new CandleAggregationEngine(rollupOperation, KEYS, writeBehindQueue, amendmentRepository, checkpointRepository, rollup);
+        engine = new CandleAggregationEngine(candleAggregationOperation, KEYS, writeBehindQueue, amendmentRepository, checkpointRepository, perTimeframe);
+
+        for (int i = 0; i < 130; i++) {
+            var event = new BidAskEvent(BTC_USD, 100.0 + (i % 17), 102.0 + (i % 17), BASE_TS + i / 2);
+            engine.apply(event);
+            rollupEngine.apply(event);
+        }
+
+        // WHEN
+        engine.flush();
+        rollupEngine.flush();
+
+        // THEN
+        var expected = captureMerged(1);
+        var captor = ArgumentCaptor.forClass(Collection.class);
+        verify(rollupOperation).mergeCandles(captor.capture(), anyCollection(), any());
+
+        assertThat(coalesce(new ArrayList<CandleDelta>(captor.getValue())))
+                .containsExactlyInAnyOrderElementsOf(coalesce(expected));
+    }
+
+    @Test
+    @DisplayName("Roll-up mode rejects timeframes that are not a multiple of the base one")
+    void shouldRejectNonDivisibleTimeframesInRollupMode() {
+        var timeframes = List.of(
+                new TimeFrameConfig("SEC_2", "2s", 2L),
+                new TimeFrameConfig("SEC_5", "5s", 5L));
+
+        assertThatThrownBy(() -> AggregationWorker.resolveBaseIndex(timeframes))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Timeframe 5s is not a multiple of base timeframe 2s");
+    }
+
+    @Test
+    @DisplayName("Partition-affine mode flushes on the owning thread and hands state off on revoke")
+    void shouldFlushOwnedPartitionsOnRevoke() {
+
+        // GIVEN
+        var properties = new CandleConfigProperties().setTimeframes(List.of(new TimeFrameConfig("MIN_1", "1m", 60L)));
+        properties.getEngine().setPartitionAffine(true);
+        engine = new CandleAggregationEngine(candleAggregationOperation, KEYS, writeBehindQueue, amendmentRepository, checkpointRepository, properties);
+
+        engine.onPartitionsAssigned(SOURCE, List.of(0, 1), p -> 0L, p -> 0L);
+        engine.apply(
+                List.of(new BidAskEvent(BTC_USD, 100.0, 102.0, BASE_TS), new BidAskEvent("ETH-USD", 10.0, 12.0, BASE_TS)),
+                List.of(0, 1));
+        engine.acknowledgeOnFlush(ack);
+
+        // WHEN: the scheduler does not flush owned partitions and the interval has not elapsed
+        engine.flush();
+
+        // THEN
+        verifyNoInteractions(candleAggregationOperation);
+        verify(ack, never()).acknowledge();
+
+        // WHEN: partitions are revoked
+        engine.onPartitionsRevoked(List.of(0, 1));
+
+        // THEN
+        var deltas = captureMerged(1);
+        assertThat(deltas).extracting(d -> d.id().getSymbolId())
+                .containsExactlyInAnyOrder(KEYS.symbolId(BTC_USD), KEYS.symbolId("ETH-USD"));
+        verify(ack).acknowledge();
+
+        var tf = properties.getTimeframes().get(0);
+        assertThat(engine.overlay(KEYS.symbolId(BTC_USD), tf, BASE_TS, BASE_TS + 60, List.of())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Without partition affinity a revocation flushes, acknowledges and drops the revoked workers")
+    void shouldFlushAndDropRevokedWorkersWithoutAffinity() {
+
+        // GIVEN
+        var tf = new TimeFrameConfig("MIN_1", "1m", 60L);
+        engine.apply(
+                List.of(new BidAskEvent(BTC_USD, 100.0, 102.0, BASE_TS), new BidAskEvent("ETH-USD", 10.0, 12.0, BASE_TS)),
+                List.of(0, 1));
+        engine.acknowledgeOnFlush(ack);
+
+        // WHEN
+        engine.onPartitionsRevoked(List.of(1));
+
+        // THEN: the ack covers both partitions, so both were written before it
+        assertThat(captureMerged(1)).extracting(d -> d.id().getSymbolId())
+                .containsExactlyInAnyOrder(KEYS.symbolId(BTC_USD), KEYS.symbolId("ETH-USD"));
+        verify(ack).acknowledge();
+
+        // WHEN: a tick for the revoked partition arrives after it was handed over
+        engine.apply(List.of(new BidAskEvent("ETH-USD", 20.0, 22.0, BASE_TS + 1)), List.of(1));
+
+        // THEN: it went to a fresh worker, the revoked one and its state are gone
+        assertThat(engine.pending(KEYS.symbolId("ETH-USD"), tf, BASE_TS, BASE_TS + 60))
+                .containsExactly(new Candle(BASE_TS, 21.0, 21.0, 21.0, 21.0, 1L));
+    }
+
+    @Test
+    @DisplayName("Without partition affinity a revocation waits for the write-behind queue before returning")
+    void shouldAwaitWriteBehindOnRevokeWithoutAffinity() throws Exception {
+
+        // GIVEN
+        var properties = new CandleConfigProperties().setTimeframes(List.of(new TimeFrameConfig("MIN_1", "1m", 60L)));
+        properties.getWriteBehind().setEnabled(true);
+        engine = new CandleAggregationEngine(candleAggregationOperation, KEYS, writeBehindQueue, amendmentRepository, checkpointRepository, properties);
+
+        var written = new CompletableFuture<Void>();
+        when(writeBehindQueue.enqueue(anyCollection(), anyCollection())).thenReturn(written);
+        engine.apply(List.of(new BidAskEvent(BTC_USD, 100.0, 102.0, BASE_TS)), List.of(0));
+        engine.acknowledgeOnFlush(ack);
+
+        // WHEN
+        var revoke = CompletableFuture.runAsync(() -> engine.onPartitionsRevoked(List.of(0)));
+
+        // THEN
+        verify(writeBehindQueue, timeout(1_000)).enqueue(anyCollection(), anyCollection());
+        assertThat(revoke).isNotDone();
+        verify(ack, never()).acknowledge();
+
+        written.complete(null);
+        revoke.get(1, TimeUnit.SECONDS);
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    @DisplayName("Partition-affine mode flushes from the listener thread once the interval elapsed")
+    void shouldFlushOwnedPartitionsWhenIntervalElapsed() {
+
+        // GIVEN
+        var properties = new CandleConfigProperties().setTimeframes(List.of(new TimeFrameConfig("MIN_1", "1m", 60L)));
+        properties.getEngine().setPartitionAffine(true).setFlushInterval(Duration.ZERO);
+        engine = new CandleAggregationEngine(candleAggregationOperation, KEYS, writeBehindQueue, amendmentRepository, checkpointRepository, properties);
+        engine.onPartitionsAssigned(SOURCE, List.of(2), p -> 0L, p -> 0L);
+
+        // WHEN
+        engine.apply(List.of(new BidAskEvent(BTC_USD, 100.0, 102.0, BASE_TS)), List.of(2));
+        engine.acknowledgeOnFlush(ack);
+
+        // THEN
+        assertThat(captureMerged(1)).hasSize(1);
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Write-behind mode hands deltas to the queue and acknowledges once they are durable")
+    void shouldAcknowledgeWhenWriteBehindQueueHasWritten() {
+
+        // GIVEN
+        var properties = new CandleConfigProperties().setTimeframes(List.of(new TimeFrameConfig("MIN_1", "1m", 60L)));
+        properties.getWriteBehind().setEnabled(true);
+        engine = new CandleAggregationEngine(candleAggregationOperation, KEYS, writeBehindQueue, amendmentRepository, checkpointRepository, properties);
+
+        var written = new CompletableFuture<Void>();
+        var overlaidByWorkers = new ArrayList<Candle>();
+        var tf = properties.getTimeframes().get(0);
+        when(writeBehindQueue.enqueue(anyCollection(), anyCollection())).thenAnswer(inv -> {
+            // the queue takes over the overlay, the workers must have let go of the deltas
+            overlaidByWorkers.addAll(engine.pending(KEYS.symbolId(BTC_USD), tf, BASE_TS, BASE_TS + 60));
+            return written;
+        });
+
+        engine.apply(new BidAskEvent(BTC_USD, 100.0, 102.0, BASE_TS));
+        engine.acknowledgeOnFlush(ack);
+
+        // WHEN
+        engine.flush();
+
+        // THEN
+        ArgumentCaptor<Collection<CandleDelta>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(writeBehindQueue).enqueue(captor.capture(), anyCollection());
+        assertThat(captor.getValue()).hasSize(1);
+        assertThat(overlaidByWorkers).isEmpty();
+        verifyNoInteractions(candleAggregationOperation);
+        verify(ack, never()).acknowledge();
+
+        written.complete(null);
+
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Ticks for candles sealed by the watermark become amendments and never change the candle")
+    void shouldRouteTicksForSealedCandlesToAmendments() {
+
+        // GIVEN: no lateness, so the first candle is sealed as soon as the watermark reaches its end
+        var properties = new CandleConfigProperties().setTimeframes(List.of(new TimeFrameConfig("MIN_1", "1m", 60L)));
+        properties.getEngine().setAllowedLateness(Duration.ZERO);
+        engine = new CandleAggregationEngine(candleAggregationOperation, KEYS, writeBehindQueue, amendmentRepository, checkpointRepository, properties);
+        var tf = properties.getTimeframes().get(0);
+
+        engine.apply(new BidAskEvent(BTC_USD, 100.0, 102.0, BASE_TS + 59));
+        engine.apply(new BidAskEvent(BTC_USD, 110.0, 112.0, BASE_TS + 60));
+        assertThat(engine.sealedUntil(KEYS.symbolId(BTC_USD), tf)).isEqualTo(Long.MIN_VALUE);
+
+        // WHEN: a tick for the sealed candle arrives late
+        engine.apply(new BidAskEvent(BTC_USD, 50.0, 52.0, BASE_TS + 30));
+        engine.flush();
+
+        // THEN
+        var deltas = captureMerged(1);
+        assertThat(deltas).extracting(d -> d.candle().volume()).containsExactly(1L, 1L);
+
+        ArgumentCaptor<List<CandleAmendment>> captor = ArgumentCaptor.forClass(List.class);
+        verify(amendmentRepository).saveAll(captor.capture());
+        assertThat(captor.getValue()).singleElement()
+                .isEqualTo(new CandleAmendment(KEYS.candleId(BTC_USD, "1m", BASE_TS), 51.0, BASE_TS + 30));
+
+        assertThat(engine.sealedUntil(KEYS.symbolId(BTC_USD), tf)).isEqualTo(BASE_TS + 60);
+    }
+
+    @Test
+    @DisplayName("Ticks within the allowed lateness still update their closed candle")
+    void shouldMergeLateTicksWithinAllowedLateness() {
+
+        // GIVEN: default allowed lateness of 5s
+        engine.apply(new BidAskEvent(BTC_USD, 100.0, 102.0, BASE_TS + 59));
+        engine.apply(new BidAskEvent(BTC_USD, 110.0, 112.0, BASE_TS + 62));
+
+        // WHEN
+        engine.apply(new BidAskEvent(BTC_USD, 50.0, 52.0, BASE_TS + 30));
+        engine.flush();
+
+        // THEN
+        var deltas = captureMerged(1);
+        assertThat(coalesce(deltas)).extracting(d -> d.candle().volume()).containsExactly(2L, 1L);
+        // the late tick is the earliest of its bucket but not the latest
+        var late = coalesce(deltas).iterator().next();
+        assertThat(late.candle().open()).isEqualTo(51.0);
+        assertThat(late.candle().close()).isEqualTo(101.0);
+        assertThat(late.openTime()).isEqualTo(BASE_TS + 30);
+        assertThat(late.closeTime()).isEqualTo(BASE_TS + 59);
+        verifyNoInteractions(amendmentRepository);
+    }
+
+    @Test
+    @DisplayName("Redelivered ticks below the partition high-water mark are dropped before aggregation")
+    void shouldDropRedeliveredTicks() {
+
+        // GIVEN
+        engine.apply(
+                List.of(new BidAskEvent(BTC_USD, 100.0, 102.0, BASE_TS), new BidAskEvent(BTC_USD, 110.0, 112.0, BASE_TS + 1)),
+                List.of(0, 0), List.of(10L, 11L));
+
+        // WHEN: the batch is redelivered together with one new tick, and another partition starts at offset 0
+        engine.apply(
+                List.of(new BidAskEvent(BTC_USD, 100.0, 102.0, BASE_TS), new BidAskEvent(BTC_USD, 110.0, 112.0, BASE_TS + 1),
+                        new BidAskEvent(BTC_USD, 90.0, 92.0, BASE_TS + 2), new BidAskEvent("ETH-USD", 10.0, 12.0, BASE_TS)),
+                List.of(0, 0, 0, 1), List.of(10L, 11L, 12L, 0L));
+        engine.flush();
+
+        // THEN
+        assertThat(coalesce(captureMerged(1)))
+                .extracting(d -> d.id().getSymbolId(), d -> d.candle().volume(), d -> d.candle().close())
+                .containsExactlyInAnyOrder(
+                        tuple(KEYS.symbolId(BTC_USD), 3L, 91.0),
+                        tuple(KEYS.symbolId("ETH-USD"), 1L, 11.0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("A restarted engine resumes from the checkpoint written with the candles")
+    void shouldRestoreOpenCandlesAndOffsetFromCheckpoint() {
+
+        // GIVEN: a partition flushed with its checkpoint
+        var properties = new CandleConfigProperties().setTimeframes(List.of(new TimeFrameConfig("MIN_1", "1m", 60L)));
+        properties.getEngine().setPartitionAffine(true);
+        properties.getCheckpoint().setEnabled(true);
+        engine = new CandleAggregationEngine(candleAggregationOperation, KEYS, writeBehindQueue, amendmentRepository, checkpointRepository, properties);
+        engine.onPartitionsAssigned(SOURCE, List.of(0), p -> 0L, p -> 0L);
+        engine.apply(
+                List.of(new BidAskEvent(BTC_USD, 100.0, 102.0, BASE_TS), new BidAskEvent(BTC_USD, 120.0, 122.0, BASE_TS + 1)),
+                List.of(0, 0), List.of(10L, 11L));
+        engine.onPartitionsRevoked(List.of(0));
+
+        ArgumentCaptor<Collection<AggregationCheckpoint>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(candleAggregationOperation).mergeCandles(anyCollection(), captor.capture(), any());
+        var checkpoint = captor.getValue().iterator().next();
+        assertThat(checkpoint.key()).isEqualTo(new AggregationCheckpoint.Key(SOURCE, 0));
+        assertThat(checkpoint.nextOffset()).isEqualTo(12L);
+
+        // WHEN: a new engine is assigned the partition while the committed offset lags behind
+        var restartedOperation = mock(CandleAggregationOperation.class);
+        var restarted = new CandleAggregationEngine(restartedOperation, KEYS, writeBehindQueue, amendmentRepository, checkpointRepository, properties);
+        when(checkpointRepository.find(SOURCE, 0)).thenReturn(Optional.of(checkpoint));
+
+        var seeks = restarted.onPartitionsAssigned(SOURCE, List.of(0), p -> 11L, p -> 13L);
+        restarted.apply(List.of(new BidAskEvent(BTC_USD, 90.0, 92.0, BASE_TS + 2)), List.of(0), List.of(12L));
+        restarted.flushOwned();
+        restarted.onPartitionsRevoked(List.of(0));
+
+        // THEN: only the new tick is merged, on top of the restored open candle
+        assertThat(seeks).isEqualTo(Map.of(0, 12L));
+        ArgumentCaptor<Collection<CandleDelta>> deltas = ArgumentCaptor.forClass(Collection.class);
+        verify(restartedOperation).mergeCandles(deltas.capture(), anyCollection(), any());
+        assertThat(deltas.getValue()).singleElement()
+                .extracting(CandleDelta::candle)
+                .isEqualTo(new Candle(BASE_TS, 101.0, 121.0, 91.0, 91.0, 1L));
+    }
+
+    @Test
+    @DisplayName("A checkpoint behind the committed offset is ignored")
+    void shouldIgnoreCheckpointBehindCommittedOffset() {
+
+        // GIVEN
+        var properties = new CandleConfigProperties().setTimeframes(List.of(new TimeFrameConfig("MIN_1", "1m", 60L)));
+        properties.getEngine().setPartitionAffine(true);
+        properties.getCheckpoint().setEnabled(true);
+        engine = new CandleAggregationEngine(candleAggregationOperation, KEYS, writeBehindQueue, amendmentRepository, checkpointRepository, properties);
+        when(checkpointRepository.find(SOURCE, 0)).thenReturn(Optional.of(new AggregationCheckpoint(SOURCE, 0, 5L, new byte[0])));
+
+        // WHEN
+        var seeks = engine.onPartitionsAssigned(SOURCE, List.of(0), p -> 8L, p -> 20L);
+
+        // THEN
+        assertThat(seeks).isEmpty();
+        assertThat(engine.sealedUntil(KEYS.symbolId(BTC_USD), properties.getTimeframes().get(0))).isEqualTo(Long.MIN_VALUE);
+    }
+
+    @Test
+    @DisplayName("A checkpoint past the end of the partition is ignored")
+    void shouldIgnoreCheckpointPastEndOffset() {
+
+        // GIVEN: a checkpoint of a topic that was deleted and recreated under the same name
+        var properties = new CandleConfigProperties().setTimeframes(List.of(new TimeFrameConfig("MIN_1", "1m", 60L)));
+        properties.getEngine().setPartitionAffine(true);
+        properties.getCheckpoint().setEnabled(true);
+        engine = new CandleAggregationEngine(candleAggregationOperation, KEYS, writeBehindQueue, amendmentRepository, checkpointRepository, properties);
+        when(checkpointRepository.find(SOURCE, 0)).thenReturn(Optional.of(new AggregationCheckpoint(SOURCE, 0, 500L, new byte[0])));
+
+        // WHEN
+        var seeks = engine.onPartitionsAssigned(SOURCE, List.of(0), p -> 0L, p -> 40L);
+
+        // THEN
+        assertThat(seeks).isEmpty();
+    }
+
+    private static Collection<CandleDelta> coalesce(List<CandleDelta> deltas) {
+        var coalesced = new LinkedHashMap<CandleId, CandleDelta>();
+        deltas.forEach(d -> coalesced.merge(d.id(), d, CandleDelta::merge));
+        return coalesced.values();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<CandleDelta> captureMerged(int times) {
+        var captor = ArgumentCaptor.forClass(Collection.class);
+        verify(candleAggregationOperation, times(times)).mergeCandles(captor.capture(), anyCollection(), any());
+        return new ArrayList<CandleDelta>(captor.getValue());
+    }
+}
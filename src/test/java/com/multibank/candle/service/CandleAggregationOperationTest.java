@@ -2,10 +2,12 @@ package com.multibank.candle.service;
 
 import com.multibank.candle.config.CandleConfigProperties;
 import com.multibank.candle.config.TimeFrameConfig;
+import com.multibank.candle.domain.AggregationCheckpoint;
 import com.multibank.candle.domain.BidAskEvent;
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.repository.AggregationCheckpointRepository;
 import com.multibank.candle.repository.CandleRepository;
-import com.multibank.candle.repository.entity.CandleEntity;
-import com.multibank.candle.repository.entity.CandleId;
 import com.multibank.candle.utils.InMemoryCandleStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,14 +16,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 import static com.multibank.candle.utils.IntegrationTestConfig.BTC_USD;
+import static com.multibank.candle.utils.TestHelpers.KEYS;
 import static com.multibank.candle.utils.TestHelpers.candle;
-import static com.multibank.candle.utils.TestHelpers.oneMinuteTf;
+import static com.multibank.candle.utils.TestHelpers.candleId;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -34,13 +40,16 @@ class CandleAggregationOperationTest {
     @Mock
     private CandleRepository candleRepository;
 
+    @Mock
+    private AggregationCheckpointRepository checkpointRepository;
+
     private CandleAggregationOperation candleAggregationOperation;
 
     @BeforeEach
     void setUp() {
         CandleConfigProperties properties = new CandleConfigProperties();
         properties.setTimeframes(List.of(new TimeFrameConfig("MIN_1", "1m", 60L)));
-        candleAggregationOperation = new CandleAggregationOperation(candleService, properties);
+        candleAggregationOperation = new CandleAggregationOperation(candleService, KEYS, checkpointRepository, properties);
     }
 
     @Test
@@ -55,20 +64,17 @@ class CandleAggregationOperationTest {
         var event = new BidAskEvent(symbol, bid, ask, ts);
 
         // There's not entity before
-        when(candleService.findById(any(CandleId.class))).thenReturn(Optional.empty());
+        var memStore = setupInMemoryStore();
 
         // WHEN
-        candleAggregationOperation.createOrUpdateCandle(event, oneMinuteTf());
+        candleAggregationOperation.createOrUpdateCandles(List.of(event));
 
         // THEN
-        var captor = ArgumentCaptor.forClass(CandleEntity.class);
-        verify(candleService).save(captor.capture());
-
-        var saved = captor.getValue();
+        var saved = memStore.single();
 
         var mid = (bid + ask) / 2.0;
 
-        assertThat(saved.getCandleId().getSymbol()).isEqualTo(symbol);
+        assertThat(saved.getCandleId().getSymbolId()).isEqualTo(KEYS.symbolId(symbol));
         assertThat(saved.getOpen()).isEqualTo(mid);
         assertThat(saved.getHigh()).isEqualTo(mid);
         assertThat(saved.getLow()).isEqualTo(mid);
@@ -89,18 +95,14 @@ class CandleAggregationOperationTest {
         var event = new BidAskEvent(symbol, bid, ask, ts);
         var mid = (bid + ask) / 2.0;
 
-        var existing = candle(symbol, "1m", (ts / 60) * 60, 100.5, 101.5, 100.0, 101.0, 10L);
-
-        when(candleService.findById(any(CandleId.class))).thenReturn(Optional.of(existing));
+        var memStore = setupInMemoryStore();
+        memStore.save(candle(symbol, "1m", (ts / 60) * 60, 100.5, 101.5, 100.0, 101.0, 10L));
 
         // WHEN
-        candleAggregationOperation.createOrUpdateCandle(event, oneMinuteTf());
+        candleAggregationOperation.createOrUpdateCandles(List.of(event));
 
         // THEN
-        ArgumentCaptor<CandleEntity> captor = ArgumentCaptor.forClass(CandleEntity.class);
-        verify(candleService).save(captor.capture());
-
-        var updated = captor.getValue();
+        var updated = memStore.single();
 
         assertThat(updated.getOpen()).isEqualTo(100.5);
         assertThat(updated.getHigh()).isEqualTo(101.5);
@@ -120,13 +122,14 @@ class CandleAggregationOperationTest {
 
         int totalEvents = 60; // 0..59 → just 1m bucket
 
+        // one batch per tick, so every tick is merged into the stored candle
         for (int i = 0; i < totalEvents; i++) {
             var bid = 100.0 + i;
             var ask = 102.0 + i;
             var ts = baseTs + i; // all in the same minute
 
             var event = new BidAskEvent(symbol, bid, ask, ts);
-            candleAggregationOperation.createOrUpdateCandle(event, oneMinuteTf());
+            candleAggregationOperation.createOrUpdateCandles(List.of(event));
         }
 
         var candle = memStore.single();
@@ -155,18 +158,20 @@ class CandleAggregationOperationTest {
         int buckets = 3;
         int eventsPerBucket = 10;
 
+        var events = new ArrayList<BidAskEvent>();
         for (int b = 0; b < buckets; b++) {
             var bucketStart = baseTs + b * 60;
             for (int i = 0; i < eventsPerBucket; i++) {
                 var ts = bucketStart + i;
                 var bid = 100 + b;
                 var ask = 102 + b;
-                var event = new BidAskEvent(BTC_USD, bid, ask, ts);
-                // WHEN
-                candleAggregationOperation.createOrUpdateCandle(event, oneMinuteTf());
+                events.add(new BidAskEvent(BTC_USD, bid, ask, ts));
             }
         }
 
+        // WHEN
+        candleAggregationOperation.createOrUpdateCandles(events);
+
         //THEN
         assertThat(memStore.size()).isEqualTo(buckets);
         memStore.all().forEach(c -> assertThat(c.getVolume()).isEqualTo(eventsPerBucket));
@@ -187,18 +192,72 @@ class CandleAggregationOperationTest {
         var e3 = new BidAskEvent(symbol, 110.0, 112.0, baseTs + 50);
 
         // WHEN
-        candleAggregationOperation.createOrUpdateCandle(e1, oneMinuteTf());
-        candleAggregationOperation.createOrUpdateCandle(e3, oneMinuteTf());
-        candleAggregationOperation.createOrUpdateCandle(e2, oneMinuteTf());
+        candleAggregationOperation.createOrUpdateCandles(List.of(e1));
+        candleAggregationOperation.createOrUpdateCandles(List.of(e3, e2));
 
         //THEN
         var c = memStore.single();
 
-        assertThat(c.getOpen()).isEqualTo((100.0 + 102.0) / 2.0);  // 101
+        // open and close follow event time, not arrival order
+        assertThat(c.getOpen()).isEqualTo((90.0 + 92.0) / 2.0);    // 91
         assertThat(c.getHigh()).isEqualTo((110.0 + 112.0) / 2.0);  // 111
         assertThat(c.getLow()).isEqualTo((90.0 + 92.0) / 2.0);     // 91
-        assertThat(c.getClose()).isEqualTo((90.0 + 92.0) / 2.0);   // 91
+        assertThat(c.getClose()).isEqualTo((110.0 + 112.0) / 2.0); // 111
         assertThat(c.getVolume()).isEqualTo(3L);
+        assertThat(c.getOpenTime()).isEqualTo(baseTs + 10);
+        assertThat(c.getCloseTime()).isEqualTo(baseTs + 50);
+    }
+
+    @Test
+    @DisplayName("A failed merge reaches the caller and stores no checkpoint")
+    void shouldNotStoreCheckpointsWhenMergeFails() {
+
+        // GIVEN
+        var delta = CandleDelta.ofTick(candleId(BTC_USD, "1m", 1_099_980L), 101.0, 1_099_990L);
+        var checkpoint = new AggregationCheckpoint(
+                new AggregationCheckpoint.Source("candles", "bid-ask"), 0, 42L, new byte[0]);
+        doThrow(new QueryTimeoutException("timeout")).when(candleService).merge(any(), any());
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> candleAggregationOperation.mergeCandles(List.of(delta), List.of(checkpoint), () -> {
+        }))
+                .isInstanceOf(QueryTimeoutException.class);
+        verify(checkpointRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("A batch of ticks is folded into one delta per touched candle")
+    @SuppressWarnings("unchecked")
+    void shouldFoldBatchIntoOneDeltaPerCandle() {
+
+        // GIVEN: 30 ticks for two symbols spread over two buckets
+        var baseTs = alignToMinute(1_100_000L);
+
+        var events = new ArrayList<BidAskEvent>();
+        for (int i = 0; i < 10; i++) {
+            events.add(new BidAskEvent(BTC_USD, 100.0 + i, 102.0 + i, baseTs + i));
+            events.add(new BidAskEvent("ETH-USD", 10.0, 12.0, baseTs + i));
+            events.add(new BidAskEvent(BTC_USD, 90.0, 92.0, baseTs + 60 + i));
+        }
+
+        // WHEN
+        candleAggregationOperation.createOrUpdateCandles(events);
+
+        // THEN
+        ArgumentCaptor<Collection<CandleDelta>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(candleService).merge(captor.capture(), any());
+
+        var merged = new ArrayList<>(captor.getValue());
+        assertThat(merged).hasSize(3);
+
+        var first = merged.get(0);
+        assertThat(first.id()).isEqualTo(candleId(BTC_USD, "1m", baseTs));
+        assertThat(first.candle()).isEqualTo(new Candle(baseTs, 101.0, 110.0, 101.0, 110.0, 10L));
+
+        assertThat(merged.get(1).id().getSymbolId()).isEqualTo(KEYS.symbolId("ETH-USD"));
+        assertThat(merged.get(1).candle().volume()).isEqualTo(10L);
+        assertThat(merged.get(2).id().getTime()).isEqualTo(baseTs + 60);
+        assertThat(merged.get(2).candle().volume()).isEqualTo(10L);
     }
 
     private static long alignToMinute(long ts) {
@@ -208,16 +267,12 @@ class CandleAggregationOperationTest {
     private InMemoryCandleStore setupInMemoryStore() {
         var memStore = new InMemoryCandleStore();
 
-        when(candleService.findById(any(CandleId.class))).thenAnswer(inv -> {
-            CandleId id = inv.getArgument(0);
-            return memStore.findById(id);
-        });
-
         doAnswer(inv -> {
-            CandleEntity c = inv.getArgument(0);
-            memStore.save(c);
+            Collection<CandleDelta> deltas = inv.getArgument(0);
+            deltas.forEach(delta -> memStore.findById(delta.id()).ifPresentOrElse(
+                    delta::applyTo, () -> memStore.save(delta.toEntity())));
             return null;
-        }).when(candleService).save(any(CandleEntity.class));
+        }).when(candleService).merge(any(), any());
 
         return memStore;
     }
@@ -0,0 +1,71 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.config.TimeFrameConfig;
+import com.multibank.candle.repository.CandleKeyRepository;
+import com.multibank.candle.repository.entity.CandleId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.multibank.candle.utils.IntegrationTestConfig.BTC_USD;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CandleKeyRegistryTest {
+
+    @Mock
+    private CandleKeyRepository repository;
+
+    @Test
+    @DisplayName("Loads stored ids on startup and registers configured keys that are missing")
+    void shouldLoadStoredIdsAndRegisterConfiguredKeys() {
+
+        // GIVEN
+        var properties = new CandleConfigProperties()
+                .setSymbols(Map.of(BTC_USD, 100.0, "ETH-USD", 10.0))
+                .setTimeframes(List.of(new TimeFrameConfig("MIN_1", "1m", 60L)));
+        when(repository.findSymbols()).thenReturn(Map.of(BTC_USD, 7));
+        when(repository.findTimeframes()).thenReturn(Map.of("1m", (short) 3));
+        when(repository.symbolId("ETH-USD")).thenReturn(8);
+
+        var registry = new CandleKeyRegistry(repository, properties);
+
+        // WHEN
+        registry.load();
+
+        // THEN
+        assertThat(registry.candleId(BTC_USD, "1m", 60L)).isEqualTo(new CandleId(7, (short) 3, 60L));
+        assertThat(registry.symbolId("ETH-USD")).isEqualTo(8);
+        verify(repository, never()).symbolId(BTC_USD);
+        verify(repository, never()).timeframeId(anyString());
+    }
+
+    @Test
+    @DisplayName("Registers a new symbol once and never registers on lookups")
+    void shouldRegisterNewSymbolOnce() {
+
+        // GIVEN
+        var registry = new CandleKeyRegistry(repository, new CandleConfigProperties());
+        when(repository.symbolId("SOL-USD")).thenReturn(42);
+
+        // WHEN
+        var unknown = registry.findSymbolId("SOL-USD");
+        var first = registry.symbolId("SOL-USD");
+        var second = registry.symbolId("SOL-USD");
+
+        // THEN
+        assertThat(unknown).isEqualTo(CandleKeyRegistry.UNKNOWN);
+        assertThat(first).isEqualTo(42);
+        assertThat(second).isEqualTo(42);
+        assertThat(registry.findSymbolId("SOL-USD")).isEqualTo(42);
+        verify(repository, times(1)).symbolId("SOL-USD");
+    }
+}
@@ -1,7 +1,6 @@
 package com.multibank.candle.service;
 
 import com.multibank.candle.repository.CandleRepository;
-import com.multibank.candle.repository.entity.CandleId;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,7 +11,9 @@ import org.springframework.dao.OptimisticLockingFailureException;
 import java.util.List;
 
 import static com.multibank.candle.utils.IntegrationTestConfig.BTC_USD;
+import static com.multibank.candle.utils.TestHelpers.KEYS;
 import static com.multibank.candle.utils.TestHelpers.candle;
+import static com.multibank.candle.utils.TestHelpers.candleId;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -48,8 +49,8 @@ class CandleServiceTestIT {
         var to = base + 120;
 
         var result = candleRepository
-                .findByCandleIdSymbolAndCandleIdTimeframeAndCandleIdTimeBetweenOrderByCandleIdTimeAsc(
-                        symbol, timeframe, from, to);
+                .findByCandleIdSymbolIdAndCandleIdTimeframeIdAndCandleIdTimeBetweenOrderByCandleIdTimeAsc(
+                        KEYS.symbolId(symbol), KEYS.timeframeId(timeframe), from, to);
 
         assertThat(result)
                 .hasSize(3)
@@ -69,7 +70,7 @@ class CandleServiceTestIT {
     void shouldThrowOptimisticLockingExceptionOnStaleUpdate() {
 
         // GIVEN: a candle persisted with @Version enabled
-        var id = new CandleId(BTC_USD, "1m", 1_000_000L);
+        var id = candleId(BTC_USD, "1m", 1_000_000L);
         var original = candle(BTC_USD, "1m", 1_000_000L, 100, 105, 99, 102, 1);
 
         candleRepository.saveAndFlush(original);
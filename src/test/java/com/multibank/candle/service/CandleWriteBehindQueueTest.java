@@ -0,0 +1,158 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.config.KafkaConfig;
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleDelta;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.multibank.candle.utils.IntegrationTestConfig.BTC_USD;
+import static com.multibank.candle.utils.TestHelpers.KEYS;
+import static com.multibank.candle.utils.TestHelpers.candleId;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CandleWriteBehindQueueTest {
+
+    private static final long BASE_TS = 1_100_040L;
+
+    @Mock
+    private CandleAggregationOperation candleAggregationOperation;
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CandleConfigProperties properties = new CandleConfigProperties();
+    private CandleWriteBehindQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        properties.getWriteBehind().setEnabled(true).setCapacity(2);
+        properties.getEngine().setFlushInterval(Duration.ofMillis(10));
+        queue = new CandleWriteBehindQueue(candleAggregationOperation, listenerRegistry, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        queue.stop();
+    }
+
+    @Test
+    @DisplayName("Deltas queued before the writer drains are coalesced per candle and written in one batch")
+    void shouldCoalesceAndWriteInOneBatch() throws Exception {
+
+        // GIVEN
+        var written = new ArrayList<List<CandleDelta>>();
+        var overlaidWhileWriting = new ArrayList<Candle>();
+        var btc = KEYS.symbolId(BTC_USD);
+        var timeframeId = KEYS.timeframeId("1m");
+        doAnswer(inv -> {
+            queue.collectPending(btc, timeframeId, overlaidWhileWriting);
+            inv.<Runnable>getArgument(2).run();
+            return written.add(new ArrayList<>(inv.<Collection<CandleDelta>>getArgument(0)));
+        }).when(candleAggregationOperation).mergeCandles(anyCollection(), anyCollection(), any());
+
+        queue.enqueue(List.of(delta(BTC_USD, 100.0, 2L)), List.of());
+        var future = queue.enqueue(List.of(delta(BTC_USD, 104.0, 3L)), List.of());
+        assertThat(queue.depth()).isEqualTo(1);
+
+        // WHEN
+        queue.start();
+        future.get(5, TimeUnit.SECONDS);
+
+        // THEN
+        assertThat(written).hasSize(1);
+        assertThat(written.get(0)).singleElement()
+                .extracting(CandleDelta::candle)
+                .isEqualTo(new Candle(BASE_TS, 100.0, 104.0, 100.0, 104.0, 5L));
+        assertThat(overlaidWhileWriting).containsExactly(new Candle(BASE_TS, 100.0, 104.0, 100.0, 104.0, 5L));
+        var overlaidAfterWrite = new ArrayList<Candle>();
+        queue.collectPending(btc, timeframeId, overlaidAfterWrite);
+        assertThat(overlaidAfterWrite).isEmpty();
+        assertThat(queue.depth()).isZero();
+        assertThat(meterRegistry.get("candle.writebehind.batch.size").summary().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("candle.writebehind.flush").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Consumption is paused at capacity and resumed once the writer drained the queue")
+    void shouldPauseAtCapacityAndResumeAfterWrite() throws Exception {
+
+        // GIVEN
+        when(listenerRegistry.getListenerContainer(KafkaConfig.AGGREGATOR_LISTENER_ID)).thenReturn(container);
+
+        // WHEN
+        var future = queue.enqueue(List.of(delta(BTC_USD, 100.0, 1L), delta("ETH-USD", 10.0, 1L)), List.of());
+
+        // THEN
+        verify(container).pause();
+        verify(container, never()).resume();
+
+        queue.start();
+        future.get(5, TimeUnit.SECONDS);
+
+        verify(container, timeout(5_000)).resume();
+    }
+
+    @Test
+    @DisplayName("A container already paused elsewhere is not paused nor resumed by the queue")
+    void shouldNotResumeContainerPausedElsewhere() throws Exception {
+
+        // GIVEN
+        when(listenerRegistry.getListenerContainer(KafkaConfig.AGGREGATOR_LISTENER_ID)).thenReturn(container);
+        when(container.isPauseRequested()).thenReturn(true);
+
+        // WHEN
+        var future = queue.enqueue(List.of(delta(BTC_USD, 100.0, 1L), delta("ETH-USD", 10.0, 1L)), List.of());
+        queue.start();
+        future.get(5, TimeUnit.SECONDS);
+
+        // THEN
+        verify(container, never()).pause();
+        verify(container, after(200).never()).resume();
+    }
+
+    @Test
+    @DisplayName("A failed write is retried and the future only completes once it succeeded")
+    void shouldRetryFailedWriteBeforeCompleting() throws Exception {
+
+        // GIVEN
+        doThrow(new RuntimeException("db down")).doNothing()
+                .when(candleAggregationOperation).mergeCandles(anyCollection(), anyCollection(), any());
+
+        var future = queue.enqueue(List.of(delta(BTC_USD, 100.0, 1L)), List.of());
+
+        // WHEN
+        queue.start();
+        future.get(5, TimeUnit.SECONDS);
+
+        // THEN
+        verify(candleAggregationOperation, times(2)).mergeCandles(anyCollection(), anyCollection(), any());
+        assertThat(queue.enqueue(List.of(), List.of())).isDone();
+    }
+
+    private static CandleDelta delta(String symbol, double price, long volume) {
+        return new CandleDelta(candleId(symbol, "1m", BASE_TS), new Candle(BASE_TS, price, price, price, price, volume));
+    }
+}
@@ -0,0 +1,207 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.config.KafkaConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatchUpMonitorTest {
+
+    private static final TopicPartition PARTITION_0 = new TopicPartition("bid-ask-events", 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition("bid-ask-events", 1);
+
+    @Mock
+    private CandleAggregationEngine candleAggregationEngine;
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private Consumer<String, Object> consumer;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CandleConfigProperties properties = new CandleConfigProperties();
+    private CatchUpMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        properties.getCatchUp().setEnabled(true).setEnterLag(1_000).setExitLag(10);
+        monitor = new CatchUpMonitor(candleAggregationEngine, listenerRegistry, properties, meterRegistry);
+        lenient().when(consumer.assignment()).thenReturn(Set.of(PARTITION_0, PARTITION_1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.stop();
+    }
+
+    @Test
+    @DisplayName("Catch-up is entered when the total lag reaches the threshold and left once caught up")
+    void shouldEnterAndLeaveCatchUpOnLag() {
+
+        // GIVEN
+        lag(400, 400);
+        monitor.onBatch(consumer, 500);
+        assertThat(monitor.isActive()).isFalse();
+
+        // WHEN
+        lag(600, 500);
+        monitor.onBatch(consumer, 500);
+
+        // THEN
+        assertThat(monitor.isActive()).isTrue();
+        verify(candleAggregationEngine).onCatchUp(true);
+        assertThat(meterRegistry.get("candle.catchup.active").gauge().value()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("candle.catchup.lag").gauge().value()).isEqualTo(1_100.0);
+
+        // WHEN: below the enter threshold but not caught up yet
+        lag(300, 200);
+        monitor.onBatch(consumer, 500);
+        assertThat(monitor.isActive()).isTrue();
+
+        // WHEN
+        lag(5, 5);
+        monitor.onBatch(consumer, 500);
+
+        // THEN
+        assertThat(monitor.isActive()).isFalse();
+        verify(candleAggregationEngine).onCatchUp(false);
+    }
+
+    @Test
+    @DisplayName("Progress is measured against the lag catch-up started with")
+    void shouldReportProgress() {
+
+        // GIVEN
+        lag(1_000, 1_000);
+        monitor.onBatch(consumer, 100);
+
+        // WHEN
+        lag(250, 250);
+        monitor.onBatch(consumer, 1_500);
+
+        // THEN
+        var status = monitor.status();
+        assertThat(status.active()).isTrue();
+        assertThat(status.lag()).isEqualTo(500L);
+        assertThat(status.startLag()).isEqualTo(2_000L);
+        assertThat(status.consumed()).isEqualTo(1_500L);
+        assertThat(status.progress()).isEqualTo(0.75);
+        assertThat(status.startedAt()).isNotNull();
+        assertThat(status.estimatedCompletion()).isAfterOrEqualTo(status.startedAt());
+    }
+
+    @Test
+    @DisplayName("The lag of revoked partitions no longer counts, so it can not hold catch-up on")
+    void shouldForgetLagOfRevokedPartitions() {
+
+        // GIVEN: partition 1 is far behind, then moves to another instance
+        lag(0, 5_000);
+        monitor.onBatch(consumer, 100);
+        assertThat(monitor.isActive()).isTrue();
+
+        // WHEN
+        monitor.onPartitionsRevoked(List.of(PARTITION_1));
+        when(consumer.assignment()).thenReturn(Set.of(PARTITION_0));
+        monitor.onBatch(consumer, 100);
+
+        // THEN
+        assertThat(monitor.lag()).isZero();
+        assertThat(monitor.isActive()).isFalse();
+    }
+
+    @Test
+    @DisplayName("A catch-up started on request survives low-lag batches until it is finished")
+    void shouldKeepManualCatchUpUntilFinished() {
+
+        // GIVEN
+        monitor.start();
+
+        // WHEN
+        lag(0, 5);
+        monitor.onBatch(consumer, 100);
+
+        // THEN
+        assertThat(monitor.isActive()).isTrue();
+
+        // WHEN
+        monitor.finish();
+
+        // THEN
+        assertThat(monitor.isActive()).isFalse();
+        verify(candleAggregationEngine).onCatchUp(false);
+    }
+
+    @Test
+    @DisplayName("A catch-up started on request ends like a lag-driven one once the lag has built up and drained")
+    void shouldLeaveManualCatchUpOnceTargetReached() {
+
+        // GIVEN: started right before a backfill, which then builds up lag
+        monitor.start();
+        lag(800, 800);
+        monitor.onBatch(consumer, 100);
+        assertThat(monitor.isActive()).isTrue();
+
+        // WHEN
+        lag(5, 0);
+        monitor.onBatch(consumer, 1_600);
+
+        // THEN
+        assertThat(monitor.isActive()).isFalse();
+    }
+
+    @Test
+    @DisplayName("The aggregator's running container is restarted with the catch-up consumer settings and back")
+    void shouldRestartContainersWithCatchUpConsumerProperties() {
+
+        // GIVEN
+        properties.getCatchUp().setConsumerProperties(Map.of("max.poll.records", "5000"));
+        var container = mock(MessageListenerContainer.class);
+        var containerProperties = new ContainerProperties("bid-ask-events");
+        when(container.isRunning()).thenReturn(true);
+        when(container.getContainerProperties()).thenReturn(containerProperties);
+        when(listenerRegistry.getListenerContainer(KafkaConfig.AGGREGATOR_LISTENER_ID)).thenReturn(container);
+
+        // WHEN
+        monitor.start();
+
+        // THEN
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> verify(container).start());
+        verify(container).stop();
+        assertThat(containerProperties.getKafkaConsumerProperties()).containsEntry("max.poll.records", "5000");
+
+        // WHEN
+        monitor.finish();
+
+        // THEN
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> verify(container, times(2)).start());
+        assertThat(containerProperties.getKafkaConsumerProperties()).doesNotContainKey("max.poll.records");
+    }
+
+    private void lag(long partition0, long partition1) {
+        when(consumer.currentLag(PARTITION_0)).thenReturn(OptionalLong.of(partition0));
+        when(consumer.currentLag(PARTITION_1)).thenReturn(OptionalLong.of(partition1));
+    }
+}
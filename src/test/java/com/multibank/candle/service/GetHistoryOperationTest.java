@@ -2,7 +2,12 @@ package com.multibank.candle.service;
 
 import com.multibank.candle.config.CandleConfigProperties;
 import com.multibank.candle.config.TimeFrameConfig;
+import com.multibank.candle.domain.BidAskEvent;
 import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.repository.AggregationCheckpointRepository;
+import com.multibank.candle.repository.CandleAmendmentRepository;
+import com.multibank.candle.repository.entity.CandleId;
 import com.multibank.candle.utils.TestHelpers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -10,12 +15,29 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 
+import java.time.Duration;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import static com.multibank.candle.utils.TestHelpers.KEYS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyShort;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,13 +48,34 @@ class GetHistoryOperationTest {
     @Mock
     private CandleService candleService;
 
+    @Mock
+    private CandleAggregationOperation candleAggregationOperation;
+
+    @Mock
+    private CandleWriteBehindQueue writeBehindQueue;
+
+    @Mock
+    private CandleAmendmentRepository amendmentRepository;
+
+    @Mock
+    private AggregationCheckpointRepository checkpointRepository;
+
+    private CandleConfigProperties properties;
+    private CandleAggregationEngine aggregationEngine;
+    private RecentCandleBuffer recentCandles;
+
     private GetHistoryOperation getHistoryOperation;
 
     @BeforeEach
     void setUp() {
-        CandleConfigProperties properties = new CandleConfigProperties();
+        properties = new CandleConfigProperties();
         properties.setTimeframes(List.of(new TimeFrameConfig("MIN_1", "1m", 60L)));
-        getHistoryOperation = new GetHistoryOperation(candleService, properties);
+        aggregationEngine = new CandleAggregationEngine(candleAggregationOperation, KEYS, writeBehindQueue, amendmentRepository, checkpointRepository, properties);
+        // recent candles are covered from 1_000_020 on, the first minute after this clock
+        recentCandles = new RecentCandleBuffer(properties, KEYS, () -> 1_000_000L);
+        getHistoryOperation = new GetHistoryOperation(candleService, aggregationEngine, KEYS, properties,
+                new HistoryChunkCache(new ConcurrentMapCacheManager(HistoryChunkCache.HISTORY_CHUNK_CACHE), KEYS, properties),
+                recentCandles);
     }
 
     @Test
@@ -47,16 +90,16 @@ class GetHistoryOperationTest {
         var t2 = base + 60;
         var t3 = base + 120;
 
-        var c1 = TestHelpers.candle(symbol, tf.getCode(), t1, 100, 105, 99, 102, 10);
-        var c2 = TestHelpers.candle(symbol, tf.getCode(), t2, 102, 110, 101, 108, 15);
-        var c3 = TestHelpers.candle(symbol, tf.getCode(), t3, 108, 112, 107, 111, 20);
+        var c1 = new Candle(t1, 100, 105, 99, 102, 10);
+        var c2 = new Candle(t2, 102, 110, 101, 108, 15);
+        var c3 = new Candle(t3, 108, 112, 107, 111, 20);
 
         var from = base;
         var to = base + 120;
 
         // We mock the service to return EXACTLY the candles inside [from, to],
         // already filtered and ordered, as the repository would do.
-        when(candleService.getHistory(eq(symbol), eq(tf), eq(from), eq(to)))
+        when(candleService.getHistory(eq(KEYS.symbolId(symbol)), eq(KEYS.timeframeId(tf.getCode())), eq(from), eq(to)))
                 .thenReturn(List.of(c1, c2, c3));
 
         // WHEN ---
@@ -88,13 +131,200 @@ class GetHistoryOperationTest {
         long from = 2_000_000L;
         long to = 2_000_060L;
 
-        when(candleService.getHistory(eq(BTC_USD), eq(tf), eq(from), eq(to))).thenReturn(List.of());
+        when(candleService.getHistory(eq(KEYS.symbolId(BTC_USD)), eq(KEYS.timeframeId(tf.getCode())), eq(from), eq(to)))
+                .thenReturn(List.of());
 
         List<Candle> result = getHistoryOperation.getHistory(BTC_USD, tf.getCode(), from, to);
 
         assertThat(result).isEmpty();
     }
 
+    @Test
+    @DisplayName("Returns empty list without querying for a symbol that was never registered")
+    void shouldReturnEmptyListForUnknownSymbol() {
+        var tf = TestHelpers.oneMinuteTf();
+
+        List<Candle> result = getHistoryOperation.getHistory("NEVER-SEEN", tf.getCode(), 2_000_000L, 2_000_060L);
+
+        assertThat(result).isEmpty();
+        verifyNoInteractions(candleService);
+    }
+
+    @Test
+    @DisplayName("Sealed candles are read once and then served from the cache")
+    void shouldCacheSealedRange() {
+
+        // GIVEN: the watermark sealed every candle before base + 120 and it has been flushed
+        properties.getEngine().setAllowedLateness(Duration.ZERO);
+        properties.getHistoryCache().setChunkCandles(1);
+        var tf = TestHelpers.oneMinuteTf();
+        var base = 1_000_020L;
+        var c1 = new Candle(base, 100, 105, 99, 102, 10);
+
+        aggregationEngine.apply(new BidAskEvent(BTC_USD, 100.0, 102.0, base + 130));
+        aggregationEngine.flush();
+        assertThat(aggregationEngine.sealedUntil(KEYS.symbolId(BTC_USD), tf)).isEqualTo(base + 120);
+
+        // both one-candle chunks of the range are closed and loaded with one query
+        when(candleService.getHistory(eq(KEYS.symbolId(BTC_USD)), eq(KEYS.timeframeId(tf.getCode())), eq(base), eq(base + 119)))
+                .thenReturn(List.of(c1));
+
+        // WHEN
+        var first = getHistoryOperation.getHistory(BTC_USD, tf.getCode(), base, base + 60);
+        var second = getHistoryOperation.getHistory(BTC_USD, tf.getCode(), base, base + 60);
+
+        // THEN
+        assertThat(first).extracting(Candle::time).containsExactly(base);
+        assertThat(second).isEqualTo(first);
+        verify(candleService, times(1)).getHistory(anyInt(), anyShort(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("A range inside the recent candles window is served from memory with the pending ticks overlaid")
+    void shouldServeRecentRangeWithoutDatabase() {
+
+        // GIVEN: committed candles at base and base + 60, a tick still in memory for base + 120
+        var tf = TestHelpers.oneMinuteTf();
+        var base = 1_000_020L;
+        var symbolId = KEYS.symbolId(BTC_USD);
+        var timeframeId = KEYS.timeframeId(tf.getCode());
+        recentCandles.append(List.of(
+                new CandleDelta(new CandleId(symbolId, timeframeId, base), new Candle(base, 100, 105, 99, 102, 10)),
+                new CandleDelta(new CandleId(symbolId, timeframeId, base + 60), new Candle(base + 60, 102, 110, 101, 108, 15))));
+        aggregationEngine.apply(new BidAskEvent(BTC_USD, 120.0, 122.0, base + 125));
+
+        // WHEN
+        var result = getHistoryOperation.getHistory(BTC_USD, tf.getCode(), base, base + 180);
+
+        // THEN
+        assertThat(result).extracting(Candle::time).containsExactly(base, base + 60, base + 120);
+        assertThat(result.get(1).close()).isEqualTo(108);
+        assertThat(result.get(2).close()).isEqualTo(121.0);
+        verifyNoInteractions(candleService);
+    }
+
+    @Test
+    @DisplayName("An interval that is not configured is resampled from the stored and pending candles of a divisor")
+    void shouldResampleUnconfiguredInterval() {
+
+        // GIVEN: 1m candles covering two 3m buckets, one more tick still in memory
+        var tf = TestHelpers.oneMinuteTf();
+        var base = 1_000_080L; // aligned to 3m
+        aggregationEngine.apply(new BidAskEvent(BTC_USD, 120.0, 122.0, base + 310));
+        when(candleService.getHistory(eq(KEYS.symbolId(BTC_USD)), eq(KEYS.timeframeId(tf.getCode())), eq(base), eq(base + 359)))
+                .thenReturn(List.of(
+                        new Candle(base, 100, 105, 99, 102, 10),
+                        new Candle(base + 60, 102, 110, 101, 108, 15),
+                        new Candle(base + 120, 108, 109, 95, 96, 5),
+                        new Candle(base + 180, 96, 100, 96, 99, 1),
+                        new Candle(base + 300, 99, 99, 98, 98, 2)));
+
+        // WHEN: the range starts inside the bucket before base and ends inside base + 180
+        var result = getHistoryOperation.getHistory(BTC_USD, "3m", base - 10, base + 200);
+
+        // THEN
+        assertThat(result).containsExactly(
+                new Candle(base, 100, 110, 95, 96, 30),
+                new Candle(base + 180, 96, 121.0, 96, 121.0, 4));
+    }
+
+    @Test
+    @DisplayName("Intervals that can not be built from a configured timeframe are rejected")
+    void shouldRejectIntervalsWithoutDivisor() {
+        assertThatThrownBy(() -> getHistoryOperation.getHistory(BTC_USD, "90s", 1_000_000L, 1_000_600L))
+                .hasMessage("Timeframe does not exists");
+        assertThatThrownBy(() -> getHistoryOperation.getHistory(BTC_USD, "3x", 1_000_000L, 1_000_600L))
+                .hasMessage("Timeframe does not exists");
+        verifyNoInteractions(candleService);
+    }
+
+    @Test
+    @DisplayName("A batch reads the series outside the recent candles with one query per interval")
+    void shouldReadBatchWithOneQueryPerInterval() {
+
+        // GIVEN: ETH-USD is in the recent candles, BTC-USD is stored only, NEVER-SEEN is unknown
+        var tf = TestHelpers.oneMinuteTf();
+        var base = 1_000_080L; // aligned to 3m
+        var btc = KEYS.symbolId(BTC_USD);
+        var eth = KEYS.symbolId("ETH-USD");
+        var timeframeId = KEYS.timeframeId(tf.getCode());
+        recentCandles.append(List.of(new CandleDelta(new CandleId(eth, timeframeId, base + 60), new Candle(base + 60, 10, 12, 9, 11, 3))));
+        when(candleService.getHistories(argThat(ids -> ids != null && List.copyOf(ids).equals(List.of(btc))), eq(timeframeId), eq(base), eq(base + 120)))
+                .thenReturn(Map.of(btc, List.of(new Candle(base, 100, 105, 99, 102, 10), new Candle(base + 60, 102, 110, 101, 108, 15))));
+        when(candleService.getHistories(argThat(ids -> ids != null && List.copyOf(ids).equals(List.of(btc))), eq(timeframeId), eq(base), eq(base + 179)))
+                .thenReturn(Map.of(btc, List.of(new Candle(base, 100, 105, 99, 102, 10), new Candle(base + 60, 102, 110, 101, 108, 15))));
+
+        // WHEN
+        var histories = getHistoryOperation.getHistories(List.of(BTC_USD, "ETH-USD", "NEVER-SEEN"), List.of("1m", "3m"), base, base + 120);
+
+        // THEN
+        assertThat(histories).extracting(GetHistoryOperation.SeriesHistory::symbol, GetHistoryOperation.SeriesHistory::interval)
+                .containsExactly(tuple(BTC_USD, "1m"), tuple("ETH-USD", "1m"), tuple("NEVER-SEEN", "1m"),
+                        tuple(BTC_USD, "3m"), tuple("ETH-USD", "3m"), tuple("NEVER-SEEN", "3m"));
+        assertThat(histories.get(0).candles()).extracting(Candle::time).containsExactly(base, base + 60);
+        assertThat(histories.get(1).candles()).containsExactly(new Candle(base + 60, 10, 12, 9, 11, 3));
+        assertThat(histories.get(2).candles()).isEmpty();
+        assertThat(histories.get(3).candles()).containsExactly(new Candle(base, 100, 110, 99, 108, 25));
+        assertThat(histories.get(4).candles()).containsExactly(new Candle(base, 10, 12, 9, 11, 3));
+        verify(candleService, times(2)).getHistories(any(), anyShort(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("A batch with more series than allowed is rejected before reading anything")
+    void shouldRejectOversizedBatch() {
+        properties.getHistoryBatch().setMaxSeries(3);
+
+        assertThatThrownBy(() -> getHistoryOperation.getHistories(List.of(BTC_USD, "ETH-USD"), List.of("1m", "3m"), 1_000_000L, 1_000_600L))
+                .hasMessage("Between 1 and 3 series are allowed");
+        verifyNoInteractions(candleService);
+    }
+
+    @Test
+    @DisplayName("Streaming merges the in-memory candles into the stored rows in time order")
+    void shouldStreamStoredAndPendingCandlesInOrder() {
+
+        // GIVEN: stored candles at base and base + 120, ticks in memory for base + 60 and base + 120
+        var tf = TestHelpers.oneMinuteTf();
+        var base = 1_000_020L;
+        aggregationEngine.apply(new BidAskEvent(BTC_USD, 100.0, 102.0, base + 70));
+        aggregationEngine.apply(new BidAskEvent(BTC_USD, 120.0, 122.0, base + 125));
+
+        doAnswer(invocation -> {
+            Consumer<Candle> sink = invocation.getArgument(4);
+            sink.accept(new Candle(base, 100, 105, 99, 102, 10));
+            sink.accept(new Candle(base + 120, 108, 112, 107, 111, 20));
+            return null;
+        }).when(candleService).streamHistory(eq(KEYS.symbolId(BTC_USD)), eq(KEYS.timeframeId(tf.getCode())),
+                eq(base), eq(base + 180), any());
+
+        // WHEN
+        var streamed = new ArrayList<Candle>();
+        getHistoryOperation.streamHistory(BTC_USD, tf.getCode(), base, base + 180, streamed::add);
+
+        // THEN
+        assertThat(streamed).extracting(Candle::time).containsExactly(base, base + 60, base + 120);
+        assertThat(streamed.get(1).close()).isEqualTo(101.0);
+        var merged = streamed.get(2);
+        assertThat(merged.open()).isEqualTo(108);
+        assertThat(merged.high()).isEqualTo(121.0);
+        assertThat(merged.close()).isEqualTo(121.0);
+        assertThat(merged.volume()).isEqualTo(21);
+    }
+
+    @Test
+    @DisplayName("Streaming emits the in-memory candles when nothing is stored")
+    void shouldStreamPendingCandlesWithoutStoredRows() {
+
+        var tf = TestHelpers.oneMinuteTf();
+        var base = 1_000_020L;
+        aggregationEngine.apply(new BidAskEvent(BTC_USD, 100.0, 102.0, base + 10));
+
+        var streamed = new ArrayList<Candle>();
+        getHistoryOperation.streamHistory(BTC_USD, tf.getCode(), base, base + 60, streamed::add);
+
+        assertThat(streamed).extracting(Candle::time).containsExactly(base);
+    }
+
     @Test
     @DisplayName("Throws when 'from' is greater or equal to 'to'")
     void shouldThrowWhenFromIsGreaterOrEqualToTo() {
@@ -0,0 +1,147 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.config.TimeFrameConfig;
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.utils.TestHelpers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.multibank.candle.utils.IntegrationTestConfig.BTC_USD;
+import static com.multibank.candle.utils.TestHelpers.KEYS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryChunkCacheTest {
+
+    // chunks of 10 one-minute candles span 600s
+    private static final long SPAN = 600L;
+    private static final long BASE = 1_000_200L; // aligned to the chunk span
+
+    private final TimeFrameConfig tf = TestHelpers.oneMinuteTf();
+    private final List<Candle> stored = new ArrayList<>();
+    private final List<long[]> loads = new ArrayList<>();
+
+    private HistoryChunkCache cache;
+    private int symbolId;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new CandleConfigProperties();
+        properties.setTimeframes(List.of(tf));
+        properties.getHistoryCache().setChunkCandles(10);
+        cache = new HistoryChunkCache(new ConcurrentMapCacheManager(HistoryChunkCache.HISTORY_CHUNK_CACHE), KEYS, properties);
+        symbolId = KEYS.symbolId(BTC_USD);
+        for (long time = BASE; time < BASE + 10 * SPAN; time += 60) {
+            stored.add(new Candle(time, 100, 101, 99, 100, 1));
+        }
+    }
+
+    @Test
+    @DisplayName("A sliding 'to' reuses the closed chunks and only reads the open tail again")
+    void shouldStitchCachedChunksWithTheOpenTail() {
+
+        // GIVEN: everything before BASE + 3 chunks is sealed
+        var sealedUntil = BASE + 3 * SPAN;
+
+        // WHEN
+        var first = cache.getHistory(symbolId, tf, BASE + 120, BASE + 3 * SPAN + 300, sealedUntil, this::load);
+        loads.clear();
+        var second = cache.getHistory(symbolId, tf, BASE + 180, BASE + 3 * SPAN + 360, sealedUntil, this::load);
+
+        // THEN
+        assertThat(first).extracting(Candle::time).containsExactlyElementsOf(times(BASE + 120, BASE + 3 * SPAN + 300));
+        assertThat(second).extracting(Candle::time).containsExactlyElementsOf(times(BASE + 180, BASE + 3 * SPAN + 360));
+        assertThat(loads).containsExactly(new long[]{BASE + 3 * SPAN, BASE + 3 * SPAN + 360});
+    }
+
+    @Test
+    @DisplayName("Consecutive missing chunks are read with one query")
+    void shouldLoadMissingChunksTogether() {
+
+        var history = cache.getHistory(symbolId, tf, BASE, BASE + 4 * SPAN - 1, BASE + 4 * SPAN, this::load);
+
+        assertThat(history).hasSize(40);
+        assertThat(loads).containsExactly(new long[]{BASE, BASE + 4 * SPAN - 1});
+    }
+
+    @Test
+    @DisplayName("A late update invalidates only the chunk it touches")
+    void shouldReloadInvalidatedChunk() {
+
+        // GIVEN
+        var sealedUntil = BASE + 3 * SPAN;
+        cache.getHistory(symbolId, tf, BASE, BASE + 3 * SPAN - 1, sealedUntil, this::load);
+        stored.set(12, new Candle(BASE + 720, 100, 150, 99, 100, 2));
+        loads.clear();
+
+        // WHEN
+        cache.invalidate(symbolId, KEYS.timeframeId(tf.getCode()), BASE + 720);
+        var history = cache.getHistory(symbolId, tf, BASE, BASE + 3 * SPAN - 1, sealedUntil, this::load);
+
+        // THEN
+        assertThat(loads).containsExactly(new long[]{BASE + SPAN, BASE + 2 * SPAN - 1});
+        assertThat(history.get(12).high()).isEqualTo(150);
+    }
+
+    @Test
+    @DisplayName("Resampled chunks are cached under their own length and invalidated with their source candles")
+    void shouldReloadResampledChunkOfInvalidatedCandle() {
+
+        // GIVEN: 5m candles resampled from the 1m ones, in chunks of 10 spanning 3000s
+        var resampledBase = 1_002_000L;
+        var sealedUntil = resampledBase + 6_000;
+        HistoryChunkCache.RangeLoader resampled = (from, to) -> CandleResampler.resample(load(from, to), 300);
+        var first = cache.getHistory(symbolId, tf, 300, resampledBase, sealedUntil - 1, sealedUntil, resampled);
+        stored.set(31, new Candle(resampledBase + 60, 100, 150, 99, 100, 1));
+        loads.clear();
+
+        // WHEN
+        cache.invalidate(symbolId, KEYS.timeframeId(tf.getCode()), resampledBase + 60);
+        var second = cache.getHistory(symbolId, tf, 300, resampledBase, sealedUntil - 1, sealedUntil, resampled);
+
+        // THEN
+        assertThat(first).extracting(Candle::time).startsWith(resampledBase, resampledBase + 300);
+        assertThat(first.getFirst().volume()).isEqualTo(5);
+        assertThat(loads).containsExactly(new long[]{resampledBase, resampledBase + 2_999});
+        assertThat(second.getFirst().high()).isEqualTo(150);
+        assertThat(second).hasSameSizeAs(first);
+    }
+
+    @Test
+    @DisplayName("Chunks loaded while an invalidation runs are not kept")
+    void shouldDropChunksLoadedDuringInvalidation() {
+
+        // GIVEN: a write lands while the chunk is being read
+        var sealedUntil = BASE + SPAN;
+        cache.getHistory(symbolId, tf, BASE, BASE + SPAN - 1, sealedUntil, (from, to) -> {
+            var loaded = load(from, to);
+            cache.invalidateAll();
+            return loaded;
+        });
+        loads.clear();
+
+        // WHEN
+        cache.getHistory(symbolId, tf, BASE, BASE + SPAN - 1, sealedUntil, this::load);
+
+        // THEN
+        assertThat(loads).hasSize(1);
+    }
+
+    private List<Candle> load(long from, long to) {
+        loads.add(new long[]{from, to});
+        return stored.stream().filter(c -> c.time() >= from && c.time() <= to).toList();
+    }
+
+    private static List<Long> times(long from, long to) {
+        var times = new ArrayList<Long>();
+        for (long time = from; time <= to; time += 60) {
+            times.add(time);
+        }
+        return times;
+    }
+}
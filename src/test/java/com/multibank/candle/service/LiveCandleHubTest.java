@@ -0,0 +1,192 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.service.LiveCandleHub.Subscription;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static com.multibank.candle.utils.TestHelpers.KEYS;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LiveCandleHubTest {
+
+    private static final long NOW = 1_000_030L;
+    private static final long BUCKET = 1_000_020L;
+    private static final Subscription BTC_1M = new Subscription("BTC-USD", "1m");
+
+    @Mock
+    private GetHistoryOperation getHistoryOperation;
+
+    @Mock
+    private CandleAggregationEngine candleAggregationEngine;
+
+    private final CandleConfigProperties properties = new CandleConfigProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong changes = new AtomicLong();
+
+    private LiveCandleHub hub;
+
+    @BeforeEach
+    void setUp() {
+        hub = new LiveCandleHub(getHistoryOperation, candleAggregationEngine, KEYS, properties, meterRegistry, () -> NOW);
+        // every round sees new ticks unless a test says otherwise
+        lenient().when(candleAggregationEngine.changes(anyInt())).thenAnswer(inv -> changes.incrementAndGet());
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.stop();
+    }
+
+    @Test
+    @DisplayName("Changed candles are read once per pair and sent to every subscriber, unchanged ones are not resent")
+    void shouldFanOutChangedCandles() {
+
+        // GIVEN
+        when(getHistoryOperation.intervalSeconds("1m")).thenReturn(60L);
+        var first = new CopyOnWriteArrayList<Candle>();
+        var second = new CopyOnWriteArrayList<Candle>();
+        hub.subscribe(List.of(BTC_1M), (s, c) -> first.add(c), () -> {});
+        hub.subscribe(List.of(BTC_1M), (s, c) -> second.add(c), () -> {});
+
+        var open = new Candle(BUCKET, 100, 101, 99, 100, 3);
+        var updated = new Candle(BUCKET, 100, 102, 99, 102, 4);
+        when(getHistoryOperation.getHistory(eq("BTC-USD"), eq("1m"), eq(BUCKET - 60), anyLong())).thenReturn(List.of(open));
+        when(getHistoryOperation.getHistory(eq("BTC-USD"), eq("1m"), eq(BUCKET), anyLong()))
+                .thenReturn(List.of(open), List.of(updated));
+
+        // WHEN
+        hub.publish();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> first.size() == 1 && second.size() == 1);
+        hub.publish();
+        hub.publish();
+
+        // THEN
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
+            assertThat(first).containsExactly(open, updated);
+            assertThat(second).containsExactly(open, updated);
+        });
+
+        // a late subscriber gets the latest candle right away
+        var late = new CopyOnWriteArrayList<Candle>();
+        hub.subscribe(List.of(BTC_1M), (s, c) -> late.add(c), () -> {});
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(late).containsExactly(updated));
+    }
+
+    @Test
+    @DisplayName("Pairs whose symbol had no tick since the previous round are not read again")
+    void shouldSkipPairsWithoutNewTicks() {
+
+        // GIVEN
+        when(candleAggregationEngine.changes(KEYS.symbolId("BTC-USD"))).thenReturn(7L, 7L, 8L);
+        when(getHistoryOperation.intervalSeconds("1m")).thenReturn(60L);
+        when(getHistoryOperation.getHistory(eq("BTC-USD"), eq("1m"), anyLong(), anyLong()))
+                .thenReturn(List.of(new Candle(BUCKET, 100, 100, 100, 100, 1)));
+        hub.subscribe(List.of(BTC_1M), (s, c) -> {}, () -> {});
+
+        // WHEN
+        hub.publish();
+        hub.publish();
+        hub.publish();
+
+        // THEN
+        verify(getHistoryOperation, times(2)).getHistory(eq("BTC-USD"), eq("1m"), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("A slow subscriber only receives the latest candle of a pair once it catches up")
+    void shouldConflateUpdatesOfSlowSubscriber() throws InterruptedException {
+
+        // GIVEN: the first send blocks until released
+        when(getHistoryOperation.intervalSeconds("1m")).thenReturn(60L);
+        var release = new CountDownLatch(1);
+        var received = new CopyOnWriteArrayList<Candle>();
+        hub.subscribe(List.of(BTC_1M), (s, c) -> {
+            received.add(c);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, () -> {});
+
+        var v1 = new Candle(BUCKET, 100, 100, 100, 100, 1);
+        var v2 = new Candle(BUCKET, 100, 101, 100, 101, 2);
+        var v3 = new Candle(BUCKET, 100, 102, 100, 102, 3);
+        var v4 = new Candle(BUCKET + 60, 102, 102, 102, 102, 1);
+        when(getHistoryOperation.getHistory(eq("BTC-USD"), eq("1m"), eq(BUCKET - 60), anyLong())).thenReturn(List.of(v1));
+        when(getHistoryOperation.getHistory(eq("BTC-USD"), eq("1m"), eq(BUCKET), anyLong()))
+                .thenReturn(List.of(v2), List.of(v3, v4));
+
+        // WHEN: v2, v3 and v4 are published while v1 is still being sent
+        hub.publish();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 1);
+        hub.publish();
+        hub.publish();
+        release.countDown();
+
+        // THEN
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(received).containsExactly(v1, v4));
+        assertThat(meterRegistry.get("candle.live.conflated").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("A subscriber whose connection fails is dropped and its pairs are no longer read")
+    void shouldDropFailingSubscriber() {
+
+        // GIVEN
+        when(getHistoryOperation.intervalSeconds("1m")).thenReturn(60L);
+        when(getHistoryOperation.getHistory(eq("BTC-USD"), eq("1m"), anyLong(), anyLong()))
+                .thenReturn(List.of(new Candle(BUCKET, 100, 100, 100, 100, 1)));
+        var failed = new AtomicBoolean();
+        hub.subscribe(List.of(BTC_1M), (s, c) -> {
+            throw new IOException("broken pipe");
+        }, () -> failed.set(true));
+
+        // WHEN
+        hub.publish();
+        await().atMost(5, TimeUnit.SECONDS).untilTrue(failed);
+        clearInvocations(getHistoryOperation);
+        hub.publish();
+
+        // THEN
+        verify(getHistoryOperation, never()).getHistory(eq("BTC-USD"), eq("1m"), anyLong(), anyLong());
+        assertThat(meterRegistry.get("candle.live.subscribers").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Subscriptions beyond the per-connection limit are rejected")
+    void shouldRejectTooManySubscriptions() {
+        properties.getLive().setMaxSubscriptions(1);
+
+        assertThatThrownBy(() -> hub.subscribe(List.of(BTC_1M, new Subscription("ETH-USD", "1m")), (s, c) -> {}, () -> {}))
+                .isInstanceOf(RuntimeException.class);
+    }
+}
@@ -0,0 +1,216 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.domain.Candle;
+import com.multibank.candle.domain.CandleDelta;
+import com.multibank.candle.repository.entity.CandleId;
+import com.multibank.candle.utils.TestHelpers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static com.multibank.candle.utils.IntegrationTestConfig.BTC_USD;
+import static com.multibank.candle.utils.TestHelpers.KEYS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentCandleBufferTest {
+
+    // the clock sits one second before BASE, so coverage starts with the BASE bucket
+    private static final long BASE = 1_000_020L;
+
+    private final CandleConfigProperties properties = new CandleConfigProperties();
+    private final AtomicLong clock = new AtomicLong(BASE - 1);
+
+    private RecentCandleBuffer buffer;
+    private int symbolId;
+    private short timeframeId;
+
+    @BeforeEach
+    void setUp() {
+        var tf = TestHelpers.oneMinuteTf();
+        properties.setTimeframes(List.of(tf));
+        properties.getRecentCandles().setCapacity(4);
+        buffer = new RecentCandleBuffer(properties, KEYS, clock::get);
+        symbolId = KEYS.symbolId(BTC_USD);
+        timeframeId = KEYS.timeframeId(tf.getCode());
+    }
+
+    @Test
+    @DisplayName("Deltas of the same bucket are merged and a range inside the window is served in time order")
+    void shouldMergeDeltasAndServeRange() {
+
+        // GIVEN: two deltas for BASE, one for BASE + 120, nothing for BASE + 60
+        buffer.append(List.of(
+                delta(BASE, new Candle(BASE, 100, 105, 99, 102, 10)),
+                delta(BASE + 120, new Candle(BASE + 120, 108, 112, 107, 111, 20)),
+                delta(BASE, new Candle(BASE, 103, 107, 98, 104, 5))));
+
+        // WHEN
+        var result = buffer.find(symbolId, timeframeId, BASE, BASE + 600);
+
+        // THEN
+        assertThat(result).hasValueSatisfying(candles -> assertThat(candles).containsExactly(
+                new Candle(BASE, 100, 107, 98, 104, 15),
+                new Candle(BASE + 120, 108, 112, 107, 111, 20)));
+    }
+
+    @Test
+    @DisplayName("Ranges starting before the covered buckets or outside the window are not served")
+    void shouldNotServeRangesOutsideTheWindow() {
+
+        // GIVEN: six buckets written into a ring of four, plus a delta for a bucket before coverage
+        for (long time = BASE; time < BASE + 6 * 60; time += 60) {
+            buffer.append(List.of(delta(time, new Candle(time, 100, 100, 100, 100, 1))));
+        }
+        buffer.append(List.of(delta(BASE - 60, new Candle(BASE - 60, 100, 100, 100, 100, 1))));
+
+        // THEN
+        assertThat(buffer.find(symbolId, timeframeId, BASE - 60, BASE + 600)).isEmpty();
+        assertThat(buffer.find(symbolId, timeframeId, BASE + 60, BASE + 600)).isEmpty();
+        assertThat(buffer.find(symbolId, timeframeId, BASE + 120, BASE + 600))
+                .hasValueSatisfying(candles -> assertThat(candles).extracting(Candle::time)
+                        .containsExactly(BASE + 120, BASE + 180, BASE + 240, BASE + 300));
+        assertThat(buffer.find(KEYS.symbolId("ETH-USD"), timeframeId, BASE, BASE + 600)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Candles written outside the merge path and cleared series are no longer served")
+    void shouldStopServingInvalidatedAndClearedCandles() {
+
+        // GIVEN
+        buffer.append(List.of(
+                delta(BASE, new Candle(BASE, 100, 100, 100, 100, 1)),
+                delta(BASE + 60, new Candle(BASE + 60, 100, 100, 100, 100, 1))));
+
+        // WHEN: BASE is saved directly
+        buffer.invalidate(symbolId, timeframeId, BASE);
+
+        // THEN
+        assertThat(buffer.find(symbolId, timeframeId, BASE, BASE + 60)).isEmpty();
+        assertThat(buffer.find(symbolId, timeframeId, BASE + 60, BASE + 60)).isPresent();
+
+        // WHEN: cleared while the clock is inside BASE + 60
+        clock.set(BASE + 70);
+        buffer.clear();
+        buffer.append(List.of(delta(BASE + 60, new Candle(BASE + 60, 100, 100, 100, 100, 1))));
+
+        // THEN: BASE + 60 may have been written before the clear, coverage restarts after it
+        assertThat(buffer.find(symbolId, timeframeId, BASE + 60, BASE + 120)).isEmpty();
+        assertThat(buffer.find(symbolId, timeframeId, BASE + 120, BASE + 180))
+                .hasValueSatisfying(candles -> assertThat(candles).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A series first written after the process started only answers from the bucket after its first write")
+    void shouldStartCoverageWhenTheSeriesIsFirstWritten() {
+
+        // GIVEN: the partition is assigned here well after startup, the previous owner wrote BASE + 120 meanwhile
+        clock.set(BASE + 130);
+
+        // WHEN
+        buffer.append(List.of(delta(BASE + 120, new Candle(BASE + 120, 100, 100, 100, 100, 1))));
+        buffer.append(List.of(delta(BASE + 180, new Candle(BASE + 180, 100, 100, 100, 100, 1))));
+
+        // THEN
+        assertThat(buffer.find(symbolId, timeframeId, BASE, BASE + 240)).isEmpty();
+        assertThat(buffer.find(symbolId, timeframeId, BASE + 120, BASE + 240)).isEmpty();
+        assertThat(buffer.find(symbolId, timeframeId, BASE + 180, BASE + 240))
+                .hasValueSatisfying(candles -> assertThat(candles).extracting(Candle::time).containsExactly(BASE + 180));
+    }
+
+    @Test
+    @DisplayName("A late delta widens the buffered candle but keeps its newer close")
+    void shouldKeepNewerCloseOnLateDelta() {
+
+        // GIVEN
+        clock.set(BASE - 10);
+        var id = new CandleId(symbolId, timeframeId, BASE);
+        buffer.append(List.of(new CandleDelta(id, new Candle(BASE, 100, 105, 99, 104, 2), BASE + 20, BASE + 50)));
+
+        // WHEN
+        buffer.append(List.of(CandleDelta.ofTick(id, 97, BASE + 30)));
+
+        // THEN
+        assertThat(buffer.find(symbolId, timeframeId, BASE, BASE + 60))
+                .hasValueSatisfying(candles -> assertThat(candles)
+                        .containsExactly(new Candle(BASE, 100, 105, 97, 104, 3)));
+    }
+
+    @Test
+    @DisplayName("Series beyond the limit are dropped and no longer served")
+    void shouldBoundTheNumberOfSeries() {
+
+        // GIVEN
+        properties.getRecentCandles().setMaxSeries(1);
+        buffer = new RecentCandleBuffer(properties, KEYS, clock::get);
+        var eth = KEYS.symbolId("ETH-USD");
+        buffer.append(List.of(delta(BASE, new Candle(BASE, 100, 100, 100, 100, 1))));
+
+        // WHEN
+        buffer.append(List.of(new CandleDelta(new CandleId(eth, timeframeId, BASE), new Candle(BASE, 10, 10, 10, 10, 1))));
+
+        // THEN: one of the two was dropped
+        assertThat(Stream.of(symbolId, eth).map(id -> buffer.find(id, timeframeId, BASE, BASE + 60)))
+                .filteredOn(Optional::isPresent)
+                .hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Readers never see a partially written candle while the writer keeps appending")
+    void shouldNeverReadTornCandles() throws InterruptedException {
+
+        // GIVEN: every bucket gets 50 one-tick deltas priced 1..50, so at any point of time
+        // open == low == 1 and high == close == volume
+        properties.getRecentCandles().setCapacity(64);
+        var written = new AtomicLong(BASE);
+        var done = new AtomicBoolean();
+        var served = new AtomicInteger();
+        var torn = new CopyOnWriteArrayList<Candle>();
+
+        var readers = new ArrayList<Thread>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(Thread.ofPlatform().start(() -> {
+                while (!done.get()) {
+                    var newest = written.get();
+                    buffer.find(symbolId, timeframeId, Math.max(BASE, newest - 30 * 60), newest + 60).ifPresent(candles -> {
+                        served.incrementAndGet();
+                        for (Candle c : candles) {
+                            if (c.open() != 1 || c.low() != 1 || c.high() != c.close() || c.close() != c.volume()) {
+                                torn.add(c);
+                            }
+                        }
+                    });
+                }
+            }));
+        }
+
+        // WHEN
+        for (long time = BASE; time < BASE + 2_000 * 60; time += 60) {
+            written.set(time);
+            for (int price = 1; price <= 50; price++) {
+                buffer.append(List.of(delta(time, new Candle(time, price, price, price, price, 1))));
+            }
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        // THEN
+        assertThat(torn).isEmpty();
+        assertThat(served.get()).isPositive();
+    }
+
+    private CandleDelta delta(long time, Candle candle) {
+        return new CandleDelta(new CandleId(symbolId, timeframeId, time), candle);
+    }
+}
@@ -0,0 +1,58 @@
+package com.multibank.candle.service;
+
+import com.multibank.candle.config.CandleConfigProperties;
+import com.multibank.candle.kafka.BidAskEventListener;
+import com.multibank.candle.tape.TickTapeReader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static com.multibank.candle.utils.IntegrationTestConfig.BTC_USD;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class TickTapeRunnerTest {
+
+    @Mock
+    private BidAskEventListener bidAskEventListener;
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    @DisplayName("Two simulation runs with the same settings write byte-identical tapes starting at simulate-from")
+    void shouldSimulateReproducibleTapes() throws Exception {
+
+        // GIVEN
+        var first = dir.resolve("first.tape");
+        var second = dir.resolve("second.tape");
+
+        // WHEN
+        simulate(first);
+        Thread.sleep(1_100);
+        simulate(second);
+
+        // THEN
+        assertThat(Files.readAllBytes(second)).isEqualTo(Files.readAllBytes(first));
+        try (var reader = new TickTapeReader(first)) {
+            assertThat(reader.next().timestamp()).isEqualTo(new CandleConfigProperties().getTape().getSimulateFrom());
+        }
+    }
+
+    private void simulate(Path file) throws IOException {
+        var properties = new CandleConfigProperties();
+        properties.symbols = Map.of(BTC_USD, 100_000.0, "ETH-USD", 3_000.0);
+        properties.getTape().setSimulateFile(file.toString()).setSimulateDuration(Duration.ofMinutes(5));
+        new TickTapeRunner(bidAskEventListener, properties).run(new DefaultApplicationArguments());
+    }
+}
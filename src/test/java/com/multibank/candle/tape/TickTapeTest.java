@@ -0,0 +1,128 @@
+package com.multibank.candle.tape;
+
+import com.multibank.candle.domain.BidAskEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.multibank.candle.utils.IntegrationTestConfig.BTC_USD;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TickTapeTest {
+
+    private static final long BASE_TS = 1_100_040L;
+    private static final Map<String, Double> SYMBOLS = Map.of(BTC_USD, 100_000.0, "ETH-USD", 3_000.0);
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    @DisplayName("Ticks read back from a tape equal the recorded ones, across mapping windows")
+    void shouldReadBackRecordedTicks() throws IOException {
+
+        // GIVEN
+        var tape = dir.resolve("ticks.tape");
+        var recorded = new ArrayList<BidAskEvent>();
+        try (var writer = new TickTapeWriter(tape)) {
+            for (int i = 0; i < 1_000; i++) {
+                var event = new BidAskEvent(i % 3 == 0 ? BTC_USD : "SYM-" + (i % 7), 100.0 + i, 101.0 + i, BASE_TS + i);
+                writer.write(event, i * 1_000L);
+                recorded.add(event);
+            }
+        }
+
+        // WHEN: a window barely larger than a record forces remapping
+        var read = new ArrayList<BidAskEvent>();
+        var captureNanos = new ArrayList<Long>();
+        try (var reader = new TickTapeReader(tape, TickTapeFormat.MAX_RECORD_SIZE + 7)) {
+            BidAskEvent event;
+            while ((event = reader.next()) != null) {
+                read.add(event);
+                captureNanos.add(reader.captureNanos());
+            }
+        }
+
+        // THEN
+        assertThat(read).isEqualTo(recorded);
+        assertThat(captureNanos.get(999)).isEqualTo(999_000L);
+    }
+
+    @Test
+    @DisplayName("A file that is not a tick tape is rejected")
+    void shouldRejectOtherFiles() throws IOException {
+
+        var file = Files.writeString(dir.resolve("other.csv"), "symbol,bid,ask\n");
+
+        assertThatThrownBy(() -> new TickTapeReader(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not a tick tape");
+    }
+
+    @Test
+    @DisplayName("The same seed records the same simulated tape")
+    void shouldRecordReproducibleSimulatedTapes() throws IOException {
+
+        // GIVEN
+        var first = dir.resolve("first.tape");
+        var second = dir.resolve("second.tape");
+        var other = dir.resolve("other.tape");
+
+        // WHEN
+        var ticks = SimulatedTickTape.record(first, SYMBOLS, 7L, Duration.ofMinutes(10), BASE_TS);
+        SimulatedTickTape.record(second, SYMBOLS, 7L, Duration.ofMinutes(10), BASE_TS);
+        SimulatedTickTape.record(other, SYMBOLS, 8L, Duration.ofMinutes(10), BASE_TS);
+
+        // THEN
+        assertThat(ticks).isEqualTo(1_200);
+        assertThat(Files.readAllBytes(first)).isEqualTo(Files.readAllBytes(second));
+        assertThat(Files.readAllBytes(first)).isNotEqualTo(Files.readAllBytes(other));
+    }
+
+    @Test
+    @DisplayName("Replay at full speed hands every tick over in order, in batches of at most the batch size")
+    void shouldReplayInBatches() throws IOException {
+
+        // GIVEN
+        var tape = dir.resolve("replay.tape");
+        SimulatedTickTape.record(tape, SYMBOLS, 7L, Duration.ofSeconds(500), BASE_TS);
+
+        // WHEN
+        var batches = new ArrayList<List<BidAskEvent>>();
+        var replayed = TickTapeReplayer.replay(tape, 64, 0, batches::add);
+
+        // THEN
+        assertThat(replayed).isEqualTo(1_000);
+        assertThat(batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(64));
+        var timestamps = batches.stream().flatMap(List::stream).mapToLong(BidAskEvent::timestamp).toArray();
+        assertThat(timestamps).hasSize(1_000).isSorted();
+        assertThat(timestamps[0]).isEqualTo(BASE_TS);
+    }
+
+    @Test
+    @DisplayName("Paced replay follows the capture times scaled by the speed")
+    void shouldPaceReplay() throws IOException {
+
+        // GIVEN: 3 seconds of ticks replayed 30 times faster
+        var tape = dir.resolve("paced.tape");
+        SimulatedTickTape.record(tape, SYMBOLS, 7L, Duration.ofSeconds(3), BASE_TS);
+
+        // WHEN
+        var batches = new ArrayList<List<BidAskEvent>>();
+        long start = System.nanoTime();
+        TickTapeReplayer.replay(tape, 500, 30, batches::add);
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // THEN: one batch per captured second, the last one due after 2s / 30
+        assertThat(batches).hasSize(3).allSatisfy(batch -> assertThat(batch).hasSize(2));
+        assertThat(elapsed).isGreaterThanOrEqualTo(Duration.ofMillis(66));
+    }
+}
@@ -0,0 +1,33 @@
+package com.multibank.candle.utils;
+
+import com.multibank.candle.repository.CandleKeyRepository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class InMemoryCandleKeyRepository implements CandleKeyRepository {
+
+    private final Map<String, Integer> symbols = new ConcurrentHashMap<>();
+    private final Map<String, Short> timeframes = new ConcurrentHashMap<>();
+
+    @Override
+    public Map<String, Integer> findSymbols() {
+        return new HashMap<>(symbols);
+    }
+
+    @Override
+    public Map<String, Short> findTimeframes() {
+        return new HashMap<>(timeframes);
+    }
+
+    @Override
+    public synchronized int symbolId(String symbol) {
+        return symbols.computeIfAbsent(symbol, s -> symbols.size() + 1);
+    }
+
+    @Override
+    public synchronized short timeframeId(String code) {
+        return timeframes.computeIfAbsent(code, c -> (short) (timeframes.size() + 1));
+    }
+}
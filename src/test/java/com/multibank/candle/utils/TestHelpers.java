@@ -1,11 +1,18 @@
 package com.multibank.candle.utils;
 
+import com.multibank.candle.config.CandleConfigProperties;
 import com.multibank.candle.config.TimeFrameConfig;
 import com.multibank.candle.repository.entity.CandleEntity;
 import com.multibank.candle.repository.entity.CandleId;
+import com.multibank.candle.service.CandleKeyRegistry;
 
 public class TestHelpers {
 
+    /**
+     * Key registry shared by unit tests so ids built here match the ids used by the code under test.
+     */
+    public static final CandleKeyRegistry KEYS = new CandleKeyRegistry(new InMemoryCandleKeyRepository(), new CandleConfigProperties());
+
     public static TimeFrameConfig oneMinuteTf() {
         TimeFrameConfig tf = new TimeFrameConfig();
         tf.setName("MIN_1");
@@ -24,8 +31,15 @@ public class TestHelpers {
             double close,
             long volume
     ) {
-        var id = new CandleId(symbol, timeframeCode, timestamp);
+        return candle(candleId(symbol, timeframeCode, timestamp), open, high, low, close, volume);
+    }
+
+    public static CandleEntity candle(CandleId id, double open, double high, double low, double close, long volume) {
         return new CandleEntity(id, open, high, low, close, volume);
     }
 
+    public static CandleId candleId(String symbol, String timeframeCode, long timestamp) {
+        return KEYS.candleId(symbol, timeframeCode, timestamp);
+    }
+
 }